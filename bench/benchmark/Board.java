@@ -0,0 +1,141 @@
+package benchmark;
+
+import model.EpicTask;
+import model.Status;
+import model.SubTask;
+import model.Task;
+import service.TaskManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Доска задач для бенчмарков, заполненная с фиксированным зерном случайных чисел.
+ * <p>
+ * Три четверти задач — обычные задачи, остальные — эпики по 1–10 подзадач.
+ * Четыре из пяти задач и подзадач запланированы: они идут без пересечений в рабочие
+ * часы с 9 до 18, длятся от 15 минут до 4 часов, короткие встречаются чаще, а между
+ * ними бывают перерывы до часа. Задачи создаются в случайном порядке, поэтому индекс
+ * по времени начала заполняется не по возрастанию.
+ */
+public class Board {
+    static final LocalDateTime FIRST_DAY = LocalDateTime.of(2025, 1, 6, 9, 0);
+    private static final int WORKDAY_START_HOUR = 9;
+    private static final int WORKDAY_END_HOUR = 18;
+    private static final int[] DURATION_MINUTES = {15, 15, 30, 30, 30, 45, 60, 60, 90, 120, 240};
+    private static final int MAX_GAP_MINUTES = 60;
+    private static final int MAX_SUB_TASKS_IN_EPIC = 10;
+
+    private final Random random;
+    private LocalDateTime nextStartTime = FIRST_DAY;
+
+    final List<Task> tasks = new ArrayList<>();
+    final List<EpicTask> epicTasks = new ArrayList<>();
+    final List<SubTask> subTasks = new ArrayList<>();
+    /**
+     * Запланированные задачи и подзадачи в случайном порядке.
+     */
+    final List<Task> scheduledTasks = new ArrayList<>();
+
+    private Board(long seed) {
+        this.random = new Random(seed);
+    }
+
+    /**
+     * Создаёт в менеджере примерно {@code size} задач всех типов.
+     */
+    static Board fill(TaskManager taskManager, int size, long seed) {
+        Board board = new Board(seed);
+        board.fill(taskManager, size);
+        return board;
+    }
+
+    /**
+     * Возвращает время начала, свободное от всех задач доски, и сдвигает расписание.
+     */
+    LocalDateTime nextFreeStartTime(Duration duration) {
+        LocalDateTime startTime = nextStartTime.plusMinutes(random.nextInt(MAX_GAP_MINUTES + 1));
+        if (startTime.plus(duration).getHour() >= WORKDAY_END_HOUR || startTime.getHour() < WORKDAY_START_HOUR) {
+            startTime = startTime.toLocalDate().plusDays(1).atTime(WORKDAY_START_HOUR, 0);
+        }
+        nextStartTime = startTime.plus(duration);
+        return startTime;
+    }
+
+    Duration randomDuration() {
+        return Duration.ofMinutes(DURATION_MINUTES[random.nextInt(DURATION_MINUTES.length)]);
+    }
+
+    /**
+     * Возвращает заранее выбранные неотрицательные случайные числа, по которым бенчмарк
+     * выбирает задачи, не тратя время измерения на генератор случайных чисел.
+     */
+    int[] randomIndexes(int count) {
+        int[] indexes = new int[count];
+        for (int i = 0; i < count; i++) {
+            indexes[i] = random.nextInt(Integer.MAX_VALUE);
+        }
+        return indexes;
+    }
+
+    private void fill(TaskManager taskManager, int size) {
+        List<Task> plannedTasks = new ArrayList<>(size);
+        int taskCount = size * 3 / 4;
+        for (int i = 0; i < taskCount; i++) {
+            plannedTasks.add(newTask("task" + i));
+        }
+        Collections.shuffle(plannedTasks, random);
+
+        for (Task task : plannedTasks) {
+            tasks.add(taskManager.createTask(task));
+            if (task.getStartTime() != null) {
+                scheduledTasks.add(task);
+            }
+        }
+
+        int remaining = size - taskCount;
+        while (remaining > 0) {
+            EpicTask epicTask = taskManager.createEpicTask(new EpicTask("epic" + epicTasks.size(), "description"));
+            epicTasks.add(epicTask);
+            remaining--;
+
+            int subTasksCount = Math.min(remaining, 1 + random.nextInt(MAX_SUB_TASKS_IN_EPIC));
+            for (int i = 0; i < subTasksCount; i++) {
+                SubTask subTask = newSubTask("sub" + subTasks.size(), epicTask.getId());
+                subTasks.add(taskManager.createSubTask(subTask));
+                if (subTask.getStartTime() != null) {
+                    scheduledTasks.add(subTask);
+                }
+            }
+            remaining -= subTasksCount;
+        }
+        Collections.shuffle(scheduledTasks, random);
+    }
+
+    /**
+     * Каждая пятая задача создаётся без времени начала.
+     */
+    private Task newTask(String title) {
+        if (random.nextInt(5) == 0) {
+            return new Task(title, "description", randomStatus());
+        }
+        Duration duration = randomDuration();
+        return new Task(title, "description", randomStatus(), nextFreeStartTime(duration), duration);
+    }
+
+    private SubTask newSubTask(String title, int epicTaskId) {
+        if (random.nextInt(5) == 0) {
+            return new SubTask(title, "description", randomStatus(), epicTaskId);
+        }
+        Duration duration = randomDuration();
+        return new SubTask(title, "description", randomStatus(), epicTaskId, nextFreeStartTime(duration), duration);
+    }
+
+    private Status randomStatus() {
+        return Status.values()[random.nextInt(Status.values().length)];
+    }
+}
@@ -0,0 +1,105 @@
+package benchmark;
+
+import model.Status;
+import model.Task;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import service.ArrayHistoryManager;
+import service.ConcurrentHistoryManager;
+import service.HistoryManager;
+import service.InMemoryHistoryManager;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Операции истории просмотров, в которой уже просмотрены все задачи доски.
+ * Повторный просмотр переносит задачу в конец истории. Сравниваются
+ * {@link InMemoryHistoryManager} ({@code linked}), {@link ArrayHistoryManager} ({@code array})
+ * и {@link ConcurrentHistoryManager} ({@code concurrent}) с размером, равным размеру доски.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@State(Scope.Benchmark)
+public class HistoryManagerBenchmark {
+    private static final long SEED = 42;
+    private static final int INDEXES_COUNT = 1 << 16;
+
+    @Param({"1000", "10000", "100000"})
+    private int size;
+
+    @Param({"linked", "array", "concurrent"})
+    private String implementation;
+
+    private HistoryManager historyManager;
+    private Task[] tasks;
+    private int[] indexes;
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        historyManager = createHistoryManager();
+        tasks = new Task[size];
+        for (int i = 0; i < size; i++) {
+            tasks[i] = new Task("task" + i, "description", Status.NEW);
+            tasks[i].setId(i + 1);
+            historyManager.add(tasks[i]);
+        }
+
+        Random random = new Random(SEED);
+        indexes = new int[INDEXES_COUNT];
+        for (int i = 0; i < INDEXES_COUNT; i++) {
+            indexes[i] = random.nextInt(size);
+        }
+    }
+
+    @Benchmark
+    public Task add() {
+        Task task = next();
+        historyManager.add(task);
+        return task;
+    }
+
+    @Benchmark
+    public Task removeAndAdd() {
+        Task task = next();
+        historyManager.remove(task.getId());
+        historyManager.add(task);
+        return task;
+    }
+
+    @Benchmark
+    public List<Task> getHistory() {
+        return historyManager.getHistory();
+    }
+
+    private HistoryManager createHistoryManager() {
+        switch (implementation) {
+            case "array":
+                return new ArrayHistoryManager(size);
+            case "concurrent":
+                return new ConcurrentHistoryManager(size);
+            case "linked":
+            default:
+                return new InMemoryHistoryManager();
+        }
+    }
+
+    private Task next() {
+        return tasks[indexes[cursor++ & (INDEXES_COUNT - 1)]];
+    }
+}
@@ -0,0 +1,313 @@
+package benchmark;
+
+import com.google.gson.Gson;
+import model.EpicTask;
+import model.Status;
+import model.Task;
+import service.ConcurrentTaskManager;
+import service.HttpTaskServer;
+import service.ServerExecutor;
+import service.ServerSettings;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Нагрузочный тест {@link HttpTaskServer}. Поднимает сервер на свободном порту с доской
+ * из {@link Board}, нагружает его клиентами {@link HttpClient} в виртуальных потоках
+ * и печатает пропускную способность и задержки p50, p99 и p99.9 по видам запросов.
+ * <p>
+ * Каждый клиент отправляет следующий запрос только после ответа на предыдущий, поэтому
+ * при перегрузке сервера задержки занижены: клиенты сами снижают нагрузку.
+ * <p>
+ * Параметры передаются как {@code имя=значение}:
+ * <ul>
+ *     <li>{@code workload} — {@code read}, {@code write}, {@code fanout} или {@code mixed} (по умолчанию);</li>
+ *     <li>{@code concurrency} — количество клиентов, по умолчанию 64;</li>
+ *     <li>{@code size} — размер доски, по умолчанию 10000;</li>
+ *     <li>{@code warmup} и {@code duration} — прогрев и измерение в секундах, по умолчанию 5 и 30;</li>
+ *     <li>{@code executor} — исполнитель сервера из {@link ServerExecutor}, по умолчанию {@code VIRTUAL_THREADS};</li>
+ *     <li>{@code host} — адрес сервера, по умолчанию {@code localhost}.</li>
+ * </ul>
+ */
+public class HttpLoadTest {
+    private static final long SEED = 42;
+    private static final int WRITE_BURST_SIZE = 20;
+    private static final Duration WRITE_BURST_PAUSE = Duration.ofMillis(50);
+    private static final int PAGE_SIZE = 100;
+
+    private enum Workload {
+        /**
+         * Опрос списка задач с {@code If-None-Match} и чтение отдельных задач.
+         */
+        READ,
+        /**
+         * Пачки созданий задач с паузами между ними.
+         */
+        WRITE,
+        /**
+         * Чтение подзадач случайного эпика.
+         */
+        FANOUT,
+        /**
+         * 80% чтения, 10% подзадач эпиков и 10% созданий задач.
+         */
+        MIXED
+    }
+
+    private enum RequestKind {
+        POLL_TASKS, GET_TASK, GET_SUB_TASKS, CREATE_TASK
+    }
+
+    private final Workload workload;
+    private final int concurrency;
+    private final Duration warmup;
+    private final Duration duration;
+    private final Board board;
+    private final String serverAddress;
+    private final HttpClient httpClient;
+    private final Gson gson = HttpTaskServer.getGson();
+
+    private HttpLoadTest(Map<String, String> parameters, Board board, String serverAddress) {
+        this.workload = Workload.valueOf(parameters.getOrDefault("workload", "mixed").toUpperCase(Locale.ROOT));
+        this.concurrency = Integer.parseInt(parameters.getOrDefault("concurrency", "64"));
+        this.warmup = Duration.ofSeconds(Long.parseLong(parameters.getOrDefault("warmup", "5")));
+        this.duration = Duration.ofSeconds(Long.parseLong(parameters.getOrDefault("duration", "30")));
+        this.board = board;
+        this.serverAddress = serverAddress;
+        this.httpClient = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1)
+                .executor(Executors.newVirtualThreadPerTaskExecutor()).build();
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> parameters = parseArguments(args);
+        String host = parameters.getOrDefault("host", ServerSettings.DEFAULT_HOST);
+        int size = Integer.parseInt(parameters.getOrDefault("size", "10000"));
+        ServerExecutor executor = ServerExecutor.valueOf(
+                parameters.getOrDefault("executor", ServerExecutor.VIRTUAL_THREADS.name()).toUpperCase(Locale.ROOT));
+
+        ConcurrentTaskManager taskManager = new ConcurrentTaskManager();
+        Board board = Board.fill(taskManager, size, SEED);
+        HttpTaskServer server = new HttpTaskServer(taskManager,
+                new ServerSettings().withAddress(host, 0).withExecutor(executor));
+        server.start();
+        try {
+            HttpLoadTest loadTest = new HttpLoadTest(parameters, board, "http://" + host + ":" + server.getPort());
+            System.out.printf("workload=%s concurrency=%d size=%d executor=%s%n",
+                    loadTest.workload, loadTest.concurrency, size, executor);
+            loadTest.run();
+        } finally {
+            server.stop();
+        }
+    }
+
+    private void run() throws Exception {
+        long measureStart = System.nanoTime() + warmup.toNanos();
+        long deadline = measureStart + duration.toNanos();
+
+        List<Future<Recorder>> futures = new ArrayList<>();
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < concurrency; i++) {
+                futures.add(clients.submit(() -> runClient(measureStart, deadline)));
+            }
+        }
+
+        Recorder total = new Recorder();
+        for (Future<Recorder> future : futures) {
+            total.addAll(future.get());
+        }
+        total.print(duration);
+    }
+
+    private Recorder runClient(long measureStart, long deadline) throws InterruptedException {
+        Recorder recorder = new Recorder();
+        Client client = new Client();
+        int burstPosition = 0;
+
+        while (System.nanoTime() < deadline) {
+            RequestKind kind = nextKind();
+            long start = System.nanoTime();
+            int statusCode;
+            try {
+                statusCode = client.send(kind);
+            } catch (IOException exception) {
+                statusCode = -1;
+            }
+            long end = System.nanoTime();
+            if (start >= measureStart) {
+                recorder.record(kind, end - start, statusCode);
+            }
+
+            if (workload == Workload.WRITE && ++burstPosition == WRITE_BURST_SIZE) {
+                burstPosition = 0;
+                Thread.sleep(WRITE_BURST_PAUSE);
+            }
+        }
+        return recorder;
+    }
+
+    private RequestKind nextKind() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        switch (workload) {
+            case READ:
+                return random.nextBoolean() ? RequestKind.POLL_TASKS : RequestKind.GET_TASK;
+            case WRITE:
+                return RequestKind.CREATE_TASK;
+            case FANOUT:
+                return RequestKind.GET_SUB_TASKS;
+            case MIXED:
+            default:
+                int roll = random.nextInt(10);
+                if (roll < 4) {
+                    return RequestKind.POLL_TASKS;
+                } else if (roll < 8) {
+                    return RequestKind.GET_TASK;
+                } else if (roll < 9) {
+                    return RequestKind.GET_SUB_TASKS;
+                }
+                return RequestKind.CREATE_TASK;
+        }
+    }
+
+    private static Map<String, String> parseArguments(String[] args) {
+        Map<String, String> parameters = new HashMap<>();
+        for (String argument : args) {
+            int separator = argument.indexOf('=');
+            if (separator <= 0) {
+                throw new IllegalArgumentException("Параметр должен иметь вид имя=значение: " + argument);
+            }
+            parameters.put(argument.substring(0, separator), argument.substring(separator + 1));
+        }
+        return parameters;
+    }
+
+    /**
+     * Клиент одного потока. Помнит {@code ETag} списка задач, чтобы опрашивать его как браузер.
+     */
+    private class Client {
+        private String tasksEntityTag;
+
+        private int send(RequestKind kind) throws IOException, InterruptedException {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            HttpRequest.Builder request;
+            switch (kind) {
+                case POLL_TASKS:
+                    request = HttpRequest.newBuilder(URI.create(serverAddress + "/tasks?limit=" + PAGE_SIZE));
+                    if (tasksEntityTag != null) {
+                        request.header("If-None-Match", tasksEntityTag);
+                    }
+                    break;
+                case GET_TASK:
+                    Task task = board.tasks.get(random.nextInt(board.tasks.size()));
+                    request = HttpRequest.newBuilder(URI.create(serverAddress + "/tasks/" + task.getId()));
+                    break;
+                case GET_SUB_TASKS:
+                    EpicTask epicTask = board.epicTasks.get(random.nextInt(board.epicTasks.size()));
+                    request = HttpRequest.newBuilder(
+                            URI.create(serverAddress + "/epics/" + epicTask.getId() + "/subtasks"));
+                    break;
+                case CREATE_TASK:
+                default:
+                    String body = gson.toJson(new Task("load task", "description", Status.NEW));
+                    request = HttpRequest.newBuilder(URI.create(serverAddress + "/tasks"))
+                            .POST(HttpRequest.BodyPublishers.ofString(body));
+                    break;
+            }
+
+            HttpResponse<byte[]> response = httpClient.send(request.build(), HttpResponse.BodyHandlers.ofByteArray());
+            if (kind == RequestKind.POLL_TASKS) {
+                tasksEntityTag = response.headers().firstValue("ETag").orElse(tasksEntityTag);
+            }
+            return response.statusCode();
+        }
+    }
+
+    /**
+     * Задержки и ошибки по видам запросов. Задержки хранятся целиком и сортируются
+     * при выводе, поэтому перцентили точные.
+     */
+    private static class Recorder {
+        private final long[][] latencies = new long[RequestKind.values().length][];
+        private final int[] counts = new int[RequestKind.values().length];
+        private final int[] errors = new int[RequestKind.values().length];
+
+        private Recorder() {
+            for (int i = 0; i < latencies.length; i++) {
+                latencies[i] = new long[1024];
+            }
+        }
+
+        private void record(RequestKind kind, long nanos, int statusCode) {
+            int index = kind.ordinal();
+            if (counts[index] == latencies[index].length) {
+                latencies[index] = Arrays.copyOf(latencies[index], counts[index] * 2);
+            }
+            latencies[index][counts[index]++] = nanos;
+            if (statusCode < 200 || statusCode >= 400) {
+                errors[index]++;
+            }
+        }
+
+        private void addAll(Recorder other) {
+            for (int i = 0; i < latencies.length; i++) {
+                latencies[i] = Arrays.copyOf(latencies[i], counts[i] + other.counts[i]);
+                System.arraycopy(other.latencies[i], 0, latencies[i], counts[i], other.counts[i]);
+                counts[i] += other.counts[i];
+                errors[i] += other.errors[i];
+            }
+        }
+
+        private void print(Duration duration) {
+            double seconds = duration.toNanos() / 1e9;
+            System.out.printf("%-14s %10s %10s %8s %10s %10s %10s %10s%n",
+                    "request", "count", "req/s", "errors", "p50 ms", "p99 ms", "p99.9 ms", "max ms");
+
+            long[] all = new long[0];
+            int totalErrors = 0;
+            for (RequestKind kind : RequestKind.values()) {
+                int index = kind.ordinal();
+                if (counts[index] == 0) {
+                    continue;
+                }
+                long[] sorted = Arrays.copyOf(latencies[index], counts[index]);
+                Arrays.sort(sorted);
+                printRow(kind.name(), sorted, errors[index], seconds);
+
+                all = Arrays.copyOf(all, all.length + sorted.length);
+                System.arraycopy(sorted, 0, all, all.length - sorted.length, sorted.length);
+                totalErrors += errors[index];
+            }
+            Arrays.sort(all);
+            printRow("TOTAL", all, totalErrors, seconds);
+        }
+
+        private static void printRow(String name, long[] sorted, int errors, double seconds) {
+            if (sorted.length == 0) {
+                System.out.printf("%-14s %10d%n", name, 0);
+                return;
+            }
+            System.out.printf(Locale.ROOT, "%-14s %10d %10.1f %8d %10.3f %10.3f %10.3f %10.3f%n",
+                    name, sorted.length, sorted.length / seconds, errors, percentile(sorted, 0.5),
+                    percentile(sorted, 0.99), percentile(sorted, 0.999), sorted[sorted.length - 1] / 1e6);
+        }
+
+        private static double percentile(long[] sorted, double quantile) {
+            int index = (int) Math.ceil(quantile * sorted.length) - 1;
+            return sorted[Math.max(index, 0)] / 1e6;
+        }
+    }
+}
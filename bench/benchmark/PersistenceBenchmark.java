@@ -0,0 +1,218 @@
+package benchmark;
+
+import model.Status;
+import model.Task;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import service.FileBackedTaskManager;
+import service.InMemoryTaskManager;
+import storage.CsvTaskStorage;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Загрузка и сохранение {@link FileBackedTaskManager} с файлом CSV на досках разного размера.
+ * <p>
+ * Файл доски создаётся один раз на размер во временном каталоге и удаляется после
+ * измерений. Загрузка замеряется однократными запусками: каждый раз создаётся новый
+ * менеджер, но файл уже лежит в кэше операционной системы. Изменения замеряются
+ * выборкой времени, чтобы получить перцентили задержки сохранения одного изменения,
+ * и дополнительно считают байты, записанные процессом на одно изменение, по
+ * {@code /proc/self/io} (на других системах счётчик равен {@code -1}).
+ * <p>
+ * {@link #main(String[])} запускает бенчмарк с профилировщиком GC, который сообщает
+ * скорость выделения памяти, и записывает результаты в JSON для сравнения запусков.
+ */
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@State(Scope.Benchmark)
+public class PersistenceBenchmark {
+    private static final long SEED = 42;
+    private static final int INDEXES_COUNT = 1 << 16;
+    private static final Status[] STATUSES = Status.values();
+
+    @Param({"1000", "10000", "100000"})
+    private int size;
+
+    private Path directory;
+    private Path boardFile;
+    private Board board;
+    private int[] indexes;
+    private int cursor;
+    private LocalDateTime freeStartTime;
+    private Duration freeDuration;
+    private FileBackedTaskManager taskManager;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("kanban-bench");
+        boardFile = directory.resolve("board.csv");
+
+        InMemoryTaskManager boardManager = new InMemoryTaskManager();
+        board = Board.fill(boardManager, size, SEED);
+        List<Task> tasks = new ArrayList<>(boardManager.getAllTasks());
+        tasks.addAll(boardManager.getAllEpicTasks());
+        tasks.addAll(boardManager.getAllSubTasks());
+        CsvTaskStorage.write(boardFile, tasks);
+
+        indexes = board.randomIndexes(INDEXES_COUNT);
+        freeDuration = Duration.ofMinutes(30);
+        freeStartTime = board.nextFreeStartTime(freeDuration);
+
+        Path mutableFile = directory.resolve("mutable.csv");
+        Files.copy(boardFile, mutableFile);
+        taskManager = FileBackedTaskManager.loadFromFile(mutableFile.toFile());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        taskManager.close();
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 5)
+    @Measurement(iterations = 20)
+    public FileBackedTaskManager loadFromFile() {
+        FileBackedTaskManager loadedManager = FileBackedTaskManager.loadFromFile(boardFile.toFile());
+        loadedManager.close();
+        return loadedManager;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @Warmup(iterations = 3, time = 2)
+    @Measurement(iterations = 5, time = 2)
+    public Task updateTask(WriteCounters counters) {
+        Task task = board.tasks.get(nextIndex() % board.tasks.size());
+        Task updatedTask = task.getStartTime() == null
+                ? new Task(task.getTitle(), "updated", nextStatus())
+                : new Task(task.getTitle(), "updated", nextStatus(), task.getStartTime(), task.getDuration());
+        updatedTask.setId(task.getId());
+        taskManager.updateTask(updatedTask);
+        counters.operations++;
+        return updatedTask;
+    }
+
+    /**
+     * Создание задачи и её удаление — два сохранения, после которых доска не меняется.
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @Warmup(iterations = 3, time = 2)
+    @Measurement(iterations = 5, time = 2)
+    public int createAndRemoveTask(WriteCounters counters) {
+        Task task = taskManager.createTask(new Task("new task", "description", Status.NEW,
+                freeStartTime, freeDuration));
+        taskManager.removeTask(task.getId());
+        counters.operations += 2;
+        return task.getId();
+    }
+
+    private int nextIndex() {
+        return indexes[cursor++ & (INDEXES_COUNT - 1)];
+    }
+
+    private Status nextStatus() {
+        return STATUSES[nextIndex() % STATUSES.length];
+    }
+
+    /**
+     * Байты, записанные процессом за итерацию, в пересчёте на одно сохранённое изменение.
+     */
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class WriteCounters {
+        private static final Path PROCESS_IO = Paths.get("/proc/self/io");
+
+        public double bytesWrittenPerOperation;
+        private long operations;
+        private long writtenBefore;
+
+        @Setup(Level.Iteration)
+        public void startIteration() {
+            operations = 0;
+            writtenBefore = readWrittenBytes();
+        }
+
+        @TearDown(Level.Iteration)
+        public void finishIteration() {
+            long writtenAfter = readWrittenBytes();
+            bytesWrittenPerOperation = writtenBefore < 0 || operations == 0
+                    ? -1
+                    : (double) (writtenAfter - writtenBefore) / operations;
+        }
+
+        /**
+         * Возвращает количество байт, переданных процессом в системные вызовы записи,
+         * или {@code -1}, если система не ведёт такой счётчик.
+         */
+        private static long readWrittenBytes() {
+            if (!Files.isReadable(PROCESS_IO)) {
+                return -1;
+            }
+            try {
+                for (String line : Files.readAllLines(PROCESS_IO)) {
+                    if (line.startsWith("wchar:")) {
+                        return Long.parseLong(line.substring("wchar:".length()).trim());
+                    }
+                }
+                return -1;
+            } catch (IOException exception) {
+                throw new UncheckedIOException(exception);
+            }
+        }
+    }
+
+    /**
+     * Запускает бенчмарк с профилировщиком GC и сохраняет результаты в JSON.
+     *
+     * @param args путь к файлу результатов, по умолчанию {@code persistence-benchmark.json}
+     */
+    public static void main(String[] args) throws RunnerException {
+        String resultFile = args.length > 0 ? args[0] : "persistence-benchmark.json";
+        Options options = new OptionsBuilder()
+                .include(PersistenceBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .resultFormat(ResultFormatType.JSON)
+                .result(resultFile)
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,134 @@
+package benchmark;
+
+import exception.ValidationException;
+import model.EpicTask;
+import model.Status;
+import model.SubTask;
+import model.Task;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import service.InMemoryTaskManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Операции {@link InMemoryTaskManager} на досках разного размера, см. {@link Board}.
+ * <p>
+ * Создание замеряется вместе с удалением созданной задачи, чтобы размер доски
+ * не менялся за время измерения. Новые задачи ставятся в свободное время после
+ * всех задач доски и проходят полную проверку пересечений.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@State(Scope.Benchmark)
+public class TaskManagerBenchmark {
+    private static final long SEED = 42;
+    private static final int INDEXES_COUNT = 1 << 16;
+    private static final Status[] STATUSES = Status.values();
+
+    @Param({"1000", "10000", "100000"})
+    private int size;
+
+    private InMemoryTaskManager taskManager;
+    private Board board;
+    private int[] indexes;
+    private int cursor;
+    private LocalDateTime freeStartTime;
+    private Duration freeDuration;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        taskManager = new InMemoryTaskManager();
+        board = Board.fill(taskManager, size, SEED);
+        indexes = board.randomIndexes(INDEXES_COUNT);
+        freeDuration = Duration.ofMinutes(30);
+        freeStartTime = board.nextFreeStartTime(freeDuration);
+    }
+
+    @Benchmark
+    public int createAndRemoveTask() {
+        Task task = taskManager.createTask(new Task("new task", "description", Status.NEW,
+                freeStartTime, freeDuration));
+        taskManager.removeTask(task.getId());
+        return task.getId();
+    }
+
+    /**
+     * Создание и удаление подзадачи, в том числе два пересчёта её эпика.
+     */
+    @Benchmark
+    public int createAndRemoveSubTask() {
+        EpicTask epicTask = next(board.epicTasks);
+        SubTask subTask = taskManager.createSubTask(new SubTask("new sub", "description", Status.IN_PROGRESS,
+                epicTask.getId(), freeStartTime, freeDuration));
+        taskManager.removeSubTask(subTask.getId());
+        return subTask.getId();
+    }
+
+    @Benchmark
+    public Task updateTask() {
+        Task task = next(board.tasks);
+        Task updatedTask = task.getStartTime() == null
+                ? new Task(task.getTitle(), "updated", nextStatus())
+                : new Task(task.getTitle(), "updated", nextStatus(), task.getStartTime(), task.getDuration());
+        updatedTask.setId(task.getId());
+        return taskManager.updateTask(updatedTask);
+    }
+
+    /**
+     * Обновление статуса подзадачи с пересчётом статуса и времени её эпика.
+     */
+    @Benchmark
+    public SubTask updateSubTaskWithEpicRecalculation() {
+        SubTask subTask = next(board.subTasks);
+        SubTask updatedSubTask = subTask.getStartTime() == null
+                ? new SubTask(subTask.getTitle(), "updated", nextStatus(), subTask.getEpicTaskId())
+                : new SubTask(subTask.getTitle(), "updated", nextStatus(), subTask.getEpicTaskId(),
+                subTask.getStartTime(), subTask.getDuration());
+        updatedSubTask.setId(subTask.getId());
+        return taskManager.updateSubTask(updatedSubTask);
+    }
+
+    /**
+     * Отказ в создании задачи, которая пересекается с запланированной задачей доски.
+     */
+    @Benchmark
+    public Object rejectOverlappingTask() {
+        Task scheduledTask = next(board.scheduledTasks);
+        try {
+            return taskManager.createTask(new Task("overlapping", "description", Status.NEW,
+                    scheduledTask.getStartTime(), Duration.ofMinutes(15)));
+        } catch (ValidationException exception) {
+            return exception;
+        }
+    }
+
+    @Benchmark
+    public List<Task> getPrioritizedTasks() {
+        return taskManager.getPrioritizedTasks();
+    }
+
+    private <T> T next(List<T> tasks) {
+        return tasks.get(indexes[cursor++ & (INDEXES_COUNT - 1)] % tasks.size());
+    }
+
+    private Status nextStatus() {
+        return STATUSES[indexes[cursor & (INDEXES_COUNT - 1)] % STATUSES.length];
+    }
+}
@@ -2,6 +2,7 @@ package adapter;
 
 import com.google.gson.TypeAdapter;
 import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
 import com.google.gson.stream.JsonWriter;
 
 import java.io.IOException;
@@ -13,19 +14,16 @@ public class DurationAdapter extends TypeAdapter<Duration> {
         if (duration != null) {
             jsonWriter.value(duration.toMinutes());
         } else {
-            jsonWriter.value("null");
+            jsonWriter.nullValue();
         }
-
     }
 
     @Override
     public Duration read(JsonReader jsonReader) throws IOException {
-        String string = jsonReader.nextString();
-        if (string.equalsIgnoreCase("null")) {
+        if (jsonReader.peek() == JsonToken.NULL) {
+            jsonReader.nextNull();
             return null;
-        } else {
-            return Duration.ofMinutes(Long.parseLong(string));
         }
-
+        return Duration.ofMinutes(jsonReader.nextLong());
     }
 }
@@ -2,6 +2,7 @@ package adapter;
 
 import com.google.gson.TypeAdapter;
 import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
 import com.google.gson.stream.JsonWriter;
 
 import java.io.IOException;
@@ -14,17 +15,16 @@ public class LocalDataTimeAdapter extends TypeAdapter<LocalDateTime> {
         if (localDateTime != null) {
             jsonWriter.value(localDateTime.toString());
         } else {
-            jsonWriter.value("null");
+            jsonWriter.nullValue();
         }
     }
 
     @Override
     public LocalDateTime read(JsonReader jsonReader) throws IOException {
-        String string = jsonReader.nextString();
-        if (string.equalsIgnoreCase("null")) {
+        if (jsonReader.peek() == JsonToken.NULL) {
+            jsonReader.nextNull();
             return null;
-        } else {
-            return LocalDateTime.parse(string);
         }
+        return LocalDateTime.parse(jsonReader.nextString());
     }
 }
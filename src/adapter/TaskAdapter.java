@@ -0,0 +1,251 @@
+package adapter;
+
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import model.EpicTask;
+import model.Status;
+import model.SubTask;
+import model.Task;
+import model.TaskType;
+
+import java.io.IOException;
+import java.time.DateTimeException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Потоковый адаптер задач без рефлексии. Поле {@code type} записывается первым.
+ * Если поля {@code type} нет, используется тип по умолчанию — тот, что запрошен
+ * у {@link com.google.gson.Gson}. Строгий адаптер отклоняет задачу другого типа,
+ * чтобы, например, подзадача не попала в обычные задачи. Нестрогий адаптер создаёт
+ * задачу по полю {@code type} и нужен для смешанных списков вроде истории.
+ * Пустые поля не записываются, время записывается в формате ISO, длительность — в минутах.
+ */
+public class TaskAdapter extends TypeAdapter<Task> {
+    private static final List<String> FIELDS = List.of("type", "id", "title", "description", "status",
+            "startTime", "duration", "endTime", "epicTaskId", "subTasksId");
+
+    private final TaskType defaultType;
+    private final boolean strict;
+
+    public TaskAdapter(TaskType defaultType) {
+        this(defaultType, true);
+    }
+
+    public TaskAdapter(TaskType defaultType, boolean strict) {
+        this.defaultType = defaultType;
+        this.strict = strict;
+    }
+
+    @Override
+    public void write(JsonWriter jsonWriter, Task task) throws IOException {
+        if (task == null) {
+            jsonWriter.nullValue();
+            return;
+        }
+
+        jsonWriter.beginObject();
+        for (String field : FIELDS) {
+            writeField(jsonWriter, task, field);
+        }
+        jsonWriter.endObject();
+    }
+
+    /**
+     * Записывает задачу, оставляя только поля из {@code fields} в их порядке.
+     * Неизвестные и пустые поля пропускаются.
+     */
+    public void write(JsonWriter jsonWriter, Task task, Collection<String> fields) throws IOException {
+        jsonWriter.beginObject();
+        for (String field : fields) {
+            writeField(jsonWriter, task, field);
+        }
+        jsonWriter.endObject();
+    }
+
+    @Override
+    public Task read(JsonReader jsonReader) throws IOException {
+        if (jsonReader.peek() == JsonToken.NULL) {
+            jsonReader.nextNull();
+            return null;
+        }
+
+        TaskType type = defaultType;
+        int id = 0;
+        String title = null;
+        String description = null;
+        Status status = null;
+        LocalDateTime startTime = null;
+        Duration duration = null;
+        LocalDateTime endTime = null;
+        int epicTaskId = 0;
+        List<Integer> subTasksId = null;
+
+        jsonReader.beginObject();
+        while (jsonReader.hasNext()) {
+            String name = jsonReader.nextName();
+            if (jsonReader.peek() == JsonToken.NULL) {
+                jsonReader.nextNull();
+                continue;
+            }
+
+            switch (name) {
+                case "type":
+                    type = parseEnum(TaskType.class, jsonReader.nextString(), jsonReader);
+                    break;
+                case "id":
+                    id = jsonReader.nextInt();
+                    break;
+                case "title":
+                    title = jsonReader.nextString();
+                    break;
+                case "description":
+                    description = jsonReader.nextString();
+                    break;
+                case "status":
+                    status = parseEnum(Status.class, jsonReader.nextString(), jsonReader);
+                    break;
+                case "startTime":
+                    startTime = parseDateTime(jsonReader.nextString(), jsonReader);
+                    break;
+                case "duration":
+                    duration = Duration.ofMinutes(jsonReader.nextLong());
+                    break;
+                case "endTime":
+                    endTime = parseDateTime(jsonReader.nextString(), jsonReader);
+                    break;
+                case "epicTaskId":
+                    epicTaskId = jsonReader.nextInt();
+                    break;
+                case "subTasksId":
+                    subTasksId = new ArrayList<>();
+                    jsonReader.beginArray();
+                    while (jsonReader.hasNext()) {
+                        subTasksId.add(jsonReader.nextInt());
+                    }
+                    jsonReader.endArray();
+                    break;
+                default:
+                    jsonReader.skipValue();
+            }
+        }
+        jsonReader.endObject();
+
+        if (strict && type != defaultType) {
+            throw new JsonSyntaxException("Ожидалась задача типа " + defaultType + ", а получена " + type);
+        }
+        if (type != TaskType.EPIC_TASK && startTime != null && duration == null) {
+            throw new JsonSyntaxException("У задачи со временем начала нет длительности: " + jsonReader.getPath());
+        }
+
+        Task task;
+        switch (type) {
+            case EPIC_TASK:
+                EpicTask epicTask = new EpicTask(title, description);
+                if (status != null) {
+                    epicTask.setStatus(status);
+                }
+                epicTask.setStartTime(startTime);
+                epicTask.setDuration(duration);
+                epicTask.setEndTime(endTime);
+                if (subTasksId != null) {
+                    subTasksId.forEach(epicTask::addSubTaskId);
+                }
+                task = epicTask;
+                break;
+            case SUB_TASK:
+                task = startTime != null
+                        ? new SubTask(title, description, status, epicTaskId, startTime, duration)
+                        : new SubTask(title, description, status, epicTaskId);
+                break;
+            case TASK:
+            default:
+                task = startTime != null
+                        ? new Task(title, description, status, startTime, duration)
+                        : new Task(title, description, status);
+        }
+        task.setId(id);
+        return task;
+    }
+
+    private static void writeField(JsonWriter jsonWriter, Task task, String field) throws IOException {
+        switch (field) {
+            case "type":
+                jsonWriter.name(field).value(task.getType().name());
+                break;
+            case "id":
+                jsonWriter.name(field).value(task.getId());
+                break;
+            case "title":
+                writeString(jsonWriter, field, task.getTitle());
+                break;
+            case "description":
+                writeString(jsonWriter, field, task.getDescription());
+                break;
+            case "status":
+                if (task.getStatus() != null) {
+                    jsonWriter.name(field).value(task.getStatus().name());
+                }
+                break;
+            case "startTime":
+                if (task.getStartTime() != null) {
+                    jsonWriter.name(field).value(task.getStartTime().toString());
+                }
+                break;
+            case "duration":
+                if (task.getDuration() != null) {
+                    jsonWriter.name(field).value(task.getDuration().toMinutes());
+                }
+                break;
+            case "endTime":
+                if (task.getEndTime() != null) {
+                    jsonWriter.name(field).value(task.getEndTime().toString());
+                }
+                break;
+            case "epicTaskId":
+                if (task.getType() == TaskType.SUB_TASK) {
+                    jsonWriter.name(field).value(task.getEpicTaskId());
+                }
+                break;
+            case "subTasksId":
+                if (task.getType() == TaskType.EPIC_TASK) {
+                    jsonWriter.name(field).beginArray();
+                    for (int subTaskId : ((EpicTask) task).getSubTasksIdView()) {
+                        jsonWriter.value(subTaskId);
+                    }
+                    jsonWriter.endArray();
+                }
+                break;
+            default:
+                break;
+        }
+    }
+
+    private static void writeString(JsonWriter jsonWriter, String name, String value) throws IOException {
+        if (value != null) {
+            jsonWriter.name(name).value(value);
+        }
+    }
+
+    private static <E extends Enum<E>> E parseEnum(Class<E> enumClass, String value, JsonReader jsonReader) {
+        try {
+            return Enum.valueOf(enumClass, value);
+        } catch (IllegalArgumentException exception) {
+            throw new JsonSyntaxException("Неизвестное значение " + value + ": " + jsonReader.getPath(), exception);
+        }
+    }
+
+    private static LocalDateTime parseDateTime(String value, JsonReader jsonReader) {
+        try {
+            return LocalDateTime.parse(value);
+        } catch (DateTimeException exception) {
+            throw new JsonSyntaxException("Некорректное время " + value + ": " + jsonReader.getPath(), exception);
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package adapter;
+
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+import model.EpicTask;
+import model.SubTask;
+import model.Task;
+import model.TaskType;
+
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.List;
+
+/**
+ * Подставляет {@link TaskAdapter} для {@link Task}, {@link EpicTask} и {@link SubTask}
+ * вместо рефлексивного адаптера Gson. Одиночная задача читается строго по запрошенному
+ * классу, а {@code List<Task>} — по полю {@code type} каждого элемента.
+ * Адаптеры создаются один раз на фабрику.
+ */
+public class TaskAdapterFactory implements TypeAdapterFactory {
+    private final TaskAdapter taskAdapter = new TaskAdapter(TaskType.TASK);
+    private final TaskAdapter epicTaskAdapter = new TaskAdapter(TaskType.EPIC_TASK);
+    private final TaskAdapter subTaskAdapter = new TaskAdapter(TaskType.SUB_TASK);
+    private final TaskListAdapter taskListAdapter = new TaskListAdapter(new TaskAdapter(TaskType.TASK, false));
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
+        Class<? super T> rawType = type.getRawType();
+        if (rawType == Task.class) {
+            return (TypeAdapter<T>) taskAdapter;
+        } else if (rawType == EpicTask.class) {
+            return (TypeAdapter<T>) epicTaskAdapter;
+        } else if (rawType == SubTask.class) {
+            return (TypeAdapter<T>) subTaskAdapter;
+        } else if (rawType == List.class && isListOfTasks(type.getType())) {
+            return (TypeAdapter<T>) taskListAdapter;
+        }
+        return null;
+    }
+
+    private static boolean isListOfTasks(Type type) {
+        return type instanceof ParameterizedType
+                && ((ParameterizedType) type).getActualTypeArguments()[0] == Task.class;
+    }
+}
@@ -0,0 +1,53 @@
+package adapter;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import model.Task;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Адаптер смешанного списка задач {@code List<Task>}: каждый элемент читается
+ * по своему полю {@code type}, поэтому подзадачи и эпики сохраняют свой класс.
+ */
+public class TaskListAdapter extends TypeAdapter<List<Task>> {
+    private final TypeAdapter<Task> taskAdapter;
+
+    public TaskListAdapter(TypeAdapter<Task> taskAdapter) {
+        this.taskAdapter = taskAdapter;
+    }
+
+    @Override
+    public void write(JsonWriter jsonWriter, List<Task> tasks) throws IOException {
+        if (tasks == null) {
+            jsonWriter.nullValue();
+            return;
+        }
+
+        jsonWriter.beginArray();
+        for (Task task : tasks) {
+            taskAdapter.write(jsonWriter, task);
+        }
+        jsonWriter.endArray();
+    }
+
+    @Override
+    public List<Task> read(JsonReader jsonReader) throws IOException {
+        if (jsonReader.peek() == JsonToken.NULL) {
+            jsonReader.nextNull();
+            return null;
+        }
+
+        List<Task> tasks = new ArrayList<>();
+        jsonReader.beginArray();
+        while (jsonReader.hasNext()) {
+            tasks.add(taskAdapter.read(jsonReader));
+        }
+        jsonReader.endArray();
+        return tasks;
+    }
+}
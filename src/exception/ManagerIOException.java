@@ -2,6 +2,10 @@ package exception;
 
 public class ManagerIOException extends RuntimeException {
 
+    public ManagerIOException(String message) {
+        super(message);
+    }
+
     public ManagerIOException(String message, Throwable cause) {
         super(message, cause);
     }
@@ -1,51 +1,319 @@
 package handler;
 
+import adapter.TaskAdapter;
 import com.google.gson.Gson;
+import com.google.gson.JsonNull;
+import com.google.gson.stream.JsonWriter;
 import com.sun.net.httpserver.HttpExchange;
-import com.sun.net.httpserver.HttpHandler;
+import model.Status;
+import model.Task;
+import model.TaskType;
 import service.TaskManager;
+import service.TaskQuery;
 
 import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.net.URLDecoder;
 import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
-public abstract class BaseHttpHandler implements HttpHandler {
+public abstract class BaseHttpHandler {
     public static final int HTTP_OK = 200;
     public static final int HTTP_CREATED = 201;
     public static final int HTTP_NO_CONTENT = 204;
+    public static final int HTTP_NOT_MODIFIED = 304;
     public static final int HTTP_BAD_REQUEST = 400;
     public static final int HTTP_NOT_FOUND = 404;
+    public static final int HTTP_METHOD_NOT_ALLOWED = 405;
     public static final int HTTP_NOT_ACCEPTABLE = 406;
     public static final int HTTP_INTERNAL_SERVER_ERROR = 500;
     public static final int HTTP_BAD_GATEWAY = 502;
     public static final String GET = "GET";
     public static final String POST = "POST";
     public static final String DELETE = "DELETE";
+    private static final TaskAdapter PROJECTION_ADAPTER = new TaskAdapter(TaskType.TASK, false);
 
     protected TaskManager taskManager;
     protected final Gson gson;
+    protected final ResponseCompression compression;
+    private final String entityTagPrefix;
 
     public BaseHttpHandler(TaskManager taskManager, Gson gson) {
+        this(taskManager, gson, ResponseCompression.DISABLED);
+    }
+
+    public BaseHttpHandler(TaskManager taskManager, Gson gson, ResponseCompression compression) {
         this.taskManager = taskManager;
         this.gson = gson;
+        this.compression = compression;
+        this.entityTagPrefix = Long.toString(ThreadLocalRandom.current().nextLong() & Long.MAX_VALUE, 36);
     }
 
+    /**
+     * Регистрирует обработчики запросов к ресурсу с путём {@code path}.
+     */
+    public abstract void addRoutes(Router router, String path);
+
     protected void sendText(HttpExchange exchange, int statusCode, String response) throws IOException {
         exchange.getResponseHeaders().set("Content-Type", "application/json");
-        exchange.sendResponseHeaders(statusCode, 0);
-        exchange.getResponseBody().write(response.getBytes(StandardCharsets.UTF_8));
+
+        try (ResponseBodyStream body = new ResponseBodyStream(exchange, statusCode, compression)) {
+            body.write(response.getBytes(StandardCharsets.UTF_8));
+            body.finish();
+        }
     }
 
     protected void sendText(HttpExchange exchange, int statusCode) throws IOException {
-        exchange.sendResponseHeaders(statusCode, 0);
+        exchange.sendResponseHeaders(statusCode, -1);
+    }
+
+    /**
+     * Сериализует объект прямо в тело ответа через {@link JsonWriter}, без промежуточной строки.
+     */
+    protected void sendJson(HttpExchange exchange, int statusCode, Object value) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+
+        try (ResponseBodyStream body = new ResponseBodyStream(exchange, statusCode, compression)) {
+            JsonWriter writer = gson.newJsonWriter(new OutputStreamWriter(body, StandardCharsets.UTF_8));
+            if (value == null) {
+                gson.toJson(JsonNull.INSTANCE, writer);
+            } else {
+                gson.toJson(value, value.getClass(), writer);
+            }
+            writer.flush();
+            body.finish();
+        }
+    }
+
+    /**
+     * Добавляет к ответу {@code ETag} для указанной версии ресурса и, если клиент
+     * прислал её же в {@code If-None-Match}, сразу отвечает 304 без тела.
+     * Версию нужно получить до чтения данных, чтобы устаревшие данные
+     * не попали в кэш клиента под новой версией.
+     * <p>
+     * В тег входит случайный префикс обработчика, поэтому после перезапуска
+     * сервера счётчики версий, начатые заново, не совпадут со старыми тегами.
+     *
+     * @return {@code true}, если ответ 304 уже отправлен
+     */
+    protected boolean sendNotModifiedIfMatches(HttpExchange exchange, String version) throws IOException {
+        String entityTag = "\"" + entityTagPrefix + "-" + version + "\"";
+        exchange.getResponseHeaders().set("ETag", entityTag);
+
+        List<String> ifNoneMatchHeaders = exchange.getRequestHeaders().get("If-None-Match");
+        if (ifNoneMatchHeaders == null) {
+            return false;
+        }
+
+        for (String ifNoneMatch : ifNoneMatchHeaders) {
+            for (String tag : ifNoneMatch.split(",")) {
+                String trimmedTag = tag.trim();
+                if (trimmedTag.startsWith("W/")) {
+                    trimmedTag = trimmedTag.substring(2);
+                }
+                if (trimmedTag.equals(entityTag) || trimmedTag.equals("*")) {
+                    exchange.sendResponseHeaders(HTTP_NOT_MODIFIED, -1);
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Отправляет список задач с учётом параметров запроса. Без параметров выборки
+     * список берётся целиком из {@code allTasks}, иначе страница запрашивается у менеджера
+     * через {@code findTasks}. Если после страницы есть ещё задачи, курсор следующей
+     * страницы передаётся в заголовке {@code X-Next-Cursor}.
+     *
+     * @param version версия списка для {@code ETag}, полученная до чтения данных
+     */
+    protected void sendTaskList(HttpExchange exchange, String version,
+                                Supplier<? extends List<? extends Task>> allTasks,
+                                Function<TaskQuery, ? extends List<? extends Task>> findTasks) throws IOException {
+        Map<String, String> parameters = parseQueryParameters(exchange);
+        TaskQuery query;
+        Set<String> fields;
+        try {
+            query = parseTaskQuery(parameters);
+            fields = parseFields(parameters);
+        } catch (IllegalArgumentException exception) {
+            sendBadRequest(exchange, exception.getMessage());
+            return;
+        }
+
+        if (sendNotModifiedIfMatches(exchange, version)) {
+            return;
+        }
+
+        if (query == null) {
+            sendTasks(exchange, allTasks.get(), fields);
+            return;
+        }
+
+        int limit = query.getLimit();
+        List<? extends Task> tasks = findTasks.apply(limit == TaskQuery.UNLIMITED ? query : query.withLimit(limit + 1));
+        if (tasks.size() > limit) {
+            tasks = new ArrayList<>(tasks.subList(0, limit));
+            exchange.getResponseHeaders().set("X-Next-Cursor", formatCursor(tasks.get(limit - 1)));
+        }
+        sendTasks(exchange, tasks, fields);
+    }
+
+    /**
+     * Отправляет задачи, оставляя в каждой только поля из {@code fields}
+     * в указанном порядке. Если {@code fields} равен {@code null}, задачи отправляются целиком.
+     */
+    protected void sendTasks(HttpExchange exchange, List<? extends Task> tasks, Set<String> fields) throws IOException {
+        if (fields == null) {
+            sendJson(exchange, HTTP_OK, tasks);
+            return;
+        }
+
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+
+        try (ResponseBodyStream body = new ResponseBodyStream(exchange, HTTP_OK, compression)) {
+            JsonWriter writer = gson.newJsonWriter(new OutputStreamWriter(body, StandardCharsets.UTF_8));
+            writer.beginArray();
+            for (Task task : tasks) {
+                PROJECTION_ADAPTER.write(writer, task, fields);
+            }
+            writer.endArray();
+            writer.flush();
+            body.finish();
+        }
+    }
+
+    protected Map<String, String> parseQueryParameters(HttpExchange exchange) {
+        Map<String, String> parameters = new HashMap<>();
+        String query = exchange.getRequestURI().getRawQuery();
+        if (query == null || query.isEmpty()) {
+            return parameters;
+        }
+
+        for (String parameter : query.split("&")) {
+            if (parameter.isEmpty()) {
+                continue;
+            }
+            int separator = parameter.indexOf('=');
+            String name = separator < 0 ? parameter : parameter.substring(0, separator);
+            String value = separator < 0 ? "" : parameter.substring(separator + 1);
+            parameters.put(URLDecoder.decode(name, StandardCharsets.UTF_8),
+                    URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+        return parameters;
+    }
+
+    /**
+     * Разбирает параметры выборки: {@code status}, {@code type}, {@code from} и {@code to}
+     * (время начала в формате ISO), {@code limit} и {@code cursor}.
+     *
+     * @return {@code null}, если параметров выборки нет
+     * @throws IllegalArgumentException если значение параметра некорректно
+     */
+    protected TaskQuery parseTaskQuery(Map<String, String> parameters) {
+        if (!parameters.containsKey("status") && !parameters.containsKey("type")
+                && !parameters.containsKey("from") && !parameters.containsKey("to")
+                && !parameters.containsKey("limit") && !parameters.containsKey("cursor")) {
+            return null;
+        }
+
+        TaskQuery query = new TaskQuery();
+        if (parameters.containsKey("status")) {
+            query = query.withStatus(parseEnum(Status.class, "status", parameters.get("status")));
+        }
+        if (parameters.containsKey("type")) {
+            query = query.withType(parseEnum(TaskType.class, "type", parameters.get("type")));
+        }
+        if (parameters.containsKey("from") || parameters.containsKey("to")) {
+            query = query.withTimeWindow(parseDateTime("from", parameters.get("from")),
+                    parseDateTime("to", parameters.get("to")));
+        }
+        if (parameters.containsKey("limit")) {
+            query = query.withLimit(parseInt("limit", parameters.get("limit")));
+        }
+        if (parameters.containsKey("cursor")) {
+            query = parseCursor(query, parameters.get("cursor"));
+        }
+        return query;
+    }
+
+    /**
+     * Разбирает параметр {@code fields} — список полей через запятую.
+     *
+     * @return {@code null}, если параметр не передан
+     */
+    protected Set<String> parseFields(Map<String, String> parameters) {
+        String fields = parameters.get("fields");
+        if (fields == null) {
+            return null;
+        }
+
+        Set<String> result = new LinkedHashSet<>();
+        for (String field : fields.split(",")) {
+            if (!field.isBlank()) {
+                result.add(field.trim());
+            }
+        }
+        if (result.isEmpty()) {
+            throw new IllegalArgumentException("Не указаны поля в параметре fields");
+        }
+        return result;
+    }
+
+    /**
+     * Курсор списков, упорядоченных по id, — id последней задачи страницы.
+     */
+    protected String formatCursor(Task task) {
+        return String.valueOf(task.getId());
+    }
+
+    protected TaskQuery parseCursor(TaskQuery query, String cursor) {
+        return query.withCursor(parseInt("cursor", cursor));
+    }
+
+    protected static int parseInt(String name, String value) {
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException exception) {
+            throw new IllegalArgumentException("Параметр " + name + " должен быть целым числом: " + value);
+        }
+    }
+
+    protected static LocalDateTime parseDateTime(String name, String value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return LocalDateTime.parse(value);
+        } catch (DateTimeParseException exception) {
+            throw new IllegalArgumentException("Параметр " + name + " должен быть датой и временем: " + value);
+        }
+    }
+
+    private static <E extends Enum<E>> E parseEnum(Class<E> enumClass, String name, String value) {
+        try {
+            return Enum.valueOf(enumClass, value.toUpperCase());
+        } catch (IllegalArgumentException exception) {
+            throw new IllegalArgumentException("Неизвестное значение параметра " + name + ": " + value);
+        }
     }
 
     protected void sendNotFound(HttpExchange exchange, String response) throws IOException {
-        exchange.sendResponseHeaders(HTTP_NOT_FOUND, 0);
-        exchange.getResponseBody().write(response.getBytes(StandardCharsets.UTF_8));
+        ResponseBodyStream.send(exchange, HTTP_NOT_FOUND, response);
     }
 
     protected void sendBadRequest(HttpExchange exchange, String response) throws IOException {
-        exchange.sendResponseHeaders(HTTP_BAD_REQUEST, 0);
-        exchange.getResponseBody().write(response.getBytes(StandardCharsets.UTF_8));
+        ResponseBodyStream.send(exchange, HTTP_BAD_REQUEST, response);
     }
 }
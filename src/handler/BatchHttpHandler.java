@@ -0,0 +1,124 @@
+package handler;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import com.sun.net.httpserver.HttpExchange;
+import exception.ManagerIOException;
+import exception.NotFoundException;
+import model.EpicTask;
+import model.SubTask;
+import model.Task;
+import model.TaskType;
+import service.BatchResult;
+import service.TaskManager;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Сохраняет пакет задач одним запросом {@code POST /batch}. Тело запроса — массив
+ * элементов {@code {"type": "SUB_TASK", "task": {...}}}, задачи с id {@code 0}
+ * создаются, остальные обновляются. В ответе для каждого элемента в том же порядке
+ * возвращается код, как у отдельного запроса, и сохранённая задача или текст ошибки.
+ */
+public class BatchHttpHandler extends BaseHttpHandler {
+
+    public BatchHttpHandler(TaskManager taskManager, Gson gson) {
+        super(taskManager, gson);
+    }
+
+    public BatchHttpHandler(TaskManager taskManager, Gson gson, ResponseCompression compression) {
+        super(taskManager, gson, compression);
+    }
+
+    @Override
+    public void addRoutes(Router router, String path) {
+        router.add(POST, path, this::handlePostMethod);
+    }
+
+    private void handlePostMethod(HttpExchange exchange) throws IOException {
+        JsonElement requestBody;
+        try {
+            requestBody = JsonParser.parseReader(new InputStreamReader(exchange.getRequestBody(), StandardCharsets.UTF_8));
+        } catch (JsonParseException exception) {
+            sendBadRequest(exchange, "Неккоректный JSON");
+            return;
+        }
+
+        if (!requestBody.isJsonArray()) {
+            sendBadRequest(exchange, "Тело запроса должно быть массивом задач");
+            return;
+        }
+
+        JsonArray items = requestBody.getAsJsonArray();
+        JsonObject[] itemResults = new JsonObject[items.size()];
+        List<Task> tasks = new ArrayList<>();
+        List<Integer> taskPositions = new ArrayList<>();
+
+        for (int i = 0; i < items.size(); i++) {
+            try {
+                tasks.add(parseItem(items.get(i)));
+                taskPositions.add(i);
+            } catch (JsonParseException | IllegalArgumentException | IllegalStateException exception) {
+                itemResults[i] = errorResult(HTTP_BAD_REQUEST, "Неккоректный элемент пакета: " + exception.getMessage());
+            }
+        }
+
+        List<BatchResult> results = taskManager.applyBatch(tasks);
+        for (int i = 0; i < results.size(); i++) {
+            BatchResult result = results.get(i);
+            JsonObject itemResult;
+            if (result.isSuccess()) {
+                itemResult = new JsonObject();
+                itemResult.addProperty("status", HTTP_CREATED);
+                itemResult.add("task", gson.toJsonTree(result.getTask()));
+            } else if (result.getError() instanceof NotFoundException) {
+                itemResult = errorResult(HTTP_NOT_FOUND, result.getError().getMessage());
+            } else if (result.getError() instanceof ManagerIOException) {
+                itemResult = errorResult(HTTP_BAD_GATEWAY, result.getError().getMessage());
+            } else {
+                itemResult = errorResult(HTTP_NOT_ACCEPTABLE, result.getError().getMessage());
+            }
+            itemResults[taskPositions.get(i)] = itemResult;
+        }
+
+        JsonArray response = new JsonArray(itemResults.length);
+        for (JsonObject itemResult : itemResults) {
+            response.add(itemResult);
+        }
+        sendJson(exchange, HTTP_OK, response);
+    }
+
+    private Task parseItem(JsonElement item) {
+        JsonObject itemObject = item.getAsJsonObject();
+        JsonElement type = itemObject.get("type");
+        JsonElement task = itemObject.get("task");
+        if (type == null || task == null || !task.isJsonObject()) {
+            throw new IllegalArgumentException("нужны поля type и task");
+        }
+
+        switch (TaskType.valueOf(type.getAsString().toUpperCase())) {
+            case EPIC_TASK:
+                return gson.fromJson(task, EpicTask.class);
+            case SUB_TASK:
+                return gson.fromJson(task, SubTask.class);
+            case TASK:
+            default:
+                return gson.fromJson(task, Task.class);
+        }
+    }
+
+    private static JsonObject errorResult(int statusCode, String message) {
+        JsonObject result = new JsonObject();
+        result.addProperty("status", statusCode);
+        result.addProperty("error", message);
+        return result;
+    }
+}
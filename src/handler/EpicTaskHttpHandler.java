@@ -5,6 +5,7 @@ import com.google.gson.JsonSyntaxException;
 import com.sun.net.httpserver.HttpExchange;
 import model.EpicTask;
 import model.SubTask;
+import model.TaskType;
 import service.TaskManager;
 
 import java.io.IOException;
@@ -17,47 +18,26 @@ public class EpicTaskHttpHandler extends TaskHttpHandler {
         super(taskManager, gson);
     }
 
-    @Override
-    protected void handleGetMethod(HttpExchange exchange) throws IOException {
-        String[] pathSplit = exchange.getRequestURI().getPath().split("/");
-
-        if (pathSplit.length == 2) {
-            getAll(exchange);
-        } else if (pathSplit.length == 3) {
-            int id = 0;
-            try {
-                id = Integer.parseInt(pathSplit[2]);
-            } catch (NumberFormatException exception) {
-                sendBadRequest(exchange, "ID задачи неправильного типа");
-                return;
-            }
-
-            getById(exchange, id);
-        } else if (pathSplit.length == 4 && pathSplit[3].equalsIgnoreCase("subtasks")) {
-            int id = 0;
-            try {
-                id = Integer.parseInt(pathSplit[2]);
-            } catch (NumberFormatException exception) {
-                sendBadRequest(exchange, "ID задачи неправильного типа");
-                return;
-            }
+    public EpicTaskHttpHandler(TaskManager taskManager, Gson gson, ResponseCompression compression) {
+        super(taskManager, gson, compression);
+    }
 
-            getSubTaskByEpicTaskId(exchange, id);
-        } else {
-            sendNotFound(exchange, "Не найден ресурс");
-        }
+    @Override
+    public void addRoutes(Router router, String path) {
+        super.addRoutes(router, path);
+        router.add(GET, path + "/" + Router.ID + "/subtasks", this::getSubTaskByEpicTaskId);
     }
 
     @Override
     protected void getAll(HttpExchange exchange) throws IOException {
-        List<EpicTask> epicTasks = taskManager.getAllEpicTasks();
-        sendText(exchange, HTTP_OK, gson.toJson(epicTasks));
+        String version = String.valueOf(taskManager.getVersion(TaskType.EPIC_TASK));
+        sendTaskList(exchange, version, taskManager::getAllEpicTasks, taskManager::findEpicTasks);
     }
 
     @Override
     protected void getById(HttpExchange exchange, int id) throws IOException {
         EpicTask epicTask = taskManager.getEpicTask(id);
-        sendText(exchange, HTTP_OK, gson.toJson(epicTask));
+        sendJson(exchange, HTTP_OK, epicTask);
     }
 
     @Override
@@ -79,10 +59,10 @@ public class EpicTaskHttpHandler extends TaskHttpHandler {
 
         if (epicTask.getId() == 0) {
             EpicTask createdEpicTask = taskManager.createEpicTask(epicTask);
-            sendText(exchange, HTTP_CREATED, gson.toJson(createdEpicTask));
+            sendJson(exchange, HTTP_CREATED, createdEpicTask);
         } else {
             EpicTask updatedEpicTask = taskManager.updateEpicTask(epicTask);
-            sendText(exchange, HTTP_CREATED, gson.toJson(updatedEpicTask));
+            sendJson(exchange, HTTP_CREATED, updatedEpicTask);
         }
     }
 
@@ -94,6 +74,6 @@ public class EpicTaskHttpHandler extends TaskHttpHandler {
 
     private void getSubTaskByEpicTaskId(HttpExchange exchange, int id) throws IOException {
         List<SubTask> subTasks = taskManager.getSubTasksFromEpicTaskId(id);
-        sendText(exchange, HTTP_OK, gson.toJson(subTasks));
+        sendJson(exchange, HTTP_OK, subTasks);
     }
 }
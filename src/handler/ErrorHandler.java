@@ -7,7 +7,6 @@ import exception.NotFoundException;
 import exception.ValidationException;
 
 import java.io.IOException;
-import java.nio.charset.StandardCharsets;
 
 import static handler.BaseHttpHandler.HTTP_BAD_GATEWAY;
 import static handler.BaseHttpHandler.HTTP_INTERNAL_SERVER_ERROR;
@@ -50,22 +49,18 @@ public class ErrorHandler {
     }
 
     private void sendBadGateWay(HttpExchange exchange, String response) throws IOException {
-        exchange.sendResponseHeaders(HTTP_BAD_GATEWAY, 0);
-        exchange.getResponseBody().write(response.getBytes(StandardCharsets.UTF_8));
+        ResponseBodyStream.send(exchange, HTTP_BAD_GATEWAY, response);
     }
 
     private void sendInternalServerError(HttpExchange exchange, String response) throws IOException {
-        exchange.sendResponseHeaders(HTTP_INTERNAL_SERVER_ERROR, 0);
-        exchange.getResponseBody().write(response.getBytes(StandardCharsets.UTF_8));
+        ResponseBodyStream.send(exchange, HTTP_INTERNAL_SERVER_ERROR, response);
     }
 
     protected void sendNotFound(HttpExchange exchange, String response) throws IOException {
-        exchange.sendResponseHeaders(HTTP_NOT_FOUND, 0);
-        exchange.getResponseBody().write(response.getBytes(StandardCharsets.UTF_8));
+        ResponseBodyStream.send(exchange, HTTP_NOT_FOUND, response);
     }
 
     private void sendHasInteractions(HttpExchange exchange, String response) throws IOException {
-        exchange.sendResponseHeaders(HTTP_NOT_ACCEPTABLE, 0);
-        exchange.getResponseBody().write(response.getBytes(StandardCharsets.UTF_8));
+        ResponseBodyStream.send(exchange, HTTP_NOT_ACCEPTABLE, response);
     }
 }
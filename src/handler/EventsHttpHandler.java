@@ -0,0 +1,193 @@
+package handler;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import service.TaskEvent;
+import service.TaskListener;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static handler.BaseHttpHandler.GET;
+import static handler.BaseHttpHandler.HTTP_METHOD_NOT_ALLOWED;
+import static handler.BaseHttpHandler.HTTP_OK;
+
+/**
+ * Поток событий об изменении задач {@code GET /events} в формате Server-Sent Events.
+ * <p>
+ * Каждое событие сериализуется один раз и кладётся в ограниченные очереди подписчиков,
+ * поэтому менеджер задач не ждёт медленных клиентов. Клиент, у которого очередь
+ * переполнилась, отключается и должен переподключиться и заново получить списки.
+ * Каждый подписчик обслуживается своим виртуальным потоком, так что долгое соединение
+ * не занимает поток сервера. Пропущенные события не хранятся и при переподключении
+ * не повторяются. Если событий долго нет, отправляется комментарий, чтобы
+ * обнаружить закрытые соединения.
+ */
+public class EventsHttpHandler implements HttpHandler, TaskListener, AutoCloseable {
+    private static final long HEARTBEAT_SECONDS = 15;
+    private static final int MAX_FRAMES_PER_FLUSH = 64;
+    private static final byte[] HEARTBEAT = ":\n\n".getBytes(StandardCharsets.UTF_8);
+    private static final Frame DISCONNECT = new Frame(new byte[0]);
+
+    private final Gson gson;
+    private final int bufferSize;
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final AtomicLong lastEventId = new AtomicLong();
+    private volatile boolean closed;
+
+    public EventsHttpHandler(Gson gson, int bufferSize) {
+        this.gson = gson;
+        this.bufferSize = bufferSize;
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        if (!exchange.getRequestMethod().equals(GET)) {
+            try (exchange) {
+                exchange.getResponseHeaders().set("Allow", GET);
+                ResponseBodyStream.send(exchange, HTTP_METHOD_NOT_ALLOWED,
+                        "Метод " + exchange.getRequestMethod() + " не используется");
+            }
+            return;
+        }
+
+        // подписываемся до отправки заголовков, чтобы клиент не пропустил события сразу после ответа
+        Subscriber subscriber = new Subscriber(exchange, new ArrayBlockingQueue<>(bufferSize));
+        subscribers.add(subscriber);
+        if (closed) {
+            subscriber.disconnect();
+        }
+
+        try {
+            exchange.getResponseHeaders().set("Content-Type", "text/event-stream; charset=utf-8");
+            exchange.getResponseHeaders().set("Cache-Control", "no-cache");
+            exchange.sendResponseHeaders(HTTP_OK, 0);
+            exchange.getResponseBody().write(HEARTBEAT);
+            exchange.getResponseBody().flush();
+        } catch (IOException exception) {
+            subscribers.remove(subscriber);
+            exchange.close();
+            throw exception;
+        }
+
+        Thread.ofVirtual().name("events-subscriber").start(() -> stream(subscriber));
+    }
+
+    @Override
+    public void onTaskEvent(TaskEvent event) {
+        if (subscribers.isEmpty()) {
+            return;
+        }
+
+        Frame frame = toFrame(event);
+        for (Subscriber subscriber : subscribers) {
+            if (!subscriber.queue.offer(frame)) {
+                subscriber.disconnect();
+            }
+        }
+    }
+
+    public int getSubscribersCount() {
+        return subscribers.size();
+    }
+
+    /**
+     * Отключает всех подписчиков. Новые подписчики отключаются сразу после подключения.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        for (Subscriber subscriber : subscribers) {
+            subscriber.disconnect();
+        }
+    }
+
+    private Frame toFrame(TaskEvent event) {
+        JsonObject data = new JsonObject();
+        data.addProperty("type", event.getType().name());
+        data.addProperty("taskType", event.getTaskType().name());
+        data.addProperty("id", event.getId());
+        if (event.getTask() != null) {
+            data.add("task", gson.toJsonTree(event.getTask()));
+        }
+
+        String frame = "id: " + lastEventId.incrementAndGet() + "\n"
+                + "event: " + event.getType().name().toLowerCase() + "\n"
+                + "data: " + gson.toJson(data) + "\n\n";
+        return new Frame(frame.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void stream(Subscriber subscriber) {
+        try (HttpExchange exchange = subscriber.exchange) {
+            OutputStream body = exchange.getResponseBody();
+            while (!subscriber.disconnected) {
+                Frame frame = subscriber.queue.poll(HEARTBEAT_SECONDS, TimeUnit.SECONDS);
+                if (frame == null) {
+                    body.write(HEARTBEAT);
+                    body.flush();
+                    continue;
+                }
+
+                int framesCount = 0;
+                while (frame != null && frame != DISCONNECT) {
+                    body.write(frame.bytes);
+                    if (++framesCount == MAX_FRAMES_PER_FLUSH) {
+                        break;
+                    }
+                    frame = subscriber.queue.poll();
+                }
+                body.flush();
+                if (frame == DISCONNECT) {
+                    break;
+                }
+            }
+        } catch (IOException exception) {
+            // клиент закрыл соединение
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        } finally {
+            subscribers.remove(subscriber);
+        }
+    }
+
+    private static class Subscriber {
+        private final HttpExchange exchange;
+        private final BlockingQueue<Frame> queue;
+        private volatile boolean disconnected;
+
+        private Subscriber(HttpExchange exchange, BlockingQueue<Frame> queue) {
+            this.exchange = exchange;
+            this.queue = queue;
+        }
+
+        /**
+         * Освобождает очередь и будит поток подписчика, чтобы он закрыл соединение.
+         */
+        private void disconnect() {
+            disconnected = true;
+            queue.clear();
+            queue.offer(DISCONNECT);
+        }
+    }
+
+    /**
+     * Закодированное событие. Кадр {@link #DISCONNECT} — отдельный объект, который
+     * не совпадает ни с одним событием и сообщает потоку подписчика о закрытии.
+     */
+    private static class Frame {
+        private final byte[] bytes;
+
+        private Frame(byte[] bytes) {
+            this.bytes = bytes;
+        }
+    }
+}
@@ -13,18 +13,17 @@ public class HistoryHttpHandler extends BaseHttpHandler {
         super(taskManager, gson);
     }
 
+    public HistoryHttpHandler(TaskManager taskManager, Gson gson, ResponseCompression compression) {
+        super(taskManager, gson, compression);
+    }
+
     @Override
-    public void handle(HttpExchange exchange) throws IOException {
-        String method = exchange.getRequestMethod();
-        if (method.equals(GET)) {
-            handleGetMethod(exchange);
-        } else {
-            sendBadRequest(exchange, "Метод " + method + " не используется");
-        }
+    public void addRoutes(Router router, String path) {
+        router.add(GET, path, this::handleGetMethod);
     }
 
     private void handleGetMethod(HttpExchange exchange) throws IOException {
         List<Task> history = taskManager.getHistory();
-        sendText(exchange, HTTP_OK, gson.toJson(history));
+        sendJson(exchange, HTTP_OK, history);
     }
 }
@@ -0,0 +1,63 @@
+package handler;
+
+import com.google.gson.Gson;
+import com.sun.net.httpserver.HttpExchange;
+import metrics.MetricsSource;
+import metrics.MetricsWriter;
+import model.TaskType;
+import service.TaskManager;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Метрики сервера {@code GET /metrics} в текстовом формате Prometheus: счётчики
+ * маршрутов, размеры коллекций менеджера задач и, если менеджер их ведёт,
+ * длительности операций хранилища.
+ */
+public class MetricsHttpHandler extends BaseHttpHandler {
+    private final MetricsSource routerMetrics;
+
+    public MetricsHttpHandler(TaskManager taskManager, Gson gson, MetricsSource routerMetrics) {
+        super(taskManager, gson);
+        this.routerMetrics = routerMetrics;
+    }
+
+    public MetricsHttpHandler(TaskManager taskManager, Gson gson, ResponseCompression compression,
+                              MetricsSource routerMetrics) {
+        super(taskManager, gson, compression);
+        this.routerMetrics = routerMetrics;
+    }
+
+    @Override
+    public void addRoutes(Router router, String path) {
+        router.add(GET, path, this::handleGetMethod);
+    }
+
+    private void handleGetMethod(HttpExchange exchange) throws IOException {
+        MetricsWriter writer = new MetricsWriter();
+        routerMetrics.writeMetrics(writer);
+        writeTaskManagerMetrics(writer);
+        if (taskManager instanceof MetricsSource) {
+            ((MetricsSource) taskManager).writeMetrics(writer);
+        }
+
+        exchange.getResponseHeaders().set("Content-Type", MetricsWriter.CONTENT_TYPE);
+        try (ResponseBodyStream body = new ResponseBodyStream(exchange, HTTP_OK, compression)) {
+            body.write(writer.toString().getBytes(StandardCharsets.UTF_8));
+            body.finish();
+        }
+    }
+
+    private void writeTaskManagerMetrics(MetricsWriter writer) {
+        writer.family("kanban_tasks", "gauge", "Количество задач по типам");
+        for (TaskType type : TaskType.values()) {
+            writer.sample("kanban_tasks", "type=\"" + type.name().toLowerCase() + "\"",
+                    taskManager.getTasksCount(type));
+        }
+        writer.family("kanban_prioritized_tasks", "gauge", "Количество задач в списке по приоритету");
+        writer.sample("kanban_prioritized_tasks", "", taskManager.getPrioritizedTasksCount());
+        writer.family("kanban_history_size", "gauge", "Количество задач в истории просмотров");
+        writer.sample("kanban_history_size", "", taskManager.getHistorySize());
+    }
+}
@@ -3,10 +3,11 @@ package handler;
 import com.google.gson.Gson;
 import com.sun.net.httpserver.HttpExchange;
 import model.Task;
+import model.TaskType;
 import service.TaskManager;
+import service.TaskQuery;
 
 import java.io.IOException;
-import java.util.List;
 
 public class PrioritizedHttpHandler extends BaseHttpHandler {
 
@@ -14,18 +15,36 @@ public class PrioritizedHttpHandler extends BaseHttpHandler {
         super(taskManager, gson);
     }
 
+    public PrioritizedHttpHandler(TaskManager taskManager, Gson gson, ResponseCompression compression) {
+        super(taskManager, gson, compression);
+    }
+
     @Override
-    public void handle(HttpExchange exchange) throws IOException {
-        String method = exchange.getRequestMethod();
-        if (method.equals(GET)) {
-            handleGetMethod(exchange);
-        } else {
-            sendBadRequest(exchange, "Метод " + method + " не используется");
-        }
+    public void addRoutes(Router router, String path) {
+        router.add(GET, path, this::handleGetMethod);
     }
 
     private void handleGetMethod(HttpExchange exchange) throws IOException {
-        List<Task> prioritizedTasks = taskManager.getPrioritizedTasks();
-        sendText(exchange, HTTP_OK, gson.toJson(prioritizedTasks));
+        String version = taskManager.getVersion(TaskType.TASK) + "." + taskManager.getVersion(TaskType.SUB_TASK);
+        sendTaskList(exchange, version, taskManager::getPrioritizedTasks, taskManager::findPrioritizedTasks);
+    }
+
+    /**
+     * Список по приоритету упорядочен по времени начала, поэтому курсор —
+     * время начала и id последней задачи страницы: {@code 2024-01-01T10:00_15}.
+     */
+    @Override
+    protected String formatCursor(Task task) {
+        return task.getStartTime() + "_" + task.getId();
+    }
+
+    @Override
+    protected TaskQuery parseCursor(TaskQuery query, String cursor) {
+        int separator = cursor.lastIndexOf('_');
+        if (separator < 0) {
+            throw new IllegalArgumentException("Некорректный курсор: " + cursor);
+        }
+        return query.withCursor(parseDateTime("cursor", cursor.substring(0, separator)),
+                parseInt("cursor", cursor.substring(separator + 1)));
     }
 }
@@ -0,0 +1,167 @@
+package handler;
+
+import com.sun.net.httpserver.HttpExchange;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Тело ответа, которое копится в буфере из общего пула.
+ * <p>
+ * Если всё тело поместилось в буфер, {@link #finish()} отправляет заголовки с точным
+ * {@code Content-Length}. Когда буфер переполняется, заголовки отправляются с chunked-кодированием,
+ * и дальше тело передаётся в сокет порциями размером с буфер, так что память на ответ
+ * ограничена размером буфера. Пока заголовки не отправлены, ответ можно бросить, не вызывая
+ * {@link #finish()}, — тогда обработчик ошибок сможет отправить свой ответ.
+ * <p>
+ * Если клиент принимает сжатие, а тело не меньше порога {@link ResponseCompression},
+ * тело сжимается gzip или deflate: небольшое — целиком с точным {@code Content-Length}
+ * сжатых данных, большое — потоком.
+ */
+class ResponseBodyStream extends OutputStream {
+    static final int BUFFER_SIZE = 64 * 1024;
+    private static final int POOL_SIZE = 64;
+    private static final BlockingQueue<byte[]> BUFFERS = new ArrayBlockingQueue<>(POOL_SIZE);
+
+    private final HttpExchange exchange;
+    private final int statusCode;
+    private final ResponseCompression compression;
+    private final String encoding;
+    private byte[] buffer;
+    private int size;
+    private OutputStream body;
+
+    ResponseBodyStream(HttpExchange exchange, int statusCode) {
+        this(exchange, statusCode, ResponseCompression.DISABLED);
+    }
+
+    ResponseBodyStream(HttpExchange exchange, int statusCode, ResponseCompression compression) {
+        this.exchange = exchange;
+        this.statusCode = statusCode;
+        this.compression = compression;
+        this.encoding = compression.selectEncoding(exchange.getRequestHeaders());
+        if (compression.isEnabled()) {
+            exchange.getResponseHeaders().set("Vary", "Accept-Encoding");
+        }
+        byte[] pooledBuffer = BUFFERS.poll();
+        this.buffer = pooledBuffer != null ? pooledBuffer : new byte[BUFFER_SIZE];
+    }
+
+    /**
+     * Отправляет строку целиком с точным {@code Content-Length}.
+     */
+    static void send(HttpExchange exchange, int statusCode, String response) throws IOException {
+        try (ResponseBodyStream body = new ResponseBodyStream(exchange, statusCode)) {
+            body.write(response.getBytes(StandardCharsets.UTF_8));
+            body.finish();
+        }
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        if (size == buffer.length) {
+            drain();
+        }
+        buffer[size++] = (byte) b;
+    }
+
+    @Override
+    public void write(byte[] bytes, int offset, int length) throws IOException {
+        while (length > 0) {
+            if (size == buffer.length) {
+                drain();
+            }
+            int chunk = Math.min(length, buffer.length - size);
+            System.arraycopy(bytes, offset, buffer, size, chunk);
+            size += chunk;
+            offset += chunk;
+            length -= chunk;
+        }
+    }
+
+    /**
+     * Завершает ответ: отправляет заголовки, если они ещё не отправлены, и остаток тела.
+     */
+    void finish() throws IOException {
+        if (body == null) {
+            if (encoding != null && size > 0 && size >= compression.getThreshold()) {
+                ByteArrayOutputStream compressed = new ByteArrayOutputStream(size / 2);
+                try (OutputStream compressor = compress(compressed)) {
+                    compressor.write(buffer, 0, size);
+                }
+                if (compressed.size() < size) {
+                    exchange.getResponseHeaders().set("Content-Encoding", encoding);
+                    exchange.sendResponseHeaders(statusCode, compressed.size());
+                    compressed.writeTo(exchange.getResponseBody());
+                    size = 0;
+                    exchange.getResponseBody().flush();
+                    return;
+                }
+            }
+
+            exchange.sendResponseHeaders(statusCode, size == 0 ? -1 : size);
+            if (size > 0) {
+                exchange.getResponseBody().write(buffer, 0, size);
+            }
+        } else {
+            drain();
+            if (body instanceof DeflaterOutputStream) {
+                body.close();
+                size = 0;
+                return;
+            }
+        }
+        size = 0;
+        exchange.getResponseBody().flush();
+    }
+
+    /**
+     * Возвращает буфер в пул. Сам обмен закрывает сервер.
+     */
+    @Override
+    public void close() {
+        if (buffer != null) {
+            BUFFERS.offer(buffer);
+            buffer = null;
+        }
+    }
+
+    private void drain() throws IOException {
+        if (body == null) {
+            if (encoding != null) {
+                exchange.getResponseHeaders().set("Content-Encoding", encoding);
+                exchange.sendResponseHeaders(statusCode, 0);
+                body = compress(exchange.getResponseBody());
+            } else {
+                exchange.sendResponseHeaders(statusCode, 0);
+                body = exchange.getResponseBody();
+            }
+        }
+        body.write(buffer, 0, size);
+        size = 0;
+    }
+
+    private OutputStream compress(OutputStream out) throws IOException {
+        if (ResponseCompression.GZIP.equals(encoding)) {
+            return new GZIPOutputStream(out, BUFFER_SIZE / 8) {
+                {
+                    def.setLevel(compression.getLevel());
+                }
+            };
+        }
+        return new DeflaterOutputStream(out, new Deflater(compression.getLevel()), BUFFER_SIZE / 8) {
+            @Override
+            public void close() throws IOException {
+                super.close();
+                def.end();
+            }
+        };
+    }
+}
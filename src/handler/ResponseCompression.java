@@ -0,0 +1,99 @@
+package handler;
+
+import com.sun.net.httpserver.Headers;
+
+import java.util.List;
+import java.util.zip.Deflater;
+
+/**
+ * Настройки сжатия ответов и выбор кодирования по заголовку {@code Accept-Encoding}.
+ * Сжимаются только ответы не меньше {@link #getThreshold()} байт.
+ */
+public class ResponseCompression {
+    public static final String GZIP = "gzip";
+    public static final String DEFLATE = "deflate";
+    public static final int DEFAULT_THRESHOLD = 1024;
+    public static final ResponseCompression DISABLED = new ResponseCompression(Integer.MAX_VALUE, Deflater.NO_COMPRESSION);
+
+    private final int threshold;
+    private final int level;
+
+    /**
+     * @param threshold минимальный размер тела ответа в байтах, начиная с которого оно сжимается
+     * @param level     уровень сжатия {@link Deflater}; {@link Deflater#NO_COMPRESSION} отключает сжатие
+     */
+    public ResponseCompression(int threshold, int level) {
+        if (threshold < 0) {
+            throw new IllegalArgumentException("Порог сжатия не может быть отрицательным: " + threshold);
+        }
+        if (level < Deflater.DEFAULT_COMPRESSION || level > Deflater.BEST_COMPRESSION) {
+            throw new IllegalArgumentException("Некорректный уровень сжатия: " + level);
+        }
+        this.threshold = threshold;
+        this.level = level;
+    }
+
+    public int getThreshold() {
+        return threshold;
+    }
+
+    public int getLevel() {
+        return level;
+    }
+
+    public boolean isEnabled() {
+        return level != Deflater.NO_COMPRESSION;
+    }
+
+    /**
+     * Выбирает кодирование, которое принимает клиент: {@link #GZIP}, затем {@link #DEFLATE}.
+     *
+     * @return название кодирования или {@code null}, если ответ нужно отправить без сжатия
+     */
+    public String selectEncoding(Headers requestHeaders) {
+        if (!isEnabled()) {
+            return null;
+        }
+
+        List<String> acceptEncodings = requestHeaders.get("Accept-Encoding");
+        if (acceptEncodings == null) {
+            return null;
+        }
+
+        boolean gzip = false;
+        boolean deflate = false;
+        for (String acceptEncoding : acceptEncodings) {
+            for (String coding : acceptEncoding.split(",")) {
+                String[] parts = coding.split(";");
+                String name = parts[0].trim();
+                if (!isAccepted(parts)) {
+                    continue;
+                }
+                if (GZIP.equalsIgnoreCase(name) || "*".equals(name)) {
+                    gzip = true;
+                } else if (DEFLATE.equalsIgnoreCase(name)) {
+                    deflate = true;
+                }
+            }
+        }
+
+        if (gzip) {
+            return GZIP;
+        }
+        return deflate ? DEFLATE : null;
+    }
+
+    private static boolean isAccepted(String[] parts) {
+        for (int i = 1; i < parts.length; i++) {
+            String parameter = parts[i].trim();
+            if (parameter.startsWith("q=")) {
+                try {
+                    return Double.parseDouble(parameter.substring(2)) > 0;
+                } catch (NumberFormatException exception) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,311 @@
+package handler;
+
+import com.sun.net.httpserver.HttpExchange;
+import metrics.MetricsSource;
+import metrics.MetricsWriter;
+import metrics.RouteMetrics;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static handler.BaseHttpHandler.HTTP_BAD_REQUEST;
+import static handler.BaseHttpHandler.HTTP_METHOD_NOT_ALLOWED;
+import static handler.BaseHttpHandler.HTTP_NOT_FOUND;
+
+/**
+ * Маршрутизатор запросов по методу и шаблону пути, например {@code /epics/{id}/subtasks}.
+ * <p>
+ * Шаблоны при регистрации собираются в дерево сегментов, поэтому путь запроса
+ * разбирается за один проход без подстрок и массивов, а id читается прямо из символов пути.
+ * Обычные сегменты проверяются раньше {@code {id}}. Если путь не найден, отправляется 404,
+ * если для пути нет обработчика метода — 405 с заголовком {@code Allow}; исключения
+ * при этом не создаются.
+ * <p>
+ * Для каждого зарегистрированного метода и шаблона ведутся счётчики запросов, ошибок,
+ * переданных байт и гистограмма длительности. Запросы, для которых обработчик не найден,
+ * учитываются в маршруте {@code unmatched}. Исключения обработчиков передаются
+ * в {@link ErrorHandler} до записи метрик, чтобы учесть код ответа с ошибкой.
+ */
+public class Router implements MetricsSource {
+    public static final String ID = "{id}";
+
+    private final Node root = new Node();
+    private final ErrorHandler errorHandler;
+    private final List<RouteMetrics> routesMetrics = new ArrayList<>();
+    private final RouteMetrics unmatchedMetrics = new RouteMetrics("unmatched", "ANY");
+
+    public Router(ErrorHandler errorHandler) {
+        this.errorHandler = errorHandler;
+        routesMetrics.add(unmatchedMetrics);
+    }
+
+    @FunctionalInterface
+    public interface Route {
+        void handle(HttpExchange exchange) throws IOException;
+    }
+
+    @FunctionalInterface
+    public interface IdRoute {
+        void handle(HttpExchange exchange, int id) throws IOException;
+    }
+
+    public void add(String method, String template, Route route) {
+        addRoute(method, template, (exchange, id) -> route.handle(exchange));
+    }
+
+    /**
+     * Регистрирует обработчик для шаблона с сегментом {@link #ID}.
+     */
+    public void add(String method, String template, IdRoute route) {
+        if (!template.contains(ID)) {
+            throw new IllegalArgumentException("В шаблоне нет сегмента " + ID + ": " + template);
+        }
+        addRoute(method, template, route);
+    }
+
+    /**
+     * Находит обработчик запроса и вызывает его. Ответ не закрывается.
+     */
+    public void route(HttpExchange exchange) {
+        long start = System.nanoTime();
+        CountingOutputStream body = new CountingOutputStream(exchange.getResponseBody());
+        exchange.setStreams(null, body);
+
+        RouteMetrics metrics = unmatchedMetrics;
+        try {
+            metrics = dispatch(exchange);
+        } catch (Exception exception) {
+            errorHandler.handle(exchange, exception);
+        } finally {
+            metrics.record(exchange.getResponseCode(), body.count, System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public void writeMetrics(MetricsWriter writer) {
+        writer.family("kanban_http_requests_total", "counter", "Количество HTTP-запросов");
+        for (RouteMetrics metrics : routesMetrics) {
+            metrics.writeRequests(writer, "kanban_http_requests_total");
+        }
+        writer.family("kanban_http_errors_total", "counter", "Количество ответов с кодами 4xx и 5xx");
+        for (RouteMetrics metrics : routesMetrics) {
+            metrics.writeErrors(writer, "kanban_http_errors_total");
+        }
+        writer.family("kanban_http_response_bytes_total", "counter", "Количество байт в телах ответов");
+        for (RouteMetrics metrics : routesMetrics) {
+            metrics.writeBytes(writer, "kanban_http_response_bytes_total");
+        }
+        writer.family("kanban_http_request_duration_seconds", "histogram", "Время обработки HTTP-запросов");
+        for (RouteMetrics metrics : routesMetrics) {
+            metrics.writeLatency(writer, "kanban_http_request_duration_seconds");
+        }
+    }
+
+    /**
+     * Вызывает обработчик запроса или отправляет ответ с ошибкой маршрутизации.
+     *
+     * @return метрики маршрута, в которых нужно учесть запрос
+     */
+    private RouteMetrics dispatch(HttpExchange exchange) throws IOException {
+        String path = exchange.getRequestURI().getPath();
+        Node node = root;
+        int id = 0;
+        boolean wrongId = false;
+
+        int start = 0;
+        int length = path.length();
+        while (start < length) {
+            if (path.charAt(start) == '/') {
+                start++;
+                continue;
+            }
+
+            int end = path.indexOf('/', start);
+            if (end < 0) {
+                end = length;
+            }
+
+            Node next = node.findChild(path, start, end);
+            if (next == null && node.idChild != null) {
+                next = node.idChild;
+                long parsedId = parseId(path, start, end);
+                if (parsedId == Long.MIN_VALUE) {
+                    wrongId = true;
+                } else {
+                    id = (int) parsedId;
+                }
+            }
+
+            if (next == null) {
+                ResponseBodyStream.send(exchange, HTTP_NOT_FOUND, "Не найден ресурс");
+                return unmatchedMetrics;
+            }
+            node = next;
+            start = end;
+        }
+
+        if (node.methods.length == 0) {
+            ResponseBodyStream.send(exchange, HTTP_NOT_FOUND, "Не найден ресурс");
+            return unmatchedMetrics;
+        }
+
+        int index = node.findRoute(exchange.getRequestMethod());
+        if (index < 0) {
+            exchange.getResponseHeaders().set("Allow", node.allow);
+            ResponseBodyStream.send(exchange, HTTP_METHOD_NOT_ALLOWED,
+                    "Метод " + exchange.getRequestMethod() + " не используется");
+            return unmatchedMetrics;
+        }
+
+        RouteMetrics metrics = node.metrics[index];
+        if (wrongId) {
+            ResponseBodyStream.send(exchange, HTTP_BAD_REQUEST, "ID задачи неправильного типа");
+            return metrics;
+        }
+
+        try {
+            node.routes[index].handle(exchange, id);
+        } catch (Exception exception) {
+            errorHandler.handle(exchange, exception);
+        }
+        return metrics;
+    }
+
+    private void addRoute(String method, String template, IdRoute route) {
+        Node node = root;
+        for (String segment : template.split("/")) {
+            if (segment.isEmpty()) {
+                continue;
+            }
+
+            if (segment.equals(ID)) {
+                if (node.idChild == null) {
+                    node.idChild = new Node();
+                }
+                node = node.idChild;
+            } else {
+                node = node.getOrAddChild(segment);
+            }
+        }
+        RouteMetrics metrics = new RouteMetrics(template, method);
+        node.addRoute(method, route, metrics);
+        routesMetrics.add(metrics);
+    }
+
+    /**
+     * Читает целое число из символов пути с {@code start} до {@code end}.
+     *
+     * @return {@link Long#MIN_VALUE}, если сегмент не является целым числом типа {@code int}
+     */
+    private static long parseId(String path, int start, int end) {
+        boolean negative = path.charAt(start) == '-';
+        int position = negative ? start + 1 : start;
+        if (position == end) {
+            return Long.MIN_VALUE;
+        }
+
+        long value = 0;
+        for (; position < end; position++) {
+            char symbol = path.charAt(position);
+            if (symbol < '0' || symbol > '9') {
+                return Long.MIN_VALUE;
+            }
+            value = value * 10 + (symbol - '0');
+            if (value > (long) Integer.MAX_VALUE + 1) {
+                return Long.MIN_VALUE;
+            }
+        }
+
+        value = negative ? -value : value;
+        if (value > Integer.MAX_VALUE || value < Integer.MIN_VALUE) {
+            return Long.MIN_VALUE;
+        }
+        return value;
+    }
+
+    private static class Node {
+        private String[] segments = new String[0];
+        private Node[] children = new Node[0];
+        private Node idChild;
+        private String[] methods = new String[0];
+        private IdRoute[] routes = new IdRoute[0];
+        private RouteMetrics[] metrics = new RouteMetrics[0];
+        private String allow = "";
+
+        private Node findChild(String path, int start, int end) {
+            int length = end - start;
+            for (int i = 0; i < segments.length; i++) {
+                String segment = segments[i];
+                if (segment.length() == length && path.regionMatches(start, segment, 0, length)) {
+                    return children[i];
+                }
+            }
+            return null;
+        }
+
+        private Node getOrAddChild(String segment) {
+            for (int i = 0; i < segments.length; i++) {
+                if (segments[i].equals(segment)) {
+                    return children[i];
+                }
+            }
+
+            Node child = new Node();
+            segments = Arrays.copyOf(segments, segments.length + 1);
+            children = Arrays.copyOf(children, children.length + 1);
+            segments[segments.length - 1] = segment;
+            children[children.length - 1] = child;
+            return child;
+        }
+
+        private int findRoute(String method) {
+            for (int i = 0; i < methods.length; i++) {
+                if (methods[i].equals(method)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        private void addRoute(String method, IdRoute route, RouteMetrics routeMetrics) {
+            if (findRoute(method) >= 0) {
+                throw new IllegalArgumentException("Обработчик метода " + method + " уже зарегистрирован");
+            }
+
+            methods = Arrays.copyOf(methods, methods.length + 1);
+            routes = Arrays.copyOf(routes, routes.length + 1);
+            methods[methods.length - 1] = method;
+            routes[routes.length - 1] = route;
+            metrics = Arrays.copyOf(metrics, metrics.length + 1);
+            metrics[metrics.length - 1] = routeMetrics;
+            allow = String.join(", ", methods);
+        }
+    }
+
+    /**
+     * Считает байты, записанные в тело ответа.
+     */
+    private static class CountingOutputStream extends FilterOutputStream {
+        private long count;
+
+        private CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+    }
+}
@@ -4,27 +4,31 @@ import com.google.gson.Gson;
 import com.google.gson.JsonSyntaxException;
 import com.sun.net.httpserver.HttpExchange;
 import model.SubTask;
+import model.TaskType;
 import service.TaskManager;
 
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
-import java.util.List;
 
 public class SubTaskHttpHandler extends TaskHttpHandler {
     public SubTaskHttpHandler(TaskManager taskManager, Gson gson) {
         super(taskManager, gson);
     }
 
+    public SubTaskHttpHandler(TaskManager taskManager, Gson gson, ResponseCompression compression) {
+        super(taskManager, gson, compression);
+    }
+
     @Override
     protected void getAll(HttpExchange exchange) throws IOException {
-        List<SubTask> subTasks = taskManager.getAllSubTasks();
-        sendText(exchange, HTTP_OK, gson.toJson(subTasks));
+        String version = String.valueOf(taskManager.getVersion(TaskType.SUB_TASK));
+        sendTaskList(exchange, version, taskManager::getAllSubTasks, taskManager::findSubTasks);
     }
 
     @Override
     protected void getById(HttpExchange exchange, int id) throws IOException {
         SubTask subTask = taskManager.getSubTask(id);
-        sendText(exchange, HTTP_OK, gson.toJson(subTask));
+        sendJson(exchange, HTTP_OK, subTask);
     }
 
     @Override
@@ -46,10 +50,10 @@ public class SubTaskHttpHandler extends TaskHttpHandler {
 
         if (subTask.getId() == 0) {
             SubTask createdSubTask = taskManager.createSubTask(subTask);
-            sendText(exchange, HTTP_CREATED, gson.toJson(createdSubTask));
+            sendJson(exchange, HTTP_CREATED, createdSubTask);
         } else {
             SubTask updatedSubTask = taskManager.updateSubTask(subTask);
-            sendText(exchange, HTTP_CREATED, gson.toJson(updatedSubTask));
+            sendJson(exchange, HTTP_CREATED, updatedSubTask);
         }
     }
 
@@ -4,11 +4,11 @@ import com.google.gson.Gson;
 import com.google.gson.JsonSyntaxException;
 import com.sun.net.httpserver.HttpExchange;
 import model.Task;
+import model.TaskType;
 import service.TaskManager;
 
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
-import java.util.List;
 
 public class TaskHttpHandler extends BaseHttpHandler {
 
@@ -16,74 +16,26 @@ public class TaskHttpHandler extends BaseHttpHandler {
         super(taskManager, gson);
     }
 
-    @Override
-    public void handle(HttpExchange exchange) throws IOException {
-        String method = exchange.getRequestMethod();
-
-        switch (method) {
-            case GET:
-                handleGetMethod(exchange);
-                return;
-            case POST:
-                handlePostMethod(exchange);
-                return;
-            case DELETE:
-                handleDeleteMethod(exchange);
-                return;
-            default:
-                sendBadRequest(exchange, "Метод " + method + " не используется");
-        }
+    public TaskHttpHandler(TaskManager taskManager, Gson gson, ResponseCompression compression) {
+        super(taskManager, gson, compression);
     }
 
-    protected void handleGetMethod(HttpExchange exchange) throws IOException {
-        String[] pathSplit = exchange.getRequestURI().getPath().split("/");
-
-        if (pathSplit.length == 2) {
-            getAll(exchange);
-        } else if (pathSplit.length == 3) {
-            int id = 0;
-            try {
-                id = Integer.parseInt(pathSplit[2]);
-            } catch (NumberFormatException exception) {
-                sendBadRequest(exchange, "ID задачи неправильного типа");
-                return;
-            }
-
-            getById(exchange, id);
-        } else {
-            sendNotFound(exchange, "Не найден ресурс");
-        }
-    }
-
-    protected void handlePostMethod(HttpExchange exchange) throws IOException {
-        String[] pathSplit = exchange.getRequestURI().getPath().split("/");
-        createAndUpdate(exchange);
-    }
-
-    protected void handleDeleteMethod(HttpExchange exchange) throws IOException {
-        String[] pathSplit = exchange.getRequestURI().getPath().split("/");
-
-        if (pathSplit.length == 3) {
-            int id = 0;
-            try {
-                id = Integer.parseInt(pathSplit[2]);
-            } catch (NumberFormatException exception) {
-                sendBadRequest(exchange, "ID задачи неправильного типа");
-                return;
-            }
-
-            remove(exchange, id);
-        }
+    @Override
+    public void addRoutes(Router router, String path) {
+        router.add(GET, path, this::getAll);
+        router.add(GET, path + "/" + Router.ID, this::getById);
+        router.add(POST, path, this::createAndUpdate);
+        router.add(DELETE, path + "/" + Router.ID, this::remove);
     }
 
     protected void getAll(HttpExchange exchange) throws IOException {
-        List<Task> tasks = taskManager.getAllTasks();
-        sendText(exchange, HTTP_OK, gson.toJson(tasks));
+        String version = String.valueOf(taskManager.getVersion(TaskType.TASK));
+        sendTaskList(exchange, version, taskManager::getAllTasks, taskManager::findTasks);
     }
 
     protected void getById(HttpExchange exchange, int id) throws IOException {
         Task task = taskManager.getTask(id);
-        sendText(exchange, HTTP_OK, gson.toJson(task));
+        sendJson(exchange, HTTP_OK, task);
     }
 
     protected void createAndUpdate(HttpExchange exchange) throws IOException {
@@ -104,10 +56,10 @@ public class TaskHttpHandler extends BaseHttpHandler {
 
         if (task.getId() == 0) {
             Task createdTask = taskManager.createTask(task);
-            sendText(exchange, HTTP_CREATED, gson.toJson(createdTask));
+            sendJson(exchange, HTTP_CREATED, createdTask);
         } else {
             Task updatedTask = taskManager.updateTask(task);
-            sendText(exchange, HTTP_CREATED, gson.toJson(updatedTask));
+            sendJson(exchange, HTTP_CREATED, updatedTask);
         }
     }
 
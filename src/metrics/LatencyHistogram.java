@@ -0,0 +1,61 @@
+package metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Гистограмма длительностей с фиксированными границами корзин от 0,5 мс до 10 с.
+ * Запись выполняется без блокировок и без выделения памяти: счётчик корзины
+ * находится линейным поиском по массиву границ.
+ */
+public class LatencyHistogram {
+    private static final double[] BUCKET_SECONDS = {
+            0.0005, 0.001, 0.0025, 0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10
+    };
+    private static final long[] BUCKET_NANOS = new long[BUCKET_SECONDS.length];
+    private static final double NANOS_PER_SECOND = 1_000_000_000.0;
+
+    static {
+        for (int i = 0; i < BUCKET_SECONDS.length; i++) {
+            BUCKET_NANOS[i] = (long) (BUCKET_SECONDS[i] * NANOS_PER_SECOND);
+        }
+    }
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_NANOS.length + 1);
+    private final LongAdder sumNanos = new LongAdder();
+
+    public void record(long nanos) {
+        int bucket = 0;
+        while (bucket < BUCKET_NANOS.length && nanos > BUCKET_NANOS[bucket]) {
+            bucket++;
+        }
+        counts.incrementAndGet(bucket);
+        sumNanos.add(nanos);
+    }
+
+    public long getCount() {
+        long count = 0;
+        for (int i = 0; i < counts.length(); i++) {
+            count += counts.get(i);
+        }
+        return count;
+    }
+
+    /**
+     * Записывает корзины нарастающим итогом, сумму в секундах и количество.
+     *
+     * @param labels метки, общие для всех строк гистограммы, или пустая строка
+     */
+    public void writeTo(MetricsWriter writer, String name, String labels) {
+        String prefix = labels.isEmpty() ? "" : labels + ",";
+        long cumulativeCount = 0;
+        for (int i = 0; i < BUCKET_SECONDS.length; i++) {
+            cumulativeCount += counts.get(i);
+            writer.sample(name + "_bucket", prefix + "le=\"" + BUCKET_SECONDS[i] + "\"", cumulativeCount);
+        }
+        cumulativeCount += counts.get(BUCKET_SECONDS.length);
+        writer.sample(name + "_bucket", prefix + "le=\"+Inf\"", cumulativeCount);
+        writer.sample(name + "_sum", labels, sumNanos.sum() / NANOS_PER_SECOND);
+        writer.sample(name + "_count", labels, cumulativeCount);
+    }
+}
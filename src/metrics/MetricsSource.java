@@ -0,0 +1,8 @@
+package metrics;
+
+/**
+ * Компонент, который сам записывает свои метрики, например время работы хранилища.
+ */
+public interface MetricsSource {
+    void writeMetrics(MetricsWriter writer);
+}
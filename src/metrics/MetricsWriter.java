@@ -0,0 +1,57 @@
+package metrics;
+
+/**
+ * Собирает метрики в текстовом формате Prometheus. Метрики одного имени
+ * нужно записывать подряд после {@link #family(String, String, String)}.
+ */
+public class MetricsWriter {
+    public static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    private final StringBuilder text = new StringBuilder(4096);
+
+    /**
+     * Начинает семейство метрик: записывает строки {@code # HELP} и {@code # TYPE}.
+     *
+     * @param type {@code counter}, {@code gauge} или {@code histogram}
+     */
+    public MetricsWriter family(String name, String type, String help) {
+        text.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        text.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+        return this;
+    }
+
+    /**
+     * @param labels метки без фигурных скобок, например {@code route="/tasks",method="GET"},
+     *               или пустая строка
+     */
+    public MetricsWriter sample(String name, String labels, long value) {
+        appendName(name, labels);
+        text.append(' ').append(value).append('\n');
+        return this;
+    }
+
+    public MetricsWriter sample(String name, String labels, double value) {
+        appendName(name, labels);
+        text.append(' ').append(value).append('\n');
+        return this;
+    }
+
+    /**
+     * Экранирует значение метки: обратную косую черту, кавычки и перевод строки.
+     */
+    public static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    @Override
+    public String toString() {
+        return text.toString();
+    }
+
+    private void appendName(String name, String labels) {
+        text.append(name);
+        if (!labels.isEmpty()) {
+            text.append('{').append(labels).append('}');
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Счётчики одного маршрута и метода: запросы, коды ответов, переданные байты
+ * и гистограмма длительности. Запись выполняется без блокировок и без выделения памяти.
+ */
+public class RouteMetrics {
+    private static final int MAX_STATUS_CODE = 599;
+
+    private final String labels;
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder bytesWritten = new LongAdder();
+    private final AtomicLongArray responsesByStatus = new AtomicLongArray(MAX_STATUS_CODE + 1);
+    private final LatencyHistogram latency = new LatencyHistogram();
+
+    public RouteMetrics(String route, String method) {
+        this.labels = "route=\"" + MetricsWriter.escape(route) + "\",method=\"" + MetricsWriter.escape(method) + "\"";
+    }
+
+    /**
+     * @param statusCode код ответа; {@code -1}, если ответ не был отправлен
+     */
+    public void record(int statusCode, long bytes, long nanos) {
+        requests.increment();
+        bytesWritten.add(bytes);
+        if (statusCode > 0 && statusCode <= MAX_STATUS_CODE) {
+            responsesByStatus.incrementAndGet(statusCode);
+        }
+        latency.record(nanos);
+    }
+
+    public long getRequestsCount() {
+        return requests.sum();
+    }
+
+    public void writeRequests(MetricsWriter writer, String name) {
+        writer.sample(name, labels, requests.sum());
+    }
+
+    /**
+     * Записывает количество ответов с кодами 4xx и 5xx, по одной строке на код.
+     */
+    public void writeErrors(MetricsWriter writer, String name) {
+        for (int statusCode = 400; statusCode <= MAX_STATUS_CODE; statusCode++) {
+            long count = responsesByStatus.get(statusCode);
+            if (count > 0) {
+                writer.sample(name, labels + ",status=\"" + statusCode + "\"", count);
+            }
+        }
+    }
+
+    public void writeBytes(MetricsWriter writer, String name) {
+        writer.sample(name, labels, bytesWritten.sum());
+    }
+
+    public void writeLatency(MetricsWriter writer, String name) {
+        latency.writeTo(writer, name, labels);
+    }
+}
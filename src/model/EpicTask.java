@@ -3,14 +3,23 @@ package model;
 import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
 
 public class EpicTask extends Task {
-    private final List<Integer> subTasksId;
+    private final Set<Integer> subTasksId;
+    private final transient Set<Integer> subTasksIdView;
+    private transient SubTasksAggregate aggregate;
 
     public EpicTask(String title, String description) {
         super(title, description, Status.NEW);
-        this.subTasksId = new ArrayList<>();
+        this.subTasksId = new LinkedHashSet<>();
+        this.subTasksIdView = Collections.unmodifiableSet(subTasksId);
     }
 
     @Override
@@ -19,7 +28,16 @@ public class EpicTask extends Task {
     }
 
     public List<Integer> getSubTasksId() {
-        return subTasksId;
+        return new ArrayList<>(subTasksId);
+    }
+
+    /**
+     * Возвращает id подзадач в порядке добавления без копирования. Представление
+     * меняется вместе с эпиком, поэтому его нельзя хранить или обходить во время
+     * изменения эпика; для независимого списка есть {@link #getSubTasksId()}.
+     */
+    public Set<Integer> getSubTasksIdView() {
+        return subTasksIdView;
     }
 
     public void addSubTaskId(int id) {
@@ -27,7 +45,70 @@ public class EpicTask extends Task {
     }
 
     public void removeSubTask(int id) {
-        subTasksId.remove(Integer.valueOf(id));
+        subTasksId.remove(id);
+    }
+
+    /**
+     * Добавляет подзадачу в эпик и обновляет статус и время эпика за O(log k).
+     */
+    public void addSubTask(SubTask subTask) {
+        if (subTasksId.add(subTask.getId())) {
+            getAggregate().add(subTask);
+            refresh();
+        }
+    }
+
+    /**
+     * Удаляет подзадачу из эпика и обновляет статус и время эпика за O(log k).
+     */
+    public void removeSubTask(SubTask subTask) {
+        if (subTasksId.remove(subTask.getId())) {
+            getAggregate().remove(subTask);
+            refresh();
+        }
+    }
+
+    /**
+     * Заменяет сохранённую версию подзадачи на обновлённую.
+     */
+    public void replaceSubTask(SubTask oldSubTask, SubTask newSubTask) {
+        if (subTasksId.contains(oldSubTask.getId())) {
+            SubTasksAggregate subTasksAggregate = getAggregate();
+            subTasksAggregate.remove(oldSubTask);
+            subTasksAggregate.add(newSubTask);
+            refresh();
+        }
+    }
+
+    public void clearSubTasks() {
+        subTasksId.clear();
+        aggregate = new SubTasksAggregate();
+        refresh();
+    }
+
+    /**
+     * Полностью пересчитывает статус и время эпика по переданным подзадачам.
+     * Нужен, когда эпик пришёл извне (например, из JSON) без накопленных значений.
+     */
+    public void recalculate(List<SubTask> subTasks) {
+        aggregate = new SubTasksAggregate();
+        for (SubTask subTask : subTasks) {
+            aggregate.add(subTask);
+        }
+        refresh();
+    }
+
+    /**
+     * Возвращает копию эпика с текущими статусом, временем и списком подзадач.
+     * Копия не связана с эпиком и не меняется вместе с ним.
+     */
+    @Override
+    public EpicTask copy() {
+        EpicTask copy = new EpicTask(title, description);
+        copy.status = status;
+        copyFieldsTo(copy);
+        copy.subTasksId.addAll(subTasksId);
+        return copy;
     }
 
     public void setStartTime(LocalDateTime startTime) {
@@ -42,6 +123,27 @@ public class EpicTask extends Task {
         super.endTime = endTime;
     }
 
+    private SubTasksAggregate getAggregate() {
+        if (aggregate == null) {
+            aggregate = new SubTasksAggregate();
+        }
+        return aggregate;
+    }
+
+    private void refresh() {
+        status = aggregate.getStatus();
+
+        if (aggregate.startTimes.isEmpty()) {
+            startTime = null;
+            duration = null;
+            endTime = null;
+        } else {
+            startTime = aggregate.startTimes.firstKey();
+            duration = aggregate.sumDuration;
+            endTime = aggregate.endTimes.lastKey();
+        }
+    }
+
     @Override
     public String toString() {
         return "Epic{id=" + id +
@@ -49,4 +151,61 @@ public class EpicTask extends Task {
                 ", subTasksId=" + subTasksId +
                 '}';
     }
+
+    /**
+     * Накопленные значения по подзадачам эпика: счётчики статусов, суммарная
+     * длительность и упорядоченные мультимножества времени начала и конца.
+     */
+    private static class SubTasksAggregate {
+        private int count;
+        private int newCount;
+        private int doneCount;
+        private Duration sumDuration = Duration.ZERO;
+        private final NavigableMap<LocalDateTime, Integer> startTimes = new TreeMap<>();
+        private final NavigableMap<LocalDateTime, Integer> endTimes = new TreeMap<>();
+
+        private void add(SubTask subTask) {
+            count++;
+            if (Status.NEW.equals(subTask.getStatus())) {
+                newCount++;
+            } else if (Status.DONE.equals(subTask.getStatus())) {
+                doneCount++;
+            }
+
+            if (subTask.getStartTime() != null) {
+                sumDuration = sumDuration.plus(subTask.getDuration());
+                startTimes.merge(subTask.getStartTime(), 1, Integer::sum);
+                endTimes.merge(subTask.getEndTime(), 1, Integer::sum);
+            }
+        }
+
+        private void remove(SubTask subTask) {
+            count--;
+            if (Status.NEW.equals(subTask.getStatus())) {
+                newCount--;
+            } else if (Status.DONE.equals(subTask.getStatus())) {
+                doneCount--;
+            }
+
+            if (subTask.getStartTime() != null) {
+                sumDuration = sumDuration.minus(subTask.getDuration());
+                decrement(startTimes, subTask.getStartTime());
+                decrement(endTimes, subTask.getEndTime());
+            }
+        }
+
+        private Status getStatus() {
+            if (count == newCount) {
+                return Status.NEW;
+            } else if (count == doneCount) {
+                return Status.DONE;
+            } else {
+                return Status.IN_PROGRESS;
+            }
+        }
+
+        private static void decrement(Map<LocalDateTime, Integer> times, LocalDateTime time) {
+            times.computeIfPresent(time, (key, value) -> value == 1 ? null : value - 1);
+        }
+    }
 }
@@ -31,6 +31,13 @@ public class SubTask extends Task {
         this.epicTaskId = epicTaskId;
     }
 
+    @Override
+    public SubTask copy() {
+        SubTask copy = new SubTask(title, description, status, epicTaskId);
+        copyFieldsTo(copy);
+        return copy;
+    }
+
     @Override
     public String toString() {
         return "SubTask{epicId=" + epicTaskId +
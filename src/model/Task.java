@@ -80,6 +80,23 @@ public class Task {
         return endTime;
     }
 
+    /**
+     * Возвращает копию задачи с текущими значениями полей.
+     * Копия не связана с задачей и не меняется вместе с ней.
+     */
+    public Task copy() {
+        Task copy = new Task(title, description, status);
+        copyFieldsTo(copy);
+        return copy;
+    }
+
+    protected void copyFieldsTo(Task copy) {
+        copy.id = id;
+        copy.startTime = startTime;
+        copy.duration = duration;
+        copy.endTime = endTime;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -0,0 +1,194 @@
+package service;
+
+import model.Task;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * История просмотров ограниченного размера на заранее выделенных массивах.
+ * Когда задач больше, чем {@code capacity}, удаляется задача, которую дольше
+ * всех не просматривали.
+ * <p>
+ * Задачи лежат в слотах массива, порядок просмотров задают параллельные массивы
+ * ссылок на предыдущий и следующий слот, а свободные слоты связаны в список через
+ * массив следующих слотов. Слот задачи ищется по id в таблице с открытой адресацией
+ * на массивах {@code int}, из которой ключи удаляются сдвигом без надгробий.
+ * Поэтому добавление, перенос в конец и удаление не выделяют память и не создают
+ * объектов {@link Integer}. Класс не потокобезопасен.
+ */
+public class ArrayHistoryManager implements HistoryManager {
+    public static final int DEFAULT_CAPACITY = 10_000;
+    private static final int NONE = -1;
+
+    private final Task[] tasks;
+    private final int[] ids;
+    private final int[] previous;
+    private final int[] next;
+    private final int[] tableIds;
+    private final int[] tableSlots;
+    private final int tableMask;
+    private int head = NONE;
+    private int tail = NONE;
+    private int freeHead;
+    private int size;
+
+    public ArrayHistoryManager() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public ArrayHistoryManager(int capacity) {
+        if (capacity <= 0 || capacity > 1 << 29) {
+            throw new IllegalArgumentException("Неверный размер истории: " + capacity);
+        }
+        tasks = new Task[capacity];
+        ids = new int[capacity];
+        previous = new int[capacity];
+        next = new int[capacity];
+        for (int slot = 0; slot < capacity; slot++) {
+            next[slot] = slot + 1 < capacity ? slot + 1 : NONE;
+        }
+
+        int tableSize = Integer.highestOneBit(capacity * 2 - 1) << 1;
+        tableIds = new int[tableSize];
+        tableSlots = new int[tableSize];
+        tableMask = tableSize - 1;
+        Arrays.fill(tableSlots, NONE);
+    }
+
+    @Override
+    public void add(Task task) {
+        if (task == null) {
+            return;
+        }
+
+        int index = findIndex(task.getId());
+        if (index != NONE) {
+            int slot = tableSlots[index];
+            tasks[slot] = task;
+            if (slot != tail) {
+                unlink(slot);
+                linkLast(slot);
+            }
+            return;
+        }
+
+        if (size == tasks.length) {
+            removeSlot(head);
+        }
+
+        int slot = freeHead;
+        freeHead = next[slot];
+        tasks[slot] = task;
+        ids[slot] = task.getId();
+        linkLast(slot);
+        insert(task.getId(), slot);
+        size++;
+    }
+
+    @Override
+    public List<Task> getHistory() {
+        List<Task> history = new ArrayList<>(size);
+        for (int slot = head; slot != NONE; slot = next[slot]) {
+            history.add(tasks[slot]);
+        }
+        return history;
+    }
+
+    @Override
+    public void remove(int id) {
+        int index = findIndex(id);
+        if (index != NONE) {
+            removeSlot(tableSlots[index]);
+        }
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    public int getCapacity() {
+        return tasks.length;
+    }
+
+    private void removeSlot(int slot) {
+        deleteIndex(findIndex(ids[slot]));
+        unlink(slot);
+        tasks[slot] = null;
+        next[slot] = freeHead;
+        freeHead = slot;
+        size--;
+    }
+
+    private void linkLast(int slot) {
+        previous[slot] = tail;
+        next[slot] = NONE;
+        if (tail == NONE) {
+            head = slot;
+        } else {
+            next[tail] = slot;
+        }
+        tail = slot;
+    }
+
+    private void unlink(int slot) {
+        int previousSlot = previous[slot];
+        int nextSlot = next[slot];
+        if (previousSlot == NONE) {
+            head = nextSlot;
+        } else {
+            next[previousSlot] = nextSlot;
+        }
+        if (nextSlot == NONE) {
+            tail = previousSlot;
+        } else {
+            previous[nextSlot] = previousSlot;
+        }
+    }
+
+    private int findIndex(int id) {
+        for (int index = hash(id); tableSlots[index] != NONE; index = (index + 1) & tableMask) {
+            if (tableIds[index] == id) {
+                return index;
+            }
+        }
+        return NONE;
+    }
+
+    private void insert(int id, int slot) {
+        int index = hash(id);
+        while (tableSlots[index] != NONE) {
+            index = (index + 1) & tableMask;
+        }
+        tableIds[index] = id;
+        tableSlots[index] = slot;
+    }
+
+    /**
+     * Удаляет ключ и сдвигает на освободившееся место следующие ключи цепочки,
+     * чей начальный индекс не лежит между освободившимся местом и их текущим индексом.
+     */
+    private void deleteIndex(int index) {
+        int current = (index + 1) & tableMask;
+        while (tableSlots[current] != NONE) {
+            int home = hash(tableIds[current]);
+            boolean staysInPlace = index <= current
+                    ? index < home && home <= current
+                    : index < home || home <= current;
+            if (!staysInPlace) {
+                tableIds[index] = tableIds[current];
+                tableSlots[index] = tableSlots[current];
+                index = current;
+            }
+            current = (current + 1) & tableMask;
+        }
+        tableSlots[index] = NONE;
+    }
+
+    private int hash(int id) {
+        int hash = id * 0x9E3779B9;
+        return (hash ^ (hash >>> 16)) & tableMask;
+    }
+}
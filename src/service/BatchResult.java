@@ -0,0 +1,43 @@
+package service;
+
+import model.Task;
+
+/**
+ * Результат сохранения одной задачи из пакета {@link TaskManager#applyBatch(java.util.List)}.
+ */
+public class BatchResult {
+    private final Task task;
+    private final RuntimeException error;
+
+    private BatchResult(Task task, RuntimeException error) {
+        this.task = task;
+        this.error = error;
+    }
+
+    public static BatchResult success(Task task) {
+        return new BatchResult(task, null);
+    }
+
+    public static BatchResult failure(Task task, RuntimeException error) {
+        return new BatchResult(task, error);
+    }
+
+    public boolean isSuccess() {
+        return error == null;
+    }
+
+    /**
+     * Сохранённая задача с назначенным id или задача, которую не удалось сохранить.
+     */
+    public Task getTask() {
+        return task;
+    }
+
+    /**
+     * Причина ошибки: {@link exception.NotFoundException}, {@link exception.ValidationException}
+     * или {@link exception.ManagerIOException}, если задачу не принимает хранилище.
+     */
+    public RuntimeException getError() {
+        return error;
+    }
+}
@@ -0,0 +1,124 @@
+package service;
+
+import model.Task;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Потокобезопасная история просмотров ограниченного размера. Когда задач больше,
+ * чем {@code capacity}, удаляется задача, которую дольше всех не просматривали.
+ * <p>
+ * Каждый просмотр получает номер из общего счётчика. Номер последнего просмотра
+ * задачи хранится в {@link ConcurrentHashMap}, а задачи упорядочены по номерам
+ * в {@link ConcurrentSkipListMap}, поэтому добавление и удаление из разных потоков
+ * не берут общую блокировку. Вытеснение одной задачи сначала резервируется
+ * уменьшением счётчика размера, так что параллельные добавления не вытесняют лишнего.
+ * <p>
+ * При гонке просмотров и удаления одной задачи номер может устареть раньше, чем
+ * попадёт в порядок. Поэтому после вставки добавление проверяет, что его номер
+ * всё ещё текущий, и иначе убирает свою запись сам: устаревшие номера не копятся.
+ * Пока запись не убрана, она пропускается при чтении.
+ */
+public class ConcurrentHistoryManager implements HistoryManager {
+    public static final int DEFAULT_CAPACITY = 10_000;
+
+    private final int capacity;
+    private final AtomicLong sequence = new AtomicLong();
+    private final AtomicInteger size = new AtomicInteger();
+    private final Map<Integer, Long> sequenceById = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListMap<Long, Task> tasksBySequence = new ConcurrentSkipListMap<>();
+
+    public ConcurrentHistoryManager() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public ConcurrentHistoryManager(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Размер истории должен быть положительным: " + capacity);
+        }
+        this.capacity = capacity;
+    }
+
+    @Override
+    public void add(Task task) {
+        if (task == null) {
+            return;
+        }
+
+        long taskSequence = sequence.incrementAndGet();
+        Long oldSequence = sequenceById.put(task.getId(), taskSequence);
+        tasksBySequence.put(taskSequence, task);
+        if (!Long.valueOf(taskSequence).equals(sequenceById.get(task.getId()))) {
+            tasksBySequence.remove(taskSequence, task);
+        }
+
+        if (oldSequence != null) {
+            tasksBySequence.remove(oldSequence);
+        } else {
+            size.incrementAndGet();
+            evictIfFull();
+        }
+    }
+
+    /**
+     * Возвращает задачи от давно просмотренной к последней. Список собирается
+     * за один проход по истории и может не включать просмотры, идущие параллельно.
+     */
+    @Override
+    public List<Task> getHistory() {
+        List<Task> tasks = new ArrayList<>(Math.min(size.get(), capacity));
+        for (Map.Entry<Long, Task> entry : tasksBySequence.entrySet()) {
+            if (entry.getKey().equals(sequenceById.get(entry.getValue().getId()))) {
+                tasks.add(entry.getValue());
+            }
+        }
+        return tasks;
+    }
+
+    @Override
+    public void remove(int id) {
+        Long taskSequence = sequenceById.remove(id);
+        if (taskSequence != null) {
+            tasksBySequence.remove(taskSequence);
+            size.decrementAndGet();
+        }
+    }
+
+    @Override
+    public int size() {
+        return sequenceById.size();
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Количество записей в порядке просмотров вместе с ещё не убранными устаревшими.
+     */
+    int getSequencesCount() {
+        return tasksBySequence.size();
+    }
+
+    private void evictIfFull() {
+        int currentSize;
+        while ((currentSize = size.get()) > capacity) {
+            if (!size.compareAndSet(currentSize, currentSize - 1)) {
+                continue;
+            }
+
+            Map.Entry<Long, Task> eldest;
+            while ((eldest = tasksBySequence.pollFirstEntry()) != null) {
+                if (sequenceById.remove(eldest.getValue().getId(), eldest.getKey())) {
+                    break;
+                }
+            }
+        }
+    }
+}
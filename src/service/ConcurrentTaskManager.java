@@ -0,0 +1,379 @@
+package service;
+
+import exception.NotFoundException;
+import model.EpicTask;
+import model.SubTask;
+import model.Task;
+import model.TaskType;
+import util.ConcurrentTaskTimeIndex;
+import util.Managers;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Потокобезопасный менеджер задач.
+ * <p>
+ * Задачи хранятся в {@link ConcurrentSkipListMap}, поэтому чтение не блокируется записью.
+ * Изменения эпика и его подзадач выполняются под блокировкой полосы (stripe), выбранной
+ * по id эпика, так что записи в разные эпики идут параллельно. Проверка пересечения
+ * по времени и вставка в индекс атомарны благодаря {@link ConcurrentTaskTimeIndex}.
+ * История просмотров по умолчанию — {@link ConcurrentHistoryManager} ограниченного размера.
+ * <p>
+ * Эпик меняется под блокировкой своей полосы при изменении его подзадач. После
+ * каждого изменения под той же блокировкой публикуется копия эпика, и чтение эпиков
+ * отдаёт копии опубликованного состояния, не беря блокировок и не дожидаясь записи.
+ * События слушателей тоже получают копии. Исключение — {@link #createEpicTask(EpicTask)},
+ * который возвращает переданный объект.
+ */
+public class ConcurrentTaskManager extends InMemoryTaskManager {
+    private static final int DEFAULT_STRIPES_COUNT = 64;
+
+    private final AtomicInteger idGenerator = new AtomicInteger(1);
+    private final ReentrantLock[] stripes;
+    private final ConcurrentSkipListMap<Integer, EpicTask> epicTaskSnapshots = new ConcurrentSkipListMap<>();
+
+    public ConcurrentTaskManager() {
+        this(DEFAULT_STRIPES_COUNT);
+    }
+
+    public ConcurrentTaskManager(int stripesCount) {
+        this(stripesCount, Managers.getDefaultConcurrentHistory());
+    }
+
+    /**
+     * @param historyManager потокобезопасная история просмотров
+     */
+    public ConcurrentTaskManager(int stripesCount, HistoryManager historyManager) {
+        super(new ConcurrentSkipListMap<>(), new ConcurrentSkipListMap<>(), new ConcurrentSkipListMap<>(),
+                new ConcurrentTaskTimeIndex(), historyManager);
+
+        if (stripesCount <= 0) {
+            throw new IllegalArgumentException("Количество блокировок должно быть положительным: " + stripesCount);
+        }
+
+        this.stripes = new ReentrantLock[stripesCount];
+        for (int i = 0; i < stripesCount; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+    @Override
+    public List<EpicTask> getAllEpicTasks() {
+        return copyEpicTasks(epicTaskSnapshots.values());
+    }
+
+    @Override
+    public List<EpicTask> findEpicTasks(TaskQuery query) {
+        return copyEpicTasks(findPage(epicTaskSnapshots, query));
+    }
+
+    @Override
+    public EpicTask getEpicTask(int id) {
+        EpicTask snapshot = epicTaskSnapshots.get(id);
+        if (snapshot == null) {
+            throw new NotFoundException("Не найден эпик: " + id);
+        }
+        historyManager.add(snapshot);
+        return snapshot.copy();
+    }
+
+    @Override
+    public List<Task> getHistory() {
+        List<Task> history = new ArrayList<>();
+        for (Task task : super.getHistory()) {
+            if (task.getType() != TaskType.EPIC_TASK) {
+                history.add(task);
+            } else {
+                EpicTask snapshot = epicTaskSnapshots.get(task.getId());
+                if (snapshot != null) {
+                    history.add(snapshot.copy());
+                }
+            }
+        }
+        return history;
+    }
+
+    @Override
+    public List<SubTask> getSubTasksFromEpicTaskId(int epicTaskId) {
+        EpicTask snapshot = epicTaskSnapshots.get(epicTaskId);
+        if (snapshot == null) {
+            throw new NotFoundException("Не найден эпик: " + epicTaskId);
+        }
+
+        List<SubTask> subTasks = new ArrayList<>(snapshot.getSubTasksIdView().size());
+        for (int subTaskId : snapshot.getSubTasksIdView()) {
+            SubTask subTask = subTasksById.get(subTaskId);
+            if (subTask != null) {
+                subTasks.add(subTask);
+            }
+        }
+        return subTasks;
+    }
+
+    @Override
+    public EpicTask createEpicTask(EpicTask epicTask) {
+        super.createEpicTask(epicTask);
+        ReentrantLock lock = stripeFor(epicTask.getId());
+        lock.lock();
+        try {
+            publish(epicTask.getId());
+        } finally {
+            lock.unlock();
+        }
+        return epicTask;
+    }
+
+    @Override
+    public SubTask createSubTask(SubTask subTask) {
+        ReentrantLock lock = stripeFor(subTask.getEpicTaskId());
+        lock.lock();
+        try {
+            return super.createSubTask(subTask);
+        } finally {
+            publish(subTask.getEpicTaskId());
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Задачи и эпики получают id из одного счётчика, поэтому id задачи не совпадает
+     * с id эпика. Полоса задачи может совпасть с полосой эпика, но это лишь
+     * лишнее ожидание, а не ошибка: под полосой задачи эпики не меняются.
+     */
+    @Override
+    public Task updateTask(Task task) {
+        ReentrantLock lock = stripeFor(task.getId());
+        lock.lock();
+        try {
+            return super.updateTask(task);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public EpicTask updateEpicTask(EpicTask epicTask) {
+        ReentrantLock lock = stripeFor(epicTask.getId());
+        lock.lock();
+        try {
+            super.updateEpicTask(epicTask);
+            return publish(epicTask.getId()).copy();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public SubTask updateSubTask(SubTask subTask) {
+        while (true) {
+            SubTask oldSubTask = subTasksById.get(subTask.getId());
+            int oldEpicTaskId = oldSubTask != null ? oldSubTask.getEpicTaskId() : subTask.getEpicTaskId();
+
+            int oldStripe = stripeIndex(oldEpicTaskId);
+            int newStripe = stripeIndex(subTask.getEpicTaskId());
+            ReentrantLock first = stripes[Math.min(oldStripe, newStripe)];
+            ReentrantLock second = stripes[Math.max(oldStripe, newStripe)];
+            first.lock();
+            second.lock();
+            try {
+                if (subTasksById.get(subTask.getId()) == oldSubTask) {
+                    try {
+                        return super.updateSubTask(subTask);
+                    } finally {
+                        publish(oldEpicTaskId);
+                        publish(subTask.getEpicTaskId());
+                    }
+                }
+            } finally {
+                second.unlock();
+                first.unlock();
+            }
+        }
+    }
+
+    @Override
+    public List<BatchResult> applyBatch(List<? extends Task> tasks) {
+        lockAll();
+        try {
+            Set<Integer> changedEpicTaskIds = new HashSet<>();
+            for (Task task : tasks) {
+                if (task instanceof SubTask && subTasksById.containsKey(task.getId())) {
+                    changedEpicTaskIds.add(subTasksById.get(task.getId()).getEpicTaskId());
+                }
+            }
+
+            List<BatchResult> results = super.applyBatch(tasks);
+            for (BatchResult result : results) {
+                if (result.isSuccess() && result.getTask() instanceof EpicTask) {
+                    changedEpicTaskIds.add(result.getTask().getId());
+                } else if (result.isSuccess() && result.getTask() instanceof SubTask) {
+                    changedEpicTaskIds.add(result.getTask().getEpicTaskId());
+                }
+            }
+            changedEpicTaskIds.forEach(this::publish);
+
+            results.replaceAll(result -> result.isSuccess() && result.getTask() instanceof EpicTask
+                    ? BatchResult.success(epicTaskSnapshots.get(result.getTask().getId()).copy())
+                    : result);
+            return results;
+        } finally {
+            unlockAll();
+        }
+    }
+
+    @Override
+    public void removeAllTasks() {
+        lockAll();
+        try {
+            super.removeAllTasks();
+        } finally {
+            unlockAll();
+        }
+    }
+
+    @Override
+    public void removeAllEpicTasks() {
+        lockAll();
+        try {
+            super.removeAllEpicTasks();
+        } finally {
+            epicTaskSnapshots.keySet().removeIf(id -> !epicTasksById.containsKey(id));
+            unlockAll();
+        }
+    }
+
+    @Override
+    public void removeAllSubTasks() {
+        lockAll();
+        try {
+            super.removeAllSubTasks();
+        } finally {
+            epicTasksById.keySet().forEach(this::publish);
+            unlockAll();
+        }
+    }
+
+    @Override
+    public void removeTask(int id) {
+        ReentrantLock lock = stripeFor(id);
+        lock.lock();
+        try {
+            super.removeTask(id);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void removeEpicTask(int id) {
+        ReentrantLock lock = stripeFor(id);
+        lock.lock();
+        try {
+            super.removeEpicTask(id);
+        } finally {
+            publish(id);
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void removeSubTask(int id) {
+        while (true) {
+            SubTask subTask = subTasksById.get(id);
+            if (subTask == null) {
+                super.removeSubTask(id);
+                return;
+            }
+
+            ReentrantLock lock = stripeFor(subTask.getEpicTaskId());
+            lock.lock();
+            try {
+                if (subTasksById.get(id) == subTask) {
+                    try {
+                        super.removeSubTask(id);
+                    } finally {
+                        publish(subTask.getEpicTaskId());
+                    }
+                    return;
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    @Override
+    protected int giveId() {
+        return idGenerator.getAndIncrement();
+    }
+
+    /**
+     * Слушатели, например поток событий SSE, получают копию эпика: сам эпик может
+     * меняться под блокировкой своей полосы, пока слушатель его сериализует.
+     */
+    @Override
+    protected void notifyListeners(TaskEventType type, Task task) {
+        super.notifyListeners(type, task instanceof EpicTask ? copyEpicTask((EpicTask) task) : task);
+    }
+
+    /**
+     * Публикует копию текущего состояния эпика для чтения без блокировок или
+     * убирает её, если эпик удалён. Вызывается под блокировкой полосы эпика.
+     */
+    private EpicTask publish(int epicTaskId) {
+        EpicTask epicTask = epicTasksById.get(epicTaskId);
+        if (epicTask == null) {
+            epicTaskSnapshots.remove(epicTaskId);
+            return null;
+        }
+
+        EpicTask snapshot = epicTask.copy();
+        epicTaskSnapshots.put(epicTaskId, snapshot);
+        return snapshot;
+    }
+
+    private List<EpicTask> copyEpicTasks(Collection<EpicTask> epicTasks) {
+        List<EpicTask> copies = new ArrayList<>(epicTasks.size());
+        for (EpicTask epicTask : epicTasks) {
+            copies.add(epicTask.copy());
+        }
+        return copies;
+    }
+
+    private EpicTask copyEpicTask(EpicTask epicTask) {
+        ReentrantLock lock = stripeFor(epicTask.getId());
+        lock.lock();
+        try {
+            return epicTask.copy();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private ReentrantLock stripeFor(int id) {
+        return stripes[stripeIndex(id)];
+    }
+
+    private int stripeIndex(int id) {
+        return Math.floorMod(id, stripes.length);
+    }
+
+    private void lockAll() {
+        for (ReentrantLock lock : stripes) {
+            lock.lock();
+        }
+    }
+
+    private void unlockAll() {
+        for (int i = stripes.length - 1; i >= 0; i--) {
+            stripes[i].unlock();
+        }
+    }
+}
@@ -1,31 +1,40 @@
 package service;
 
 import exception.ManagerIOException;
+import metrics.MetricsSource;
+import metrics.MetricsWriter;
 import model.EpicTask;
-import model.Status;
 import model.SubTask;
 import model.Task;
 import model.TaskType;
-import util.TaskToStringConverter;
+import storage.BinaryTaskStorage;
+import storage.CsvTaskStorage;
+import storage.LogSettings;
+import storage.LogTaskStorage;
+import storage.MappedTaskStorage;
+import storage.StorageMode;
+import storage.TaskStorage;
+import storage.TimedTaskStorage;
 
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.time.Duration;
-import java.time.LocalDateTime;
-import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
 import java.util.List;
 
-import static java.nio.file.StandardOpenOption.APPEND;
-
-public class FileBackedTaskManager extends InMemoryTaskManager {
-    private final Path filePath;
+/**
+ * Менеджер задач, который сохраняет каждое изменение в хранилище.
+ * Слушатели узнают об изменении только после того, как оно сохранено.
+ * Время операций хранилища доступно через {@link #writeMetrics(MetricsWriter)}.
+ */
+public class FileBackedTaskManager extends InMemoryTaskManager implements AutoCloseable, MetricsSource {
+    private final TimedTaskStorage storage;
+    private final ThreadLocal<List<TaskEvent>> pendingEvents = new ThreadLocal<>();
 
     public FileBackedTaskManager() {
-        this.filePath = Paths.get("resources/task.csv");
+        Path filePath = Paths.get("resources/task.csv");
 
         if (!Files.exists(filePath)) {
             try {
@@ -34,185 +43,295 @@ public class FileBackedTaskManager extends InMemoryTaskManager {
                 throw new ManagerIOException("Не смог создать файл " + filePath, exception);
             }
         }
+
+        this.storage = new TimedTaskStorage(createStorage(filePath, StorageMode.CSV, new LogSettings()));
+        storage.clear();
     }
 
     public FileBackedTaskManager(Path filePath) {
-        this.filePath = filePath;
+        this(filePath, StorageMode.CSV);
+    }
+
+    public FileBackedTaskManager(Path filePath, StorageMode mode) {
+        this(filePath, mode, new LogSettings());
+    }
+
+    /**
+     * Создаёт пустой менеджер. Задачи, сохранённые в файле раньше, не загружаются
+     * и будут перезаписаны; чтобы продолжить работу с ними, используйте
+     * {@link #loadFromFile(File, LogSettings)}.
+     */
+    public FileBackedTaskManager(Path filePath, StorageMode mode, LogSettings settings) {
+        this(filePath, mode, settings, false);
+    }
+
+    private FileBackedTaskManager(Path filePath, StorageMode mode, LogSettings settings, boolean load) {
+        this.storage = new TimedTaskStorage(createStorage(filePath, mode, settings));
+        if (load) {
+            restore(storage.load());
+        } else {
+            storage.clear();
+        }
     }
 
     @Override
     public Task createTask(Task task) {
-        super.createTask(task);
-        save();
+        storage.check(task);
+        saveAndNotify(() -> super.createTask(task), () -> storage.create(task));
         return task;
     }
 
     @Override
     public EpicTask createEpicTask(EpicTask epicTask) {
-        super.createEpicTask(epicTask);
-        save();
+        storage.check(epicTask);
+        saveAndNotify(() -> super.createEpicTask(epicTask), () -> storage.create(epicTask));
         return epicTask;
     }
 
     @Override
     public SubTask createSubTask(SubTask subTask) {
-        super.createSubTask(subTask);
-        save();
+        storage.check(subTask);
+        saveAndNotify(() -> super.createSubTask(subTask), () -> storage.create(subTask));
         return subTask;
     }
 
     @Override
     public Task updateTask(Task task) {
-        super.updateTask(task);
-        save();
+        storage.check(task);
+        saveAndNotify(() -> super.updateTask(task), () -> storage.update(task));
         return task;
     }
 
     @Override
     public EpicTask updateEpicTask(EpicTask epicTask) {
-        super.updateEpicTask(epicTask);
-        save();
+        storage.check(epicTask);
+        saveAndNotify(() -> super.updateEpicTask(epicTask), () -> storage.update(epicTask));
         return epicTask;
     }
 
     @Override
     public SubTask updateSubTask(SubTask subTask) {
-        super.updateSubTask(subTask);
-        save();
+        storage.check(subTask);
+        saveAndNotify(() -> super.updateSubTask(subTask), () -> storage.update(subTask));
         return subTask;
     }
 
+    /**
+     * Сохраняет в хранилище все успешно сохранённые задачи пакета одной операцией.
+     * Задачи, которые хранилище не может сохранить, отклоняются до изменения менеджера.
+     */
+    @Override
+    public List<BatchResult> applyBatch(List<? extends Task> tasks) {
+        BatchResult[] results = new BatchResult[tasks.size()];
+        List<Task> checkedTasks = new ArrayList<>();
+        List<Integer> checkedPositions = new ArrayList<>();
+        for (int i = 0; i < tasks.size(); i++) {
+            Task task = tasks.get(i);
+            try {
+                if (task != null) {
+                    storage.check(task);
+                }
+                checkedTasks.add(task);
+                checkedPositions.add(i);
+            } catch (ManagerIOException exception) {
+                results[i] = BatchResult.failure(task, exception);
+            }
+        }
+
+        List<BatchResult> checkedResults = new ArrayList<>();
+        saveAndNotify(() -> checkedResults.addAll(super.applyBatch(checkedTasks)), () -> {
+            List<Task> savedTasks = new ArrayList<>();
+            for (BatchResult result : checkedResults) {
+                if (result.isSuccess()) {
+                    savedTasks.add(result.getTask());
+                }
+            }
+            if (!savedTasks.isEmpty()) {
+                storage.updateAll(savedTasks);
+            }
+        });
+
+        for (int i = 0; i < checkedResults.size(); i++) {
+            results[checkedPositions.get(i)] = checkedResults.get(i);
+        }
+        return List.of(results);
+    }
+
     @Override
     public void removeAllTasks() {
-        super.removeAllTasks();
-        save();
+        saveAndNotify(super::removeAllTasks, () -> storage.removeAll(TaskType.TASK));
     }
 
     @Override
     public void removeAllEpicTasks() {
-        super.removeAllEpicTasks();
-        save();
+        saveAndNotify(super::removeAllEpicTasks, () -> storage.removeAll(TaskType.EPIC_TASK));
     }
 
     @Override
     public void removeAllSubTasks() {
-        super.removeAllSubTasks();
-        save();
+        saveAndNotify(super::removeAllSubTasks, () -> storage.removeAll(TaskType.SUB_TASK));
     }
 
     @Override
     public void removeTask(int id) {
-        super.removeTask(id);
-        save();
+        saveAndNotify(() -> super.removeTask(id), () -> storage.remove(List.of(id)));
     }
 
     @Override
     public void removeEpicTask(int id) {
-        super.removeEpicTask(id);
-        save();
+        EpicTask epicTask = epicTasksById.get(id);
+        List<Integer> removedIds = new ArrayList<>();
+        if (epicTask != null) {
+            removedIds.addAll(epicTask.getSubTasksIdView());
+        }
+        removedIds.add(id);
+
+        saveAndNotify(() -> super.removeEpicTask(id), () -> storage.remove(removedIds));
     }
 
     @Override
     public void removeSubTask(int id) {
-        super.removeSubTask(id);
-        save();
+        saveAndNotify(() -> super.removeSubTask(id), () -> storage.remove(List.of(id)));
     }
 
-    private void save() {
-        List<Task> tasks = new ArrayList<>();
-        tasks.addAll(getAllTasks());
-        tasks.addAll(getAllEpicTasks());
-        tasks.addAll(getAllSubTasks());
-
-        try {
-            Files.writeString(filePath, "id,type,title,status,description,epic,duration,startTime\n");
-            for (Task task : tasks) {
-                Files.writeString(filePath, TaskToStringConverter.toString(task) + "\n", APPEND);
-            }
-        } catch (IOException exception) {
-            throw new ManagerIOException("Ошибка записи в файл " + filePath, exception);
+    /**
+     * Пока изменение сохраняется, события откладываются и отправляются слушателям
+     * только после успешной записи в хранилище.
+     */
+    @Override
+    protected void notifyListeners(TaskEvent event) {
+        List<TaskEvent> events = pendingEvents.get();
+        if (events != null) {
+            events.add(event);
+        } else {
+            super.notifyListeners(event);
         }
     }
 
-    private void loadFromFile() {
-        List<String> strings;
-        int lastId = 0;
+    /**
+     * Сохраняет снимок всех задач и сокращает журнал изменений.
+     */
+    public void checkpoint() {
+        storage.checkpoint();
+    }
+
+    /**
+     * Дожидается записи всех изменений в хранилище.
+     */
+    public void flush() {
+        storage.flush();
+    }
+
+    /**
+     * Выгружает все задачи в файл CSV, удобный для чтения человеком,
+     * независимо от формата основного хранилища.
+     */
+    public void exportToCsv(Path filePath) {
+        CsvTaskStorage.write(filePath, getTasksForSave());
+    }
+
+    @Override
+    public void writeMetrics(MetricsWriter writer) {
+        storage.writeMetrics(writer);
+    }
+
+    @Override
+    public void close() {
+        storage.close();
+    }
 
+    /**
+     * Выполняет изменение в памяти и сохраняет его. События изменения получают
+     * слушатели только после успешного сохранения; если хранилище бросило исключение,
+     * события не отправляются.
+     */
+    private void saveAndNotify(Runnable change, Runnable save) {
+        if (pendingEvents.get() != null) {
+            change.run();
+            save.run();
+            return;
+        }
+
+        List<TaskEvent> events = new ArrayList<>();
+        pendingEvents.set(events);
         try {
-            strings = Files.readAllLines(filePath);
-        } catch (IOException exception) {
-            throw new ManagerIOException("Ошибка чтения из файла " + filePath, exception);
+            change.run();
+            save.run();
+        } finally {
+            pendingEvents.remove();
         }
+        events.forEach(super::notifyListeners);
+    }
 
-        strings.removeFirst();
+    private TaskStorage createStorage(Path filePath, StorageMode mode, LogSettings settings) {
+        switch (mode) {
+            case LOG:
+                return new LogTaskStorage(filePath, this::getTasksForSave, settings);
+            case BINARY:
+                return new BinaryTaskStorage(filePath, this::getTasksForSave);
+            case MAPPED:
+                return new MappedTaskStorage(filePath);
+            case CSV:
+            default:
+                return new CsvTaskStorage(filePath, this::getTasksForSave);
+        }
+    }
 
-        for (String string : strings) {
-            String[] taskData = string.split(",");
-            int id = Integer.parseInt(taskData[0]);
-            TaskType type = TaskType.valueOf(taskData[1]);
-            String title = taskData[2];
-            Status status = Status.valueOf(taskData[3]);
-            String description = taskData[4];
-            Duration duration;
-            LocalDateTime startTime;
-            int epicTaskId;
+    private List<Task> getTasksForSave() {
+        List<Task> tasks = new ArrayList<>();
+        tasks.addAll(tasksById.values());
+        tasks.addAll(epicTasksById.values());
+        tasks.addAll(subTasksById.values());
+        return tasks;
+    }
 
-            try {
-                startTime = LocalDateTime.parse(taskData[7]);
-                duration = Duration.ofMinutes(Long.parseLong(taskData[6]));
-            } catch (DateTimeParseException exception) {
-                startTime = null;
-                duration = null;
-            }
+    /**
+     * Восстанавливает состояние менеджера из сохранённых задач. Порядок задач
+     * не важен: подзадачи связываются с эпиками после того, как загружены все эпики.
+     */
+    private void restore(List<Task> tasks) {
+        int lastId = 0;
+        List<SubTask> subTasks = new ArrayList<>();
 
-            lastId = Math.max(id, lastId);
+        for (Task task : tasks) {
+            lastId = Math.max(task.getId(), lastId);
 
-            switch (type) {
+            switch (task.getType()) {
                 case TASK:
-                    Task task;
-                    if (startTime != null) {
-                        task = new Task(title, description, status, startTime, duration);
-                    } else {
-                        task = new Task(title, description, status);
-                    }
-
-                    task.setId(id);
-                    tasksById.put(id, task);
+                    tasksById.put(task.getId(), task);
                     break;
                 case EPIC_TASK:
-                    EpicTask epicTask = new EpicTask(title, description);
-                    epicTask.setId(id);
-                    epicTasksById.put(id, epicTask);
+                    epicTasksById.put(task.getId(), (EpicTask) task);
                     break;
                 case SUB_TASK:
-                    epicTaskId = Integer.parseInt(taskData[5]);
-
-                    SubTask subTask;
-                    if (startTime != null) {
-                        subTask = new SubTask(title, description, status, epicTaskId, startTime, duration);
-                        subTask.setId(id);
-                        epicTasksById.get(epicTaskId).addSubTaskId(id);
-                    } else {
-                        subTask = new SubTask(title, description, status, epicTaskId);
-                        subTask.setId(id);
-                        epicTasksById.get(epicTaskId).addSubTaskId(id);
-                    }
-
-                    subTasksById.put(id, subTask);
+                    subTasksById.put(task.getId(), (SubTask) task);
+                    subTasks.add((SubTask) task);
                     break;
             }
+
+            if (task.getType() != TaskType.EPIC_TASK && task.getStartTime() != null) {
+                prioritizedTasks.add(task);
+            }
         }
 
-        epicTasksById.keySet().stream()
-                .peek(this::updateEpicTaskTime)
-                .forEach(this::updateEpicTaskStatus);
+        for (SubTask subTask : subTasks) {
+            EpicTask epicTask = epicTasksById.get(subTask.getEpicTaskId());
+            if (epicTask == null) {
+                throw new ManagerIOException("Не найден эпик " + subTask.getEpicTaskId()
+                        + " для подзадачи " + subTask.getId());
+            }
+            epicTask.addSubTask(subTask);
+        }
 
         allTaskCount = lastId + 1;
     }
 
     public static FileBackedTaskManager loadFromFile(File file) {
-        FileBackedTaskManager taskManager = new FileBackedTaskManager(file.toPath());
-        taskManager.loadFromFile();
-        return taskManager;
+        return loadFromFile(file, new LogSettings());
+    }
+
+    public static FileBackedTaskManager loadFromFile(File file, LogSettings settings) {
+        Path filePath = file.toPath();
+        return new FileBackedTaskManager(filePath, StorageMode.of(filePath), settings, true);
     }
 }
@@ -10,4 +10,6 @@ public interface HistoryManager {
     List<Task> getHistory();
 
     void remove(int id);
+
+    int size();
 }
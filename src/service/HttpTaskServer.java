@@ -2,14 +2,20 @@ package service;
 
 import adapter.DurationAdapter;
 import adapter.LocalDataTimeAdapter;
+import adapter.TaskAdapterFactory;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpServer;
+import handler.BatchHttpHandler;
 import handler.EpicTaskHttpHandler;
+import handler.EventsHttpHandler;
 import handler.ErrorHandler;
 import handler.HistoryHttpHandler;
+import handler.MetricsHttpHandler;
 import handler.PrioritizedHttpHandler;
+import handler.ResponseCompression;
+import handler.Router;
 import handler.SubTaskHttpHandler;
 import handler.TaskHttpHandler;
 import util.Managers;
@@ -18,111 +24,113 @@ import java.io.IOException;
 import java.net.InetSocketAddress;
 import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 public class HttpTaskServer {
     public static final int PORT = 8080;
+    private static final Gson GSON = new GsonBuilder()
+            .registerTypeAdapterFactory(new TaskAdapterFactory())
+            .registerTypeAdapter(LocalDateTime.class, new LocalDataTimeAdapter())
+            .registerTypeAdapter(Duration.class, new DurationAdapter())
+            .create();
+
     private final HttpServer server;
+    private final int port;
+    private final ExecutorService executor;
     private final TaskManager taskManager;
-    private final ErrorHandler errorHandler;
     private final Gson gson;
-
-    private final TaskHttpHandler taskHandler;
-    private final EpicTaskHttpHandler epicTaskHandler;
-    private final SubTaskHttpHandler subTaskHandler;
-    private final HistoryHttpHandler historyHandler;
-    private final PrioritizedHttpHandler prioritizedHandler;
+    private final Router router;
+    private final EventsHttpHandler eventsHandler;
 
     public HttpTaskServer() {
-        this(Managers.getDefault());
+        this(Managers.getDefaultConcurrent(), new ServerSettings());
     }
 
+    /**
+     * Создаёт сервер, который выполняет все запросы в одном потоке, поэтому
+     * переданный менеджер задач не обязан быть потокобезопасным.
+     */
     public HttpTaskServer(TaskManager taskManager) {
+        this(taskManager, new ServerSettings().withExecutor(ServerExecutor.DISPATCHER));
+    }
+
+    public HttpTaskServer(TaskManager taskManager, ServerSettings settings) {
         this.taskManager = taskManager;
         this.gson = getGson();
-        this.errorHandler = new ErrorHandler(gson);
         try {
-            this.server = HttpServer.create(new InetSocketAddress("localhost", PORT), 0);
+            this.server = HttpServer.create(new InetSocketAddress(settings.getHost(), settings.getPort()),
+                    settings.getBacklog());
         } catch (IOException exception) {
             throw new RuntimeException("Ошибка запуска сервера", exception);
         }
-        this.taskHandler = new TaskHttpHandler(taskManager, gson);
-        this.epicTaskHandler = new EpicTaskHttpHandler(taskManager, gson);
-        this.subTaskHandler = new SubTaskHttpHandler(taskManager, gson);
-        this.historyHandler = new HistoryHttpHandler(taskManager, gson);
-        this.prioritizedHandler = new PrioritizedHttpHandler(taskManager, gson);
-
-        server.createContext("/tasks", this::taskHandler);
-        server.createContext("/subtasks", this::subTaskHandler);
-        server.createContext("/epics", this::epicsHandler);
-        server.createContext("/history", this::historyHandler);
-        server.createContext("/prioritized", this::prioritizedHandler);
-    }
-
-    private void taskHandler(HttpExchange exchange) {
-        try (exchange) {
-            try {
-                taskHandler.handle(exchange);
-            } catch (Exception exception) {
-                errorHandler.handle(exchange, exception);
-            }
-        }
-    }
-
-    private void subTaskHandler(HttpExchange exchange) {
-        try (exchange) {
-            try {
-                subTaskHandler.handle(exchange);
-            } catch (Exception exception) {
-                errorHandler.handle(exchange, exception);
-            }
-        }
+        this.port = server.getAddress().getPort();
+        this.executor = createExecutor(settings);
+        server.setExecutor(executor);
+        ResponseCompression compression = settings.getCompression();
+        this.router = new Router(new ErrorHandler(gson));
+        new TaskHttpHandler(taskManager, gson, compression).addRoutes(router, "/tasks");
+        new SubTaskHttpHandler(taskManager, gson, compression).addRoutes(router, "/subtasks");
+        new EpicTaskHttpHandler(taskManager, gson, compression).addRoutes(router, "/epics");
+        new HistoryHttpHandler(taskManager, gson, compression).addRoutes(router, "/history");
+        new PrioritizedHttpHandler(taskManager, gson, compression).addRoutes(router, "/prioritized");
+        new BatchHttpHandler(taskManager, gson, compression).addRoutes(router, "/batch");
+        new MetricsHttpHandler(taskManager, gson, compression, router).addRoutes(router, "/metrics");
+
+        server.createContext("/", this::handle);
+
+        this.eventsHandler = new EventsHttpHandler(gson, settings.getEventsBufferSize());
+        taskManager.addListener(eventsHandler);
+        server.createContext("/events", eventsHandler);
     }
 
-    private void epicsHandler(HttpExchange exchange) {
+    private void handle(HttpExchange exchange) {
         try (exchange) {
-            try {
-                epicTaskHandler.handle(exchange);
-            } catch (Exception exception) {
-                errorHandler.handle(exchange, exception);
-            }
+            router.route(exchange);
         }
     }
 
-    private void historyHandler(HttpExchange exchange) {
-        try (exchange) {
-            try {
-                historyHandler.handle(exchange);
-            } catch (Exception exception) {
-                errorHandler.handle(exchange, exception);
-            }
+    private static ExecutorService createExecutor(ServerSettings settings) {
+        switch (settings.getExecutor()) {
+            case FIXED_POOL:
+                return Executors.newFixedThreadPool(settings.getThreadsCount());
+            case VIRTUAL_THREADS:
+                return Executors.newVirtualThreadPerTaskExecutor();
+            case DISPATCHER:
+            default:
+                return null;
         }
     }
 
-    private void prioritizedHandler(HttpExchange exchange) {
-        try (exchange) {
-            try {
-                prioritizedHandler.handle(exchange);
-            } catch (Exception exception) {
-                errorHandler.handle(exchange, exception);
-            }
-        }
+    /**
+     * Возвращает общий для всех обработчиков экземпляр {@link Gson}. Он неизменяем
+     * и потокобезопасен, а адаптеры задач в нём создаются один раз.
+     */
+    public static Gson getGson() {
+        return GSON;
     }
 
-    public static Gson getGson() {
-        return new GsonBuilder()
-                .registerTypeAdapter(LocalDateTime.class, new LocalDataTimeAdapter())
-                .registerTypeAdapter(Duration.class, new DurationAdapter())
-                .create();
+    /**
+     * Возвращает порт, на котором сервер принимает соединения, в том числе выбранный
+     * системой, если в настройках указан порт {@code 0}.
+     */
+    public int getPort() {
+        return port;
     }
 
     public void start() {
-        System.out.println("Starting TaskServer on port " + PORT);
+        System.out.println("Starting TaskServer on port " + port);
         server.start();
     }
 
     public void stop() {
+        taskManager.removeListener(eventsHandler);
+        eventsHandler.close();
         server.stop(0);
-        System.out.println("Stopped TaskServer on port " + PORT);
+        if (executor != null) {
+            executor.shutdown();
+        }
+        System.out.println("Stopped TaskServer on port " + port);
     }
 
     public static void main(String[] args) {
@@ -42,6 +42,11 @@ public class InMemoryHistoryManager implements HistoryManager {
         }
     }
 
+    @Override
+    public int size() {
+        return history.size();
+    }
+
     private Node linkLast(Task task) {
         Node oldTail = tail;
         Node newNode = new Node(task, null, oldTail);
@@ -3,36 +3,62 @@ package service;
 import exception.NotFoundException;
 import exception.ValidationException;
 import model.EpicTask;
-import model.Status;
 import model.SubTask;
 import model.Task;
+import model.TaskType;
 import util.Managers;
-import util.TasksStartTimeComparator;
+import util.TaskTimeIndex;
 
-import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.EnumSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
 import java.util.Set;
-import java.util.TreeSet;
+import java.util.TreeMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
 
 
 public class InMemoryTaskManager implements TaskManager {
     protected int allTaskCount = 1;
-    protected final Map<Integer, Task> tasksById;
-    protected final Map<Integer, EpicTask> epicTasksById;
-    protected final Map<Integer, SubTask> subTasksById;
-    protected final Set<Task> prioritizedTasks;
+    protected final NavigableMap<Integer, Task> tasksById;
+    protected final NavigableMap<Integer, EpicTask> epicTasksById;
+    protected final NavigableMap<Integer, SubTask> subTasksById;
+    protected final TaskTimeIndex prioritizedTasks;
     protected final HistoryManager historyManager;
+    private final AtomicLong[] versions = new AtomicLong[TaskType.values().length];
+    private final List<TaskListener> listeners = new CopyOnWriteArrayList<>();
 
     public InMemoryTaskManager() {
-        this.tasksById = new HashMap<>();
-        this.epicTasksById = new HashMap<>();
-        this.subTasksById = new HashMap<>();
-        this.prioritizedTasks = new TreeSet<>(new TasksStartTimeComparator());
-        this.historyManager = Managers.getDefaultHistory();
+        this(Managers.getDefaultHistory());
+    }
+
+    public InMemoryTaskManager(HistoryManager historyManager) {
+        this(new TreeMap<>(), new TreeMap<>(), new TreeMap<>(), new TaskTimeIndex(), historyManager);
+    }
+
+    /**
+     * Задачи хранятся в картах, упорядоченных по id, чтобы страница выборки
+     * начиналась сразу после курсора.
+     */
+    protected InMemoryTaskManager(NavigableMap<Integer, Task> tasksById,
+                                  NavigableMap<Integer, EpicTask> epicTasksById,
+                                  NavigableMap<Integer, SubTask> subTasksById,
+                                  TaskTimeIndex prioritizedTasks,
+                                  HistoryManager historyManager) {
+        this.tasksById = tasksById;
+        this.epicTasksById = epicTasksById;
+        this.subTasksById = subTasksById;
+        this.prioritizedTasks = prioritizedTasks;
+        this.historyManager = historyManager;
+        for (int i = 0; i < versions.length; i++) {
+            versions[i] = new AtomicLong();
+        }
     }
 
     @Override
@@ -55,7 +81,7 @@ public class InMemoryTaskManager implements TaskManager {
         EpicTask epicTask = epicTasksById.get(epicTaskId);
 
         if (epicTask != null) {
-            return epicTask.getSubTasksId().stream()
+            return epicTask.getSubTasksIdView().stream()
                     .map(subTasksById::get)
                     .toList();
         } else {
@@ -65,7 +91,49 @@ public class InMemoryTaskManager implements TaskManager {
 
     @Override
     public List<Task> getPrioritizedTasks() {
-        return prioritizedTasks.stream().toList();
+        return prioritizedTasks.toList();
+    }
+
+    @Override
+    public List<Task> findTasks(TaskQuery query) {
+        return findPage(tasksById, query);
+    }
+
+    @Override
+    public List<EpicTask> findEpicTasks(TaskQuery query) {
+        return findPage(epicTasksById, query);
+    }
+
+    @Override
+    public List<SubTask> findSubTasks(TaskQuery query) {
+        return findPage(subTasksById, query);
+    }
+
+    @Override
+    public List<Task> findPrioritizedTasks(TaskQuery query) {
+        LocalDateTime from = query.getFrom();
+        LocalDateTime afterStartTime = query.getAfterStartTime();
+
+        Iterable<Task> tasks;
+        if (afterStartTime != null && (from == null || !afterStartTime.isBefore(from))) {
+            tasks = prioritizedTasks.tailFrom(afterStartTime, query.getAfterId(), false);
+        } else {
+            tasks = prioritizedTasks.tailFrom(from, Integer.MIN_VALUE, true);
+        }
+
+        List<Task> page = new ArrayList<>();
+        for (Task task : tasks) {
+            if (query.getTo() != null && !task.getStartTime().isBefore(query.getTo())) {
+                break;
+            }
+            if (query.matches(task)) {
+                page.add(task);
+                if (page.size() == query.getLimit()) {
+                    break;
+                }
+            }
+        }
+        return page;
     }
 
     @Override
@@ -105,75 +173,42 @@ public class InMemoryTaskManager implements TaskManager {
 
     @Override
     public Task createTask(Task task) {
-        int taskId = giveId();
-        task.setId(taskId);
-
-        if (task.getStartTime() != null) {
-            if (getPrioritizedTasks().stream().noneMatch((savedTask -> isTimeIntersection(task, savedTask)))) {
-                prioritizedTasks.add(task);
-            } else {
-                throw new ValidationException("Пересечение по времени у задачи " + task.getId());
-            }
-        }
-
-        tasksById.put(taskId, task);
+        addTask(task);
+        incrementVersion(TaskType.TASK);
+        notifyListeners(TaskEventType.CREATED, task);
         return task;
     }
 
     @Override
     public EpicTask createEpicTask(EpicTask epicTask) {
-        int taskId = giveId();
-        epicTask.setId(taskId);
-        epicTasksById.put(taskId, epicTask);
+        addEpicTask(epicTask);
+        incrementVersion(TaskType.EPIC_TASK);
+        notifyListeners(TaskEventType.CREATED, epicTask);
         return epicTask;
     }
 
     @Override
     public SubTask createSubTask(SubTask subTask) {
-        int taskId = giveId();
-        subTask.setId(taskId);
-
-        if (subTask.getStartTime() != null) {
-            if (getPrioritizedTasks().stream().noneMatch((savedTask -> isTimeIntersection(subTask, savedTask)))) {
-                prioritizedTasks.add(subTask);
-            } else {
-                throw new ValidationException("Пересечение по времени у подзадачи " + subTask.getId());
-            }
-        }
-
-        subTasksById.put(taskId, subTask);
-
-        EpicTask epicTask = epicTasksById.get(subTask.getEpicTaskId());
-        if (epicTask == null) {
-            throw new NotFoundException("Не найден эпик: " + subTask.getEpicTaskId());
-        }
-        epicTask.addSubTaskId(subTask.getId());
-        updateEpicTaskTime(epicTask.getId());
-        updateEpicTaskStatus(epicTask.getId());
-
+        addSubTask(subTask, null);
+        incrementVersion(TaskType.SUB_TASK, TaskType.EPIC_TASK);
+        notifyListeners(TaskEventType.CREATED, subTask);
+        notifyEpicTaskUpdated(subTask.getEpicTaskId());
         return subTask;
     }
 
     @Override
     public Task updateTask(Task task) {
-        Task oldTask = tasksById.get(task.getId());
-
-        if (task.getStartTime() != null) {
-            if (isValidateTime(task)) {
-                prioritizedTasks.remove(oldTask);
-                prioritizedTasks.add(task);
-            } else {
-                throw new ValidationException("Пересечение по времени у задачи " + task.getId());
-            }
-        }
-
-        tasksById.put(task.getId(), task);
+        putTask(task);
+        incrementVersion(TaskType.TASK);
+        notifyListeners(TaskEventType.UPDATED, task);
         return task;
     }
 
     @Override
     public EpicTask updateEpicTask(EpicTask epicTask) {
-        epicTasksById.put(epicTask.getId(), epicTask);
+        putEpicTask(epicTask, null);
+        incrementVersion(TaskType.EPIC_TASK);
+        notifyListeners(TaskEventType.UPDATED, epicTask);
         return epicTask;
     }
 
@@ -181,63 +216,91 @@ public class InMemoryTaskManager implements TaskManager {
     public SubTask updateSubTask(SubTask subTask) {
         SubTask oldSubTask = subTasksById.get(subTask.getId());
 
-        if (subTask.getStartTime() != null) {
-            if (isValidateTime(subTask)) {
-                prioritizedTasks.remove(oldSubTask);
-                prioritizedTasks.add(subTask);
-            } else {
-                throw new ValidationException("Пересечение по времени у подзадачи " + subTask.getId());
+        if (putSubTask(subTask, null)) {
+            incrementVersion(TaskType.SUB_TASK, TaskType.EPIC_TASK);
+            notifyListeners(TaskEventType.UPDATED, subTask);
+            notifyEpicTaskUpdated(subTask.getEpicTaskId());
+            if (!oldSubTask.getEpicTaskId().equals(subTask.getEpicTaskId())) {
+                notifyEpicTaskUpdated(oldSubTask.getEpicTaskId());
             }
+        } else {
+            incrementVersion(TaskType.SUB_TASK);
+            notifyListeners(TaskEventType.UPDATED, subTask);
         }
+        return subTask;
+    }
 
-        subTasksById.put(subTask.getId(), subTask);
+    /**
+     * Создаёт задачи с id {@code 0} и обновляет остальные за один проход. Задача,
+     * которую не удалось сохранить, не мешает остальным. Эпики, затронутые
+     * подзадачами, пересчитываются один раз в конце, а версии коллекций
+     * увеличиваются один раз на весь пакет.
+     */
+    @Override
+    public List<BatchResult> applyBatch(List<? extends Task> tasks) {
+        List<BatchResult> results = new ArrayList<>(tasks.size());
+        Set<Integer> staleEpicTaskIds = new LinkedHashSet<>();
+        Set<TaskType> changedTypes = EnumSet.noneOf(TaskType.class);
+        List<TaskEvent> events = new ArrayList<>();
+
+        for (Task task : tasks) {
+            if (task == null) {
+                results.add(BatchResult.failure(null, new ValidationException("Пустая задача в пакете")));
+                continue;
+            }
 
-        EpicTask epicTask = epicTasksById.get(subTask.getEpicTaskId());
-        if (epicTask == null) {
-            throw new NotFoundException("Не найден эпик: " + subTask.getEpicTaskId());
+            try {
+                TaskEventType eventType = task.getId() == 0 ? TaskEventType.CREATED : TaskEventType.UPDATED;
+                applyBatchTask(task, staleEpicTaskIds);
+                results.add(BatchResult.success(task));
+                changedTypes.add(task.getType());
+                events.add(new TaskEvent(eventType, task));
+            } catch (NotFoundException | ValidationException exception) {
+                results.add(BatchResult.failure(task, exception));
+            }
         }
-        updateEpicTaskStatus(epicTask.getId());
-        updateEpicTaskTime(epicTask.getId());
-        return subTask;
+
+        for (int epicTaskId : staleEpicTaskIds) {
+            EpicTask epicTask = epicTasksById.get(epicTaskId);
+            if (epicTask != null) {
+                recalculateEpicTask(epicTask);
+                events.add(new TaskEvent(TaskEventType.UPDATED, epicTask));
+            }
+        }
+
+        if (changedTypes.contains(TaskType.SUB_TASK)) {
+            changedTypes.add(TaskType.EPIC_TASK);
+        }
+        incrementVersion(changedTypes.toArray(new TaskType[0]));
+        events.forEach(this::notifyListeners);
+        return results;
     }
 
     @Override
     public void removeAllTasks() {
-        tasksById.keySet().stream()
-                .peek(historyManager::remove)
-                .forEach(id -> prioritizedTasks.remove(tasksById.get(id)));
-
-        tasksById.clear();
+        removeAll(tasksById);
+        incrementVersion(TaskType.TASK);
+        notifyListeners(new TaskEvent(TaskEventType.CLEARED, TaskType.TASK));
     }
 
     @Override
     public void removeAllEpicTasks() {
-        epicTasksById.keySet().stream()
-                .forEach(historyManager::remove);
-
-        subTasksById.keySet().stream()
-                .peek(historyManager::remove)
-                .forEach(id -> prioritizedTasks.remove(subTasksById.get(id)));
-
-        epicTasksById.clear();
-        subTasksById.clear();
+        removeAll(subTasksById);
+        removeAll(epicTasksById);
+        incrementVersion(TaskType.EPIC_TASK, TaskType.SUB_TASK);
+        notifyListeners(new TaskEvent(TaskEventType.CLEARED, TaskType.SUB_TASK));
+        notifyListeners(new TaskEvent(TaskEventType.CLEARED, TaskType.EPIC_TASK));
     }
 
     @Override
     public void removeAllSubTasks() {
-        for (SubTask subTask : subTasksById.values()) {
-
-            EpicTask epicTask = epicTasksById.get(subTask.getEpicTaskId());
-
-            epicTask.removeSubTask(subTask.getId());
-            updateEpicTaskStatus(epicTask.getId());
-            updateEpicTaskTime(epicTask.getId());
-
-            historyManager.remove(subTask.getId());
-            prioritizedTasks.remove(subTask);
+        removeAll(subTasksById);
+        epicTasksById.values().forEach(EpicTask::clearSubTasks);
+        incrementVersion(TaskType.SUB_TASK, TaskType.EPIC_TASK);
+        notifyListeners(new TaskEvent(TaskEventType.CLEARED, TaskType.SUB_TASK));
+        for (EpicTask epicTask : epicTasksById.values()) {
+            notifyListeners(TaskEventType.UPDATED, epicTask);
         }
-
-        subTasksById.clear();
     }
 
     @Override
@@ -247,6 +310,8 @@ public class InMemoryTaskManager implements TaskManager {
         if (task != null) {
             historyManager.remove(id);
             prioritizedTasks.remove(task);
+            incrementVersion(TaskType.TASK);
+            notifyListeners(TaskEventType.REMOVED, task);
         } else {
             throw new NotFoundException("Не найдена задача для удаления, id = " + id);
         }
@@ -258,9 +323,20 @@ public class InMemoryTaskManager implements TaskManager {
         historyManager.remove(id);
 
         if (epicTask != null) {
-            epicTask.getSubTasksId().stream()
-                    .peek(subTaskId -> prioritizedTasks.remove(subTasksById.remove(subTaskId)))
-                    .forEach(historyManager::remove);
+            List<SubTask> removedSubTasks = new ArrayList<>();
+            for (int subTaskId : epicTask.getSubTasksIdView()) {
+                SubTask subTask = subTasksById.remove(subTaskId);
+                prioritizedTasks.remove(subTask);
+                historyManager.remove(subTaskId);
+                if (subTask != null) {
+                    removedSubTasks.add(subTask);
+                }
+            }
+            incrementVersion(TaskType.EPIC_TASK, TaskType.SUB_TASK);
+            for (SubTask subTask : removedSubTasks) {
+                notifyListeners(TaskEventType.REMOVED, subTask);
+            }
+            notifyListeners(TaskEventType.REMOVED, epicTask);
         } else {
             throw new NotFoundException("Не эпик для удаления, id = " + id);
         }
@@ -272,115 +348,281 @@ public class InMemoryTaskManager implements TaskManager {
 
         if (subTask != null) {
             EpicTask epicTask = epicTasksById.get(subTask.getEpicTaskId());
-            epicTask.removeSubTask(subTask.getId());
-            updateEpicTaskStatus(epicTask.getId());
-            updateEpicTaskTime(epicTask.getId());
+            epicTask.removeSubTask(subTask);
             historyManager.remove(id);
             prioritizedTasks.remove(subTask);
+            incrementVersion(TaskType.SUB_TASK, TaskType.EPIC_TASK);
+            notifyListeners(TaskEventType.REMOVED, subTask);
+            notifyListeners(TaskEventType.UPDATED, epicTask);
         } else {
             throw new NotFoundException("Не найдена подзадача для удаления, id = " + id);
         }
     }
 
+    @Override
+    public long getVersion(TaskType type) {
+        return versions[type.ordinal()].get();
+    }
 
-    private int giveId() {
-        int id = allTaskCount;
-        allTaskCount++;
-        return id;
+    @Override
+    public int getTasksCount(TaskType type) {
+        switch (type) {
+            case EPIC_TASK:
+                return epicTasksById.size();
+            case SUB_TASK:
+                return subTasksById.size();
+            case TASK:
+            default:
+                return tasksById.size();
+        }
     }
 
-    protected void updateEpicTaskStatus(int id) {
-        EpicTask epicTask = epicTasksById.get(id);
-        List<Integer> subTasksIdList = epicTask.getSubTasksId();
+    @Override
+    public int getPrioritizedTasksCount() {
+        return prioritizedTasks.size();
+    }
 
-        if (subTasksIdList.isEmpty()) {
-            epicTask.setStatus(Status.NEW);
-            return;
-        }
+    @Override
+    public int getHistorySize() {
+        return historyManager.size();
+    }
 
-        boolean allSubTasksIsNew = true;
-        boolean allSubTasksIsDone = true;
+    @Override
+    public void addListener(TaskListener listener) {
+        listeners.add(listener);
+    }
 
-        for (int subTaskId : subTasksIdList) {
-            Status subTaskStatus = subTasksById.get(subTaskId).getStatus();
+    @Override
+    public void removeListener(TaskListener listener) {
+        listeners.remove(listener);
+    }
 
-            if (Status.NEW.equals(subTaskStatus) && allSubTasksIsNew) {
-                allSubTasksIsDone = false;
-            } else if (Status.DONE.equals(subTaskStatus) && allSubTasksIsDone) {
-                allSubTasksIsNew = false;
-            } else {
-                allSubTasksIsNew = false;
-                allSubTasksIsDone = false;
-                break;
+    protected void notifyListeners(TaskEventType type, Task task) {
+        if (!listeners.isEmpty()) {
+            notifyListeners(new TaskEvent(type, task));
+        }
+    }
+
+    /**
+     * Сообщает событие всем слушателям. Ошибка одного слушателя не мешает
+     * остальным и не отменяет уже выполненное изменение.
+     */
+    protected void notifyListeners(TaskEvent event) {
+        for (TaskListener listener : listeners) {
+            try {
+                listener.onTaskEvent(event);
+            } catch (RuntimeException exception) {
+                exception.printStackTrace();
             }
         }
+    }
 
-        if (allSubTasksIsNew) {
-            epicTask.setStatus(Status.NEW);
-        } else if (allSubTasksIsDone) {
-            epicTask.setStatus(Status.DONE);
-        } else {
-            epicTask.setStatus(Status.IN_PROGRESS);
+    private void notifyEpicTaskUpdated(int epicTaskId) {
+        EpicTask epicTask = epicTasksById.get(epicTaskId);
+        if (epicTask != null) {
+            notifyListeners(TaskEventType.UPDATED, epicTask);
         }
+    }
 
+    /**
+     * Выбирает страницу, обходя задачи по возрастанию id сразу после курсора,
+     * пока не наберётся {@code limit} подходящих. Страница не проходит по задачам
+     * до курсора и после последней подходящей.
+     */
+    protected static <T extends Task> List<T> findPage(NavigableMap<Integer, T> tasksById, TaskQuery query) {
+        List<T> page = new ArrayList<>(Math.min(query.getLimit(), tasksById.size()));
+        for (T task : tasksById.tailMap(query.getAfterId(), false).values()) {
+            if (query.matches(task)) {
+                page.add(task);
+                if (page.size() == query.getLimit()) {
+                    break;
+                }
+            }
+        }
+        return page;
     }
 
-    protected void updateEpicTaskTime(int id) {
-        EpicTask epicTask = epicTasksById.get(id);
-        List<Integer> subTasksIdList = epicTask.getSubTasksId();
+    private void applyBatchTask(Task task, Set<Integer> staleEpicTaskIds) {
+        switch (task.getType()) {
+            case TASK:
+                if (task.getId() == 0) {
+                    addTask(task);
+                } else {
+                    putTask(task);
+                }
+                break;
+            case EPIC_TASK:
+                if (task.getId() == 0) {
+                    addEpicTask((EpicTask) task);
+                } else {
+                    putEpicTask((EpicTask) task, staleEpicTaskIds);
+                }
+                break;
+            case SUB_TASK:
+                if (task.getId() == 0) {
+                    addSubTask((SubTask) task, staleEpicTaskIds);
+                } else {
+                    putSubTask((SubTask) task, staleEpicTaskIds);
+                }
+                break;
+        }
+    }
+
+    private void addTask(Task task) {
+        int taskId = giveId();
+        task.setId(taskId);
 
-        if (subTasksIdList.isEmpty()) {
-            return;
+        if (task.getStartTime() != null) {
+            if (!prioritizedTasks.addIfNoIntersection(task)) {
+                throw new ValidationException("Пересечение по времени у задачи " + task.getId());
+            }
         }
 
-        Duration sumDuration = Duration.ZERO;
-        LocalDateTime epicStartTime = LocalDateTime.MAX;
-        LocalDateTime epicEndTime = LocalDateTime.MIN;
+        tasksById.put(taskId, task);
+    }
+
+    private void addEpicTask(EpicTask epicTask) {
+        int taskId = giveId();
+        epicTask.setId(taskId);
+        epicTasksById.put(taskId, epicTask);
+    }
 
-        for (Integer subTaskId : subTasksIdList) {
-            SubTask subTask = subTasksById.get(subTaskId);
+    /**
+     * Сохраняет новую подзадачу. Если передан {@code staleEpicTaskIds}, эпик не пересчитывается
+     * сразу: его id добавляется в набор, чтобы пересчитать эпик один раз после всех изменений.
+     */
+    private void addSubTask(SubTask subTask, Set<Integer> staleEpicTaskIds) {
+        int taskId = giveId();
+        subTask.setId(taskId);
 
-            if (subTask.getStartTime() == null) {
-                continue;
+        if (subTask.getStartTime() != null) {
+            if (!prioritizedTasks.addIfNoIntersection(subTask)) {
+                throw new ValidationException("Пересечение по времени у подзадачи " + subTask.getId());
             }
+        }
+
+        EpicTask epicTask = epicTasksById.get(subTask.getEpicTaskId());
+        if (epicTask == null) {
+            prioritizedTasks.remove(subTask);
+            throw new NotFoundException("Не найден эпик: " + subTask.getEpicTaskId());
+        }
+
+        subTasksById.put(taskId, subTask);
+        if (staleEpicTaskIds == null) {
+            epicTask.addSubTask(subTask);
+        } else {
+            epicTask.addSubTaskId(taskId);
+            staleEpicTaskIds.add(epicTask.getId());
+        }
+    }
+
+    private void putTask(Task task) {
+        Task oldTask = tasksById.get(task.getId());
 
-            if (subTask.getStartTime().isBefore(epicStartTime)) {
-                epicStartTime = subTask.getStartTime();
+        if (task.getStartTime() != null) {
+            if (!prioritizedTasks.replaceIfNoIntersection(oldTask, task)) {
+                throw new ValidationException("Пересечение по времени у задачи " + task.getId());
             }
+        }
+
+        tasksById.put(task.getId(), task);
+    }
+
+    private void putEpicTask(EpicTask epicTask, Set<Integer> staleEpicTaskIds) {
+        epicTasksById.put(epicTask.getId(), epicTask);
+        if (staleEpicTaskIds == null) {
+            recalculateEpicTask(epicTask);
+        } else {
+            staleEpicTaskIds.add(epicTask.getId());
+        }
+    }
+
+    /**
+     * Сохраняет изменённую подзадачу и обновляет её эпики, как {@link #addSubTask(SubTask, Set)}.
+     *
+     * @return {@code false}, если подзадачи с таким id не было и эпики не изменились
+     */
+    private boolean putSubTask(SubTask subTask, Set<Integer> staleEpicTaskIds) {
+        SubTask oldSubTask = subTasksById.get(subTask.getId());
+
+        EpicTask epicTask = epicTasksById.get(subTask.getEpicTaskId());
+        if (epicTask == null) {
+            throw new NotFoundException("Не найден эпик: " + subTask.getEpicTaskId());
+        }
 
-            if (subTask.getEndTime().isAfter(epicEndTime)) {
-                epicEndTime = subTask.getEndTime();
+        if (subTask.getStartTime() != null) {
+            if (!prioritizedTasks.replaceIfNoIntersection(oldSubTask, subTask)) {
+                throw new ValidationException("Пересечение по времени у подзадачи " + subTask.getId());
             }
+        }
+
+        subTasksById.put(subTask.getId(), subTask);
+
+        if (oldSubTask == null) {
+            return false;
+        }
+
+        EpicTask oldEpicTask = oldSubTask.getEpicTaskId().equals(subTask.getEpicTaskId())
+                ? epicTask
+                : epicTasksById.get(oldSubTask.getEpicTaskId());
 
-            sumDuration = sumDuration.plus(subTask.getDuration());
+        if (staleEpicTaskIds != null) {
+            if (oldEpicTask != epicTask && oldEpicTask != null) {
+                oldEpicTask.removeSubTask(oldSubTask.getId());
+                staleEpicTaskIds.add(oldEpicTask.getId());
+            }
+            epicTask.addSubTaskId(subTask.getId());
+            staleEpicTaskIds.add(epicTask.getId());
+        } else if (oldSubTask == subTask) {
+            recalculateEpicTask(epicTask);
+        } else if (oldEpicTask == epicTask) {
+            epicTask.replaceSubTask(oldSubTask, subTask);
+        } else {
+            if (oldEpicTask != null) {
+                oldEpicTask.removeSubTask(oldSubTask);
+            }
+            epicTask.addSubTask(subTask);
         }
+        return true;
+    }
 
-        if (epicStartTime.equals(LocalDateTime.MAX)) {
-            return;
+    /**
+     * Удаляет задачи по одной, а не очищает коллекцию целиком. Так задача, созданная
+     * параллельно без блокировки, либо удаляется вместе с её местом в индексе по времени,
+     * либо остаётся целиком.
+     */
+    private void removeAll(Map<Integer, ? extends Task> tasks) {
+        Iterator<? extends Task> iterator = tasks.values().iterator();
+        while (iterator.hasNext()) {
+            Task task = iterator.next();
+            iterator.remove();
+            historyManager.remove(task.getId());
+            prioritizedTasks.remove(task);
         }
+    }
 
-        epicTask.setStartTime(epicStartTime);
-        epicTask.setDuration(sumDuration);
-        epicTask.setEndTime(epicEndTime);
+    protected int giveId() {
+        int id = allTaskCount;
+        allTaskCount++;
+        return id;
     }
 
-    private boolean isValidateTime(Task task) {
-        return getPrioritizedTasks().stream()
-                .filter(savedTask -> !task.equals(savedTask))
-                .noneMatch(savedTask -> {
-                    return isTimeIntersection(savedTask, task);
-                });
+    /**
+     * Увеличивает версии коллекций после успешного изменения. Изменение подзадачи
+     * меняет и её эпик: статус и время эпика вычисляются по подзадачам.
+     */
+    protected void incrementVersion(TaskType... types) {
+        for (TaskType type : types) {
+            versions[type.ordinal()].incrementAndGet();
+        }
     }
 
-    private boolean isTimeIntersection(Task task1, Task task2) {
-        LocalDateTime startTime1 = task1.getStartTime();
-        LocalDateTime endTime1 = task1.getEndTime();
-        LocalDateTime startTime2 = task2.getStartTime();
-        LocalDateTime endTime2 = task2.getEndTime();
+    protected void recalculateEpicTask(EpicTask epicTask) {
+        List<SubTask> subTasks = epicTask.getSubTasksIdView().stream()
+                .map(subTasksById::get)
+                .filter(Objects::nonNull)
+                .toList();
 
-        return startTime1.equals(startTime2) ||
-                endTime1.equals(endTime2) ||
-                (startTime1.isAfter(startTime2) && startTime1.isBefore(endTime2)) ||
-                (startTime1.isBefore(startTime2) && endTime1.isAfter(startTime2));
+        epicTask.recalculate(subTasks);
     }
 }
@@ -0,0 +1,20 @@
+package service;
+
+/**
+ * Способ выполнения запросов в {@link HttpTaskServer}.
+ */
+public enum ServerExecutor {
+    /**
+     * Все запросы выполняются в одном потоке-диспетчере {@code HttpServer}.
+     * Подходит для менеджера задач, который не рассчитан на многопоточность.
+     */
+    DISPATCHER,
+    /**
+     * Запросы выполняются в пуле из {@link ServerSettings#getThreadsCount()} потоков.
+     */
+    FIXED_POOL,
+    /**
+     * Каждый запрос выполняется в отдельном виртуальном потоке.
+     */
+    VIRTUAL_THREADS
+}
@@ -0,0 +1,133 @@
+package service;
+
+import handler.ResponseCompression;
+
+import java.util.zip.Deflater;
+
+/**
+ * Настройки {@link HttpTaskServer}.
+ * <p>
+ * При любом исполнителе, кроме {@link ServerExecutor#DISPATCHER}, запросы обрабатываются
+ * параллельно, поэтому менеджер задач должен быть потокобезопасным, например
+ * {@link ConcurrentTaskManager}.
+ */
+public class ServerSettings {
+    public static final String DEFAULT_HOST = "localhost";
+    public static final int DEFAULT_BACKLOG = 0;
+    public static final int DEFAULT_EVENTS_BUFFER_SIZE = 256;
+
+    private final String host;
+    private final int port;
+    private final ServerExecutor executor;
+    private final int threadsCount;
+    private final int backlog;
+    private final ResponseCompression compression;
+    private final int eventsBufferSize;
+
+    public ServerSettings() {
+        this(DEFAULT_HOST, HttpTaskServer.PORT, ServerExecutor.VIRTUAL_THREADS,
+                Runtime.getRuntime().availableProcessors(), DEFAULT_BACKLOG,
+                new ResponseCompression(ResponseCompression.DEFAULT_THRESHOLD, Deflater.DEFAULT_COMPRESSION),
+                DEFAULT_EVENTS_BUFFER_SIZE);
+    }
+
+    private ServerSettings(String host, int port, ServerExecutor executor, int threadsCount, int backlog,
+                           ResponseCompression compression, int eventsBufferSize) {
+        if (port < 0 || port > 65535) {
+            throw new IllegalArgumentException("Неверный номер порта: " + port);
+        }
+        if (threadsCount <= 0) {
+            throw new IllegalArgumentException("Количество потоков должно быть положительным: " + threadsCount);
+        }
+        if (backlog < 0) {
+            throw new IllegalArgumentException("Размер очереди соединений не может быть отрицательным: " + backlog);
+        }
+        if (eventsBufferSize <= 0) {
+            throw new IllegalArgumentException("Размер буфера событий должен быть положительным: " + eventsBufferSize);
+        }
+        this.host = host;
+        this.port = port;
+        this.executor = executor;
+        this.threadsCount = threadsCount;
+        this.backlog = backlog;
+        this.compression = compression;
+        this.eventsBufferSize = eventsBufferSize;
+    }
+
+    /**
+     * Адрес, на котором сервер принимает соединения, например {@code 0.0.0.0} для всех интерфейсов.
+     */
+    public String getHost() {
+        return host;
+    }
+
+    /**
+     * Порт сервера. {@code 0} — любой свободный порт, его можно узнать через {@link HttpTaskServer#getPort()}.
+     */
+    public int getPort() {
+        return port;
+    }
+
+    public ServerExecutor getExecutor() {
+        return executor;
+    }
+
+    /**
+     * Размер пула для {@link ServerExecutor#FIXED_POOL}.
+     */
+    public int getThreadsCount() {
+        return threadsCount;
+    }
+
+    /**
+     * Максимальное количество ожидающих входящих соединений. {@code 0} — значение по умолчанию системы.
+     */
+    public int getBacklog() {
+        return backlog;
+    }
+
+    /**
+     * Сжатие ответов gzip или deflate, если клиент указал их в {@code Accept-Encoding}.
+     */
+    public ResponseCompression getCompression() {
+        return compression;
+    }
+
+    /**
+     * Сколько событий {@code /events} может ждать отправки одному клиенту.
+     * Клиент, отставший сильнее, отключается.
+     */
+    public int getEventsBufferSize() {
+        return eventsBufferSize;
+    }
+
+    public ServerSettings withAddress(String host, int port) {
+        return new ServerSettings(host, port, executor, threadsCount, backlog, compression, eventsBufferSize);
+    }
+
+    public ServerSettings withExecutor(ServerExecutor executor) {
+        return new ServerSettings(host, port, executor, threadsCount, backlog, compression, eventsBufferSize);
+    }
+
+    public ServerSettings withThreadsCount(int threadsCount) {
+        return new ServerSettings(host, port, executor, threadsCount, backlog, compression, eventsBufferSize);
+    }
+
+    public ServerSettings withBacklog(int backlog) {
+        return new ServerSettings(host, port, executor, threadsCount, backlog, compression, eventsBufferSize);
+    }
+
+    /**
+     * @param threshold минимальный размер ответа в байтах, который сжимается
+     * @param level     уровень сжатия от {@link Deflater#BEST_SPEED} до {@link Deflater#BEST_COMPRESSION};
+     *                  {@link Deflater#NO_COMPRESSION} отключает сжатие
+     */
+    public ServerSettings withCompression(int threshold, int level) {
+        return new ServerSettings(host, port, executor, threadsCount, backlog,
+                new ResponseCompression(threshold, level), eventsBufferSize);
+    }
+
+    public ServerSettings withEventsBufferSize(int eventsBufferSize) {
+        return new ServerSettings(host, port, executor, threadsCount, backlog, compression, eventsBufferSize);
+    }
+}
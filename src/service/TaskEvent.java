@@ -0,0 +1,48 @@
+package service;
+
+import model.Task;
+import model.TaskType;
+
+/**
+ * Событие об изменении задачи. Для {@link TaskEventType#CLEARED} задача не указана:
+ * удалены все задачи типа {@link #getTaskType()}.
+ */
+public class TaskEvent {
+    private final TaskEventType type;
+    private final TaskType taskType;
+    private final int id;
+    private final Task task;
+
+    public TaskEvent(TaskEventType type, Task task) {
+        this.type = type;
+        this.taskType = task.getType();
+        this.id = task.getId();
+        this.task = task;
+    }
+
+    public TaskEvent(TaskEventType type, TaskType taskType) {
+        this.type = type;
+        this.taskType = taskType;
+        this.id = 0;
+        this.task = null;
+    }
+
+    public TaskEventType getType() {
+        return type;
+    }
+
+    public TaskType getTaskType() {
+        return taskType;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * Задача после изменения, удалённая задача или {@code null} для {@link TaskEventType#CLEARED}.
+     */
+    public Task getTask() {
+        return task;
+    }
+}
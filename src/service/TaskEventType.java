@@ -0,0 +1,8 @@
+package service;
+
+public enum TaskEventType {
+    CREATED,
+    UPDATED,
+    REMOVED,
+    CLEARED
+}
@@ -0,0 +1,14 @@
+package service;
+
+/**
+ * Получает события об изменении задач в {@link TaskManager}.
+ * <p>
+ * Метод вызывается в потоке, изменившем задачи, уже после изменения, в
+ * {@link FileBackedTaskManager} — после его сохранения, а в
+ * {@link ConcurrentTaskManager} — ещё под его блокировками. Поэтому слушатель
+ * должен возвращаться быстро и не обращаться к менеджеру на запись.
+ */
+@FunctionalInterface
+public interface TaskListener {
+    void onTaskEvent(TaskEvent event);
+}
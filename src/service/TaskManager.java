@@ -3,6 +3,7 @@ package service;
 import model.EpicTask;
 import model.SubTask;
 import model.Task;
+import model.TaskType;
 
 import java.util.List;
 
@@ -23,6 +24,21 @@ public interface TaskManager {
 
     List<SubTask> getSubTasksFromEpicTaskId(int epicTaskId);
 
+    /**
+     * Возвращает страницу задач, подходящих под условия, упорядоченную по id.
+     */
+    List<Task> findTasks(TaskQuery query);
+
+    List<EpicTask> findEpicTasks(TaskQuery query);
+
+    List<SubTask> findSubTasks(TaskQuery query);
+
+    /**
+     * Возвращает страницу задач по приоритету, подходящих под условия. Окно по времени
+     * и курсор используются для перехода сразу к нужному месту индекса.
+     */
+    List<Task> findPrioritizedTasks(TaskQuery query);
+
     Task getTask(int id);
 
     EpicTask getEpicTask(int id);
@@ -37,6 +53,14 @@ public interface TaskManager {
 
     SubTask updateSubTask(SubTask subTask);
 
+    /**
+     * Сохраняет пакет задач: задачи с id {@code 0} создаются, остальные обновляются.
+     * Тип задачи определяется её классом. Ошибка в одной задаче не отменяет остальные.
+     *
+     * @return результаты в том же порядке, что и задачи
+     */
+    List<BatchResult> applyBatch(List<? extends Task> tasks);
+
     void removeAllTasks();
 
     void removeAllEpicTasks();
@@ -48,4 +72,28 @@ public interface TaskManager {
     void removeEpicTask(int id);
 
     void removeSubTask(int id);
+
+    /**
+     * Возвращает версию коллекции задач указанного типа. Версия увеличивается
+     * после каждого успешного изменения коллекции и никогда не уменьшается,
+     * поэтому по ней можно понять, изменился ли список с прошлого запроса.
+     */
+    long getVersion(TaskType type);
+
+    /**
+     * Возвращает количество задач указанного типа без копирования коллекции.
+     */
+    int getTasksCount(TaskType type);
+
+    int getPrioritizedTasksCount();
+
+    int getHistorySize();
+
+    /**
+     * Подписывает слушателя на события о создании, изменении и удалении задач.
+     * Изменение подзадачи сообщается и событием {@link TaskEventType#UPDATED} её эпика.
+     */
+    void addListener(TaskListener listener);
+
+    void removeListener(TaskListener listener);
 }
@@ -0,0 +1,142 @@
+package service;
+
+import model.Status;
+import model.Task;
+import model.TaskType;
+
+import java.time.LocalDateTime;
+
+/**
+ * Условия выборки задач для {@link TaskManager}: фильтры, окно по времени начала
+ * и страница. Страница задаётся курсором — последней задачей предыдущей страницы —
+ * и лимитом, поэтому менеджеру не нужно собирать всю коллекцию целиком.
+ * <p>
+ * Списки задач, эпиков и подзадач упорядочены по id, курсор для них — id.
+ * Список по приоритету упорядочен по времени начала, курсор для него — время начала и id.
+ */
+public class TaskQuery {
+    public static final int UNLIMITED = Integer.MAX_VALUE;
+
+    private final Status status;
+    private final TaskType type;
+    private final LocalDateTime from;
+    private final LocalDateTime to;
+    private final int afterId;
+    private final LocalDateTime afterStartTime;
+    private final int limit;
+
+    public TaskQuery() {
+        this(null, null, null, null, 0, null, UNLIMITED);
+    }
+
+    private TaskQuery(Status status, TaskType type, LocalDateTime from, LocalDateTime to,
+                      int afterId, LocalDateTime afterStartTime, int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Размер страницы должен быть положительным: " + limit);
+        }
+        this.status = status;
+        this.type = type;
+        this.from = from;
+        this.to = to;
+        this.afterId = afterId;
+        this.afterStartTime = afterStartTime;
+        this.limit = limit;
+    }
+
+    /**
+     * Статус задач, {@code null} — любой.
+     */
+    public Status getStatus() {
+        return status;
+    }
+
+    /**
+     * Тип задач, {@code null} — любой.
+     */
+    public TaskType getType() {
+        return type;
+    }
+
+    /**
+     * Начало окна по времени начала задачи включительно, {@code null} — без ограничения.
+     */
+    public LocalDateTime getFrom() {
+        return from;
+    }
+
+    /**
+     * Конец окна по времени начала задачи не включительно, {@code null} — без ограничения.
+     */
+    public LocalDateTime getTo() {
+        return to;
+    }
+
+    /**
+     * Id последней задачи предыдущей страницы, {@code 0} — первая страница.
+     */
+    public int getAfterId() {
+        return afterId;
+    }
+
+    /**
+     * Время начала последней задачи предыдущей страницы списка по приоритету,
+     * {@code null} — первая страница.
+     */
+    public LocalDateTime getAfterStartTime() {
+        return afterStartTime;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    /**
+     * Проверяет фильтры по статусу, типу и окну по времени. Курсор и лимит не учитываются.
+     * Если задано окно по времени, задачи без времени начала не подходят.
+     */
+    public boolean matches(Task task) {
+        if (status != null && task.getStatus() != status) {
+            return false;
+        }
+        if (type != null && task.getType() != type) {
+            return false;
+        }
+        if (from != null || to != null) {
+            LocalDateTime startTime = task.getStartTime();
+            if (startTime == null) {
+                return false;
+            }
+            if (from != null && startTime.isBefore(from)) {
+                return false;
+            }
+            if (to != null && !startTime.isBefore(to)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public TaskQuery withStatus(Status status) {
+        return new TaskQuery(status, type, from, to, afterId, afterStartTime, limit);
+    }
+
+    public TaskQuery withType(TaskType type) {
+        return new TaskQuery(status, type, from, to, afterId, afterStartTime, limit);
+    }
+
+    public TaskQuery withTimeWindow(LocalDateTime from, LocalDateTime to) {
+        return new TaskQuery(status, type, from, to, afterId, afterStartTime, limit);
+    }
+
+    public TaskQuery withCursor(int afterId) {
+        return new TaskQuery(status, type, from, to, afterId, null, limit);
+    }
+
+    public TaskQuery withCursor(LocalDateTime afterStartTime, int afterId) {
+        return new TaskQuery(status, type, from, to, afterId, afterStartTime, limit);
+    }
+
+    public TaskQuery withLimit(int limit) {
+        return new TaskQuery(status, type, from, to, afterId, afterStartTime, limit);
+    }
+}
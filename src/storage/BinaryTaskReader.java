@@ -0,0 +1,198 @@
+package storage;
+
+import exception.ManagerIOException;
+import model.EpicTask;
+import model.Status;
+import model.SubTask;
+import model.Task;
+import model.TaskType;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * Потоковое чтение задач, записанных {@link BinaryTaskWriter}.
+ */
+public class BinaryTaskReader implements AutoCloseable {
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final TaskType[] TYPES = TaskType.values();
+    private static final Status[] STATUSES = Status.values();
+
+    private final InputStream in;
+    private final byte[] buffer;
+    private int position;
+    private int limit;
+
+    public BinaryTaskReader(InputStream in) throws IOException {
+        this(in, BUFFER_SIZE, true);
+    }
+
+    /**
+     * Создаёт читатель отдельных записей без заголовка файла, например для слотов
+     * {@link MappedTaskStorage}.
+     */
+    BinaryTaskReader(InputStream in, int bufferSize, boolean withHeader) throws IOException {
+        this.in = in;
+        this.buffer = new byte[bufferSize];
+        if (withHeader) {
+            readHeader();
+        }
+    }
+
+    private void readHeader() throws IOException {
+        for (byte magicByte : BinaryTaskWriter.MAGIC) {
+            if (readByte() != magicByte) {
+                throw new ManagerIOException("Файл не является двоичным снимком задач");
+            }
+        }
+
+        int version = readByte();
+        if (version != BinaryTaskWriter.VERSION) {
+            throw new ManagerIOException("Неподдерживаемая версия двоичного снимка: " + version);
+        }
+    }
+
+    /**
+     * Читает следующую задачу.
+     *
+     * @return задача или {@code null}, если задачи закончились
+     */
+    public Task read() throws IOException {
+        int typeTag = readByte();
+        if (typeTag == BinaryTaskWriter.END_OF_TASKS) {
+            return null;
+        }
+        if (typeTag > TYPES.length) {
+            throw new ManagerIOException("Неизвестный тип задачи в снимке: " + typeTag);
+        }
+
+        TaskType type = TYPES[typeTag - 1];
+        int id = (int) readVarLong();
+        Status status = readStatus(id);
+        String title = readString();
+        String description = readString();
+        int epicTaskId = type == TaskType.SUB_TASK ? (int) readVarLong() : 0;
+
+        LocalDateTime startTime = null;
+        Duration duration = null;
+        if (readByte() != 0) {
+            long epochMinute = unzigzag(readVarLong());
+            long nanoOfMinute = readVarLong();
+            if (!BinaryTaskWriter.isValidNanoOfMinute(nanoOfMinute)) {
+                throw new ManagerIOException("Некорректное время задачи " + id + " в снимке");
+            }
+            startTime = BinaryTaskWriter.toLocalDateTime(epochMinute, nanoOfMinute);
+            duration = Duration.ofMinutes(readVarLong());
+        }
+
+        Task task;
+        switch (type) {
+            case EPIC_TASK:
+                task = new EpicTask(title, description);
+                break;
+            case SUB_TASK:
+                if (startTime != null) {
+                    task = new SubTask(title, description, status, epicTaskId, startTime, duration);
+                } else {
+                    task = new SubTask(title, description, status, epicTaskId);
+                }
+                break;
+            default:
+                if (startTime != null) {
+                    task = new Task(title, description, status, startTime, duration);
+                } else {
+                    task = new Task(title, description, status);
+                }
+        }
+
+        task.setId(id);
+        return task;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    /**
+     * Отбрасывает прочитанные заранее байты, чтобы следующая запись читалась
+     * с текущей позиции потока.
+     */
+    void reset() {
+        position = 0;
+        limit = 0;
+    }
+
+    private Status readStatus(int id) throws IOException {
+        int statusTag = readByte();
+        if (statusTag == BinaryTaskWriter.NO_STATUS) {
+            return null;
+        }
+        if (statusTag >= STATUSES.length) {
+            throw new ManagerIOException("Неизвестный статус задачи " + id + " в снимке: " + statusTag);
+        }
+        return STATUSES[statusTag];
+    }
+
+    private String readString() throws IOException {
+        long length = readVarLong();
+        if (length == 0) {
+            return null;
+        }
+
+        int size = (int) (length - 1);
+        if (size <= limit - position) {
+            String string = new String(buffer, position, size, StandardCharsets.UTF_8);
+            position += size;
+            return string;
+        }
+
+        byte[] bytes = new byte[size];
+        int copied = 0;
+        while (copied < size) {
+            if (position == limit) {
+                fill();
+            }
+            int chunk = Math.min(size - copied, limit - position);
+            System.arraycopy(buffer, position, bytes, copied, chunk);
+            position += chunk;
+            copied += chunk;
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private long readVarLong() throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = readByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new ManagerIOException("Некорректное число в двоичном снимке");
+    }
+
+    private int readByte() throws IOException {
+        if (position == limit) {
+            fill();
+        }
+        return buffer[position++] & 0xFF;
+    }
+
+    private void fill() throws IOException {
+        limit = in.read(buffer, 0, buffer.length);
+        position = 0;
+        if (limit <= 0) {
+            limit = 0;
+            throw new ManagerIOException("Двоичный снимок задач обрывается");
+        }
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
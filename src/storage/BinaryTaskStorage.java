@@ -0,0 +1,119 @@
+package storage;
+
+import exception.ManagerIOException;
+import model.Task;
+import model.TaskType;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+/**
+ * Хранилище, которое после каждого изменения перезаписывает файл целиком
+ * в компактном двоичном формате {@link BinaryTaskWriter}.
+ */
+public class BinaryTaskStorage implements TaskStorage {
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    private final Path filePath;
+    private final Supplier<? extends Collection<? extends Task>> tasks;
+
+    public BinaryTaskStorage(Path filePath, Supplier<? extends Collection<? extends Task>> tasks) {
+        this.filePath = filePath;
+        this.tasks = tasks;
+    }
+
+    @Override
+    public List<Task> load() {
+        return read(filePath);
+    }
+
+    @Override
+    public void create(Task task) {
+        save();
+    }
+
+    @Override
+    public void update(Task task) {
+        save();
+    }
+
+    @Override
+    public void updateAll(List<Task> tasks) {
+        save();
+    }
+
+    @Override
+    public void remove(List<Integer> ids) {
+        save();
+    }
+
+    @Override
+    public void removeAll(TaskType type) {
+        save();
+    }
+
+    private void save() {
+        write(filePath, tasks.get());
+    }
+
+    static List<Task> read(Path filePath) {
+        List<Task> loadedTasks = new ArrayList<>();
+
+        try (BinaryTaskReader reader = new BinaryTaskReader(Files.newInputStream(filePath))) {
+            Task task;
+            while ((task = reader.read()) != null) {
+                loadedTasks.add(task);
+            }
+        } catch (IOException exception) {
+            throw new ManagerIOException("Ошибка чтения из файла " + filePath, exception);
+        }
+        return loadedTasks;
+    }
+
+    /**
+     * Пишет задачи во временный файл рядом с {@code filePath} и атомарно заменяет им
+     * основной файл, поэтому при ошибке записи прежнее содержимое остаётся на месте.
+     */
+    static void write(Path filePath, Collection<? extends Task> tasks) {
+        Path tempPath = filePath.resolveSibling(filePath.getFileName() + TEMP_SUFFIX);
+
+        try {
+            try (FileChannel channel = FileChannel.open(tempPath, CREATE, WRITE, TRUNCATE_EXISTING);
+                 BinaryTaskWriter writer = new BinaryTaskWriter(Channels.newOutputStream(channel))) {
+                for (Task task : tasks) {
+                    writer.write(task);
+                }
+                writer.finish();
+                channel.force(true);
+            }
+            Files.move(tempPath, filePath, REPLACE_EXISTING, ATOMIC_MOVE);
+        } catch (IOException exception) {
+            deleteTempFile(tempPath, exception);
+            throw new ManagerIOException("Ошибка записи в файл " + filePath, exception);
+        } catch (RuntimeException exception) {
+            deleteTempFile(tempPath, exception);
+            throw exception;
+        }
+    }
+
+    private static void deleteTempFile(Path tempPath, Exception cause) {
+        try {
+            Files.deleteIfExists(tempPath);
+        } catch (IOException exception) {
+            cause.addSuppressed(exception);
+        }
+    }
+}
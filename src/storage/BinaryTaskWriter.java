@@ -0,0 +1,154 @@
+package storage;
+
+import model.Task;
+import model.TaskType;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Потоковая запись задач в двоичном формате.
+ * <p>
+ * Файл начинается с {@link #MAGIC} и номера версии, затем идут записи задач и
+ * завершающий байт {@code 0}. Запись задачи: тип ({@code ordinal + 1}), id (varint),
+ * статус ({@code ordinal}, {@code 0xFF} — null), название и описание (длина + 1 как varint и байты UTF-8,
+ * {@code 0} — null), id эпика для подзадачи (varint), признак времени и, если он
+ * установлен, минута от эпохи (zigzag varint), наносекунды внутри минуты (varint)
+ * и длительность в минутах (varint). Время эпика не пишется: оно вычисляется
+ * по подзадачам при загрузке.
+ * <p>
+ * Завершающий байт пишет {@link #finish()}, поэтому прерванная запись не выглядит полной.
+ */
+public class BinaryTaskWriter implements AutoCloseable {
+    public static final byte[] MAGIC = {'K', 'B', 'T'};
+    public static final byte VERSION = 1;
+    static final int END_OF_TASKS = 0;
+    static final int NO_STATUS = 0xFF;
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final long NANOS_PER_MINUTE = 60_000_000_000L;
+
+    private final OutputStream out;
+    private final byte[] buffer;
+    private int position;
+
+    public BinaryTaskWriter(OutputStream out) throws IOException {
+        this(out, BUFFER_SIZE, true);
+    }
+
+    /**
+     * Создаёт писатель отдельных записей без заголовка файла, например для слотов
+     * {@link MappedTaskStorage}.
+     */
+    BinaryTaskWriter(OutputStream out, int bufferSize, boolean withHeader) throws IOException {
+        this.out = out;
+        this.buffer = new byte[bufferSize];
+        if (withHeader) {
+            for (byte magicByte : MAGIC) {
+                writeByte(magicByte);
+            }
+            writeByte(VERSION);
+        }
+    }
+
+    public void write(Task task) throws IOException {
+        writeByte(task.getType().ordinal() + 1);
+        writeVarLong(task.getId());
+        writeByte(task.getStatus() == null ? NO_STATUS : task.getStatus().ordinal());
+        writeString(task.getTitle());
+        writeString(task.getDescription());
+
+        if (task.getType() == TaskType.SUB_TASK) {
+            writeVarLong(task.getEpicTaskId());
+        }
+
+        if (task.getType() == TaskType.EPIC_TASK || task.getStartTime() == null) {
+            writeByte(0);
+        } else {
+            writeByte(1);
+            long epochSecond = task.getStartTime().toEpochSecond(ZoneOffset.UTC);
+            long epochMinute = Math.floorDiv(epochSecond, 60);
+            long nanoOfMinute = Math.floorMod(epochSecond, 60) * 1_000_000_000L + task.getStartTime().getNano();
+            writeVarLong(zigzag(epochMinute));
+            writeVarLong(nanoOfMinute);
+            writeVarLong(task.getDuration().toMinutes());
+        }
+    }
+
+    /**
+     * Завершает последовательность задач и передаёт её в поток. Без вызова этого
+     * метода файл считается недописанным: {@link #close()} маркер конца не пишет.
+     */
+    public void finish() throws IOException {
+        writeByte(END_OF_TASKS);
+        flushBuffer();
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+
+    /**
+     * Передаёт накопленные байты в поток, не завершая последовательность задач.
+     */
+    void flush() throws IOException {
+        flushBuffer();
+    }
+
+    static LocalDateTime toLocalDateTime(long epochMinute, long nanoOfMinute) {
+        long epochSecond = epochMinute * 60 + nanoOfMinute / 1_000_000_000L;
+        int nano = (int) (nanoOfMinute % 1_000_000_000L);
+        return LocalDateTime.ofEpochSecond(epochSecond, nano, ZoneOffset.UTC);
+    }
+
+    static boolean isValidNanoOfMinute(long nanoOfMinute) {
+        return nanoOfMinute >= 0 && nanoOfMinute < NANOS_PER_MINUTE;
+    }
+
+    private void writeString(String string) throws IOException {
+        if (string == null) {
+            writeVarLong(0);
+            return;
+        }
+
+        byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+        writeVarLong(bytes.length + 1L);
+        if (bytes.length > buffer.length - position) {
+            flushBuffer();
+        }
+        if (bytes.length > buffer.length) {
+            out.write(bytes);
+        } else {
+            System.arraycopy(bytes, 0, buffer, position, bytes.length);
+            position += bytes.length;
+        }
+    }
+
+    private void writeVarLong(long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        writeByte((int) value);
+    }
+
+    private void writeByte(int value) throws IOException {
+        if (position == buffer.length) {
+            flushBuffer();
+        }
+        buffer[position++] = (byte) value;
+    }
+
+    private void flushBuffer() throws IOException {
+        int length = position;
+        position = 0;
+        out.write(buffer, 0, length);
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+}
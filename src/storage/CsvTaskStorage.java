@@ -0,0 +1,182 @@
+package storage;
+
+import exception.ManagerIOException;
+import model.Task;
+import model.TaskType;
+import util.TaskCsvParser;
+import util.TaskToStringConverter;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Supplier;
+
+/**
+ * Хранилище, которое после каждого изменения перезаписывает файл CSV целиком.
+ * <p>
+ * Большие файлы читаются параллельно: текст делится на куски по границам записей,
+ * и куски разбираются в {@link ForkJoinPool}. Поле в кавычках может содержать
+ * перевод строки, поэтому границы кусков ищутся одним последовательным проходом
+ * по концам записей с учётом кавычек — он намного дешевле разбора. Порядок строк
+ * в файле не важен, связывание подзадач с эпиками выполняет менеджер после загрузки.
+ */
+public class CsvTaskStorage implements TaskStorage {
+    private static final int CHUNK_SIZE = 256 * 1024;
+
+    private final Path filePath;
+    private final Supplier<? extends Collection<? extends Task>> tasks;
+
+    public CsvTaskStorage(Path filePath, Supplier<? extends Collection<? extends Task>> tasks) {
+        this.filePath = filePath;
+        this.tasks = tasks;
+    }
+
+    @Override
+    public List<Task> load() {
+        return read(filePath);
+    }
+
+    @Override
+    public void create(Task task) {
+        save();
+    }
+
+    @Override
+    public void update(Task task) {
+        save();
+    }
+
+    @Override
+    public void updateAll(List<Task> tasks) {
+        save();
+    }
+
+    @Override
+    public void remove(List<Integer> ids) {
+        save();
+    }
+
+    @Override
+    public void removeAll(TaskType type) {
+        save();
+    }
+
+    private void save() {
+        write(filePath, tasks.get());
+    }
+
+    static List<Task> read(Path filePath) {
+        String content;
+
+        try {
+            content = Files.readString(filePath, StandardCharsets.UTF_8);
+        } catch (IOException exception) {
+            throw new ManagerIOException("Ошибка чтения из файла " + filePath, exception);
+        }
+
+        int headerEnd = content.indexOf('\n');
+        if (headerEnd < 0) {
+            return new ArrayList<>();
+        }
+        int[] chunkStarts = findChunkStarts(content, headerEnd + 1);
+        return ForkJoinPool.commonPool().invoke(new ParseChunkTask(content, chunkStarts, 0, chunkStarts.length - 1));
+    }
+
+    /**
+     * Делит текст на куски примерно по {@link #CHUNK_SIZE} символов, каждый из
+     * которых начинается с начала записи.
+     *
+     * @return начала кусков и последним элементом — длина текста
+     */
+    private static int[] findChunkStarts(String content, int from) {
+        List<Integer> starts = new ArrayList<>();
+        starts.add(from);
+        int chunkStart = from;
+        int position = from;
+
+        while (position < content.length()) {
+            position = TaskCsvParser.findRecordEnd(content, position, content.length()) + 1;
+            if (position - chunkStart >= CHUNK_SIZE && position < content.length()) {
+                starts.add(position);
+                chunkStart = position;
+            }
+        }
+        starts.add(content.length());
+        return starts.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    public static void write(Path filePath, Collection<? extends Task> tasks) {
+        try (BufferedWriter writer = Files.newBufferedWriter(filePath, StandardCharsets.UTF_8)) {
+            writer.write(TaskToStringConverter.HEADER);
+            writer.write('\n');
+            for (Task task : tasks) {
+                writer.write(TaskToStringConverter.toString(task));
+                writer.write('\n');
+            }
+        } catch (IOException exception) {
+            throw new ManagerIOException("Ошибка записи в файл " + filePath, exception);
+        }
+    }
+
+    /**
+     * Разбирает куски с номерами {@code [fromChunk, toChunk)}. Несколько кусков
+     * делятся пополам, один кусок разбирается целиком.
+     */
+    private static class ParseChunkTask extends RecursiveTask<List<Task>> {
+        private final String content;
+        private final int[] chunkStarts;
+        private final int fromChunk;
+        private final int toChunk;
+
+        private ParseChunkTask(String content, int[] chunkStarts, int fromChunk, int toChunk) {
+            this.content = content;
+            this.chunkStarts = chunkStarts;
+            this.fromChunk = fromChunk;
+            this.toChunk = toChunk;
+        }
+
+        @Override
+        protected List<Task> compute() {
+            if (toChunk - fromChunk > 1) {
+                int middle = (fromChunk + toChunk) >>> 1;
+                ParseChunkTask left = new ParseChunkTask(content, chunkStarts, fromChunk, middle);
+                ParseChunkTask right = new ParseChunkTask(content, chunkStarts, middle, toChunk);
+                left.fork();
+                List<Task> rightTasks = right.compute();
+                List<Task> tasks = left.join();
+                tasks.addAll(rightTasks);
+                return tasks;
+            }
+            return parse();
+        }
+
+        private List<Task> parse() {
+            List<Task> tasks = new ArrayList<>();
+            TaskCsvParser parser = new TaskCsvParser();
+            int from = chunkStarts[fromChunk];
+            int to = chunkStarts[toChunk];
+            int lineStart = from;
+
+            while (lineStart < to) {
+                int lineEnd = TaskCsvParser.findRecordEnd(content, lineStart, to);
+
+                int end = lineEnd;
+                if (end > lineStart && content.charAt(end - 1) == '\r') {
+                    end--;
+                }
+                if (end > lineStart) {
+                    tasks.add(parser.parse(content, lineStart, end));
+                }
+                lineStart = lineEnd + 1;
+            }
+            return tasks;
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package storage;
+
+/**
+ * Когда журнал принудительно сбрасывается на диск через {@code fsync}.
+ */
+public enum FsyncPolicy {
+    /**
+     * Данные передаются операционной системе, а на диск сбрасываются только по {@code flush()}.
+     */
+    NONE,
+    /**
+     * Один {@code fsync} на группу записей, накопленных писателем.
+     */
+    BATCH,
+    /**
+     * {@code fsync} после каждой записи.
+     */
+    PER_WRITE
+}
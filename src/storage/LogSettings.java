@@ -0,0 +1,74 @@
+package storage;
+
+import java.time.Duration;
+
+/**
+ * Настройки журнала {@link LogTaskStorage}.
+ */
+public class LogSettings {
+    public static final int DEFAULT_CHECKPOINT_RECORDS = 10_000;
+    public static final Duration DEFAULT_COMMIT_WINDOW = Duration.ofMillis(2);
+
+    private final int checkpointRecords;
+    private final FsyncPolicy fsyncPolicy;
+    private final boolean async;
+    private final Duration commitWindow;
+
+    public LogSettings() {
+        this(DEFAULT_CHECKPOINT_RECORDS, FsyncPolicy.NONE, false, DEFAULT_COMMIT_WINDOW);
+    }
+
+    private LogSettings(int checkpointRecords, FsyncPolicy fsyncPolicy, boolean async, Duration commitWindow) {
+        if (checkpointRecords < 0) {
+            throw new IllegalArgumentException("Количество записей не может быть отрицательным: " + checkpointRecords);
+        }
+        if (commitWindow.isNegative()) {
+            throw new IllegalArgumentException("Окно группировки не может быть отрицательным: " + commitWindow);
+        }
+        this.checkpointRecords = checkpointRecords;
+        this.fsyncPolicy = fsyncPolicy;
+        this.async = async;
+        this.commitWindow = commitWindow;
+    }
+
+    /**
+     * Количество записей в журнале, после которого в фоне сохраняется снимок
+     * всех задач и журнал начинается заново. {@code 0} отключает снимки.
+     */
+    public int getCheckpointRecords() {
+        return checkpointRecords;
+    }
+
+    public FsyncPolicy getFsyncPolicy() {
+        return fsyncPolicy;
+    }
+
+    /**
+     * Пишутся ли записи отдельным потоком. В этом режиме изменение возвращается
+     * сразу, а записи, пришедшие за {@link #getCommitWindow()}, попадают в файл
+     * одной операцией записи.
+     */
+    public boolean isAsync() {
+        return async;
+    }
+
+    public Duration getCommitWindow() {
+        return commitWindow;
+    }
+
+    public LogSettings withCheckpointRecords(int checkpointRecords) {
+        return new LogSettings(checkpointRecords, fsyncPolicy, async, commitWindow);
+    }
+
+    public LogSettings withFsyncPolicy(FsyncPolicy fsyncPolicy) {
+        return new LogSettings(checkpointRecords, fsyncPolicy, async, commitWindow);
+    }
+
+    public LogSettings withAsync(boolean async) {
+        return new LogSettings(checkpointRecords, fsyncPolicy, async, commitWindow);
+    }
+
+    public LogSettings withCommitWindow(Duration commitWindow) {
+        return new LogSettings(checkpointRecords, fsyncPolicy, async, commitWindow);
+    }
+}
@@ -0,0 +1,633 @@
+package storage;
+
+import exception.ManagerIOException;
+import model.Task;
+import model.TaskType;
+import util.TaskCsvParser;
+import util.TaskToStringConverter;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import static java.nio.file.StandardOpenOption.APPEND;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+/**
+ * Хранилище в виде журнала: каждое изменение дописывается в конец файла одной
+ * строкой, поэтому стоимость записи не зависит от количества задач.
+ * <p>
+ * Формат записи: {@code C,<строка задачи>} и {@code U,<строка задачи>} — создание
+ * и обновление, {@code D,<id>,...} — удаление, {@code X,<тип>} — удаление всех задач типа.
+ * Каждая запись задаёт итоговое значение, поэтому повторное применение журнала
+ * к уже восстановленному состоянию ничего не меняет.
+ * <p>
+ * Чтобы журнал не рос бесконечно, после {@link LogSettings#getCheckpointRecords()} записей
+ * текущий файл переименовывается в сегмент {@code <имя>.<номер>}, а фоновый поток сохраняет
+ * двоичный снимок всех задач в {@code <имя>.snapshot} и удаляет покрытые снимком сегменты.
+ * При загрузке читается снимок, затем оставшиеся сегменты и текущий журнал.
+ * <p>
+ * В асинхронном режиме ({@link LogSettings#isAsync()}) записи попадают в очередь, а отдельный
+ * поток-писатель собирает всё, что пришло за окно группировки, и записывает одной операцией
+ * с {@code fsync} по {@link FsyncPolicy}. Ротация журнала при снимке проходит через ту же
+ * очередь, поэтому порядок записей сохраняется. {@link #flush()} ждёт, пока все принятые
+ * записи окажутся на диске.
+ * <p>
+ * Если потоку-писателю не удалось записать группу, следующие изменения и {@link #flush()}
+ * завершаются {@link ManagerIOException}: часть записей потеряна, и журнал больше не
+ * совпадает с задачами в памяти. Восстановить запись можно через {@link #checkpoint()}:
+ * снимок сохраняет текущее состояние целиком, и после его записи ошибка сбрасывается.
+ */
+public class LogTaskStorage implements TaskStorage {
+    public static final String HEADER = "log,1";
+    protected static final char CREATE_RECORD = 'C';
+    protected static final char UPDATE_RECORD = 'U';
+    protected static final char DELETE_RECORD = 'D';
+    protected static final char CLEAR_RECORD = 'X';
+    private static final String SNAPSHOT_SUFFIX = ".snapshot";
+
+    protected final Path filePath;
+    private final Path snapshotPath;
+    private final Supplier<? extends Collection<? extends Task>> tasks;
+    private final LogSettings settings;
+    private final ExecutorService checkpointExecutor;
+    private final AtomicBoolean checkpointRunning = new AtomicBoolean();
+    private final BlockingQueue<Entry> queue;
+    private final Thread writerThread;
+    private final Object commitMonitor = new Object();
+    private FileChannel channel;
+    private int recordsCount;
+    private long lastSegment;
+    private long enqueuedSequence;
+    private long committedSequence;
+    private volatile Exception writeFailure;
+    private long writeFailureSequence;
+
+    public LogTaskStorage(Path filePath, Supplier<? extends Collection<? extends Task>> tasks, LogSettings settings) {
+        this.filePath = filePath;
+        this.snapshotPath = filePath.resolveSibling(filePath.getFileName() + SNAPSHOT_SUFFIX);
+        this.tasks = tasks;
+        this.settings = settings;
+        this.channel = open(filePath);
+        this.lastSegment = findSegments().stream()
+                .mapToLong(this::segmentNumber)
+                .max()
+                .orElse(0);
+        this.checkpointExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "task-log-checkpoint");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        if (settings.isAsync()) {
+            this.queue = new LinkedBlockingQueue<>();
+            this.writerThread = new Thread(this::writeLoop, "task-log-writer");
+            writerThread.setDaemon(true);
+            writerThread.start();
+        } else {
+            this.queue = null;
+            this.writerThread = null;
+        }
+    }
+
+    @Override
+    public synchronized List<Task> load() {
+        Map<Integer, Task> tasksById = new LinkedHashMap<>();
+
+        if (Files.exists(snapshotPath)) {
+            for (Task task : readSnapshot()) {
+                tasksById.put(task.getId(), task);
+            }
+        }
+
+        for (Path segment : findSegments()) {
+            replay(segment, tasksById);
+        }
+        recordsCount = replay(filePath, tasksById);
+
+        return new ArrayList<>(tasksById.values());
+    }
+
+    @Override
+    public void create(Task task) {
+        append(CREATE_RECORD + "," + TaskToStringConverter.toString(task));
+    }
+
+    @Override
+    public void update(Task task) {
+        append(UPDATE_RECORD + "," + TaskToStringConverter.toString(task));
+    }
+
+    /**
+     * Добавляет записи всех задач пакета в журнал одной операцией,
+     * поэтому на весь пакет приходится одна синхронизация с диском.
+     */
+    @Override
+    public void updateAll(List<Task> tasks) {
+        StringBuilder records = new StringBuilder();
+        for (Task task : tasks) {
+            if (!records.isEmpty()) {
+                records.append('\n');
+            }
+            records.append(UPDATE_RECORD).append(',').append(TaskToStringConverter.toString(task));
+        }
+        append(records.toString(), tasks.size());
+    }
+
+    @Override
+    public void remove(List<Integer> ids) {
+        StringBuilder record = new StringBuilder().append(DELETE_RECORD);
+        for (int id : ids) {
+            record.append(',').append(id);
+        }
+        append(record.toString());
+    }
+
+    @Override
+    public void removeAll(TaskType type) {
+        append(CLEAR_RECORD + "," + type);
+    }
+
+    /**
+     * Начинает пустой журнал и удаляет сегменты и снимок, оставшиеся от прежнего
+     * журнала, чтобы его записи не смешались с записями нового менеджера, id в которых
+     * снова начинаются с 1.
+     */
+    @Override
+    public synchronized void clear() {
+        try {
+            channel.close();
+            Files.writeString(filePath, HEADER + "\n", StandardCharsets.UTF_8);
+            for (Path segment : findSegments()) {
+                Files.delete(segment);
+            }
+            Files.deleteIfExists(snapshotPath);
+        } catch (IOException exception) {
+            throw new ManagerIOException("Ошибка очистки журнала " + filePath, exception);
+        } finally {
+            channel = open(filePath);
+        }
+
+        recordsCount = 0;
+        lastSegment = 0;
+    }
+
+    /**
+     * Начинает новый журнал и запускает сохранение снимка в фоновом потоке.
+     * Если предыдущий снимок ещё сохраняется, ничего не делает.
+     */
+    @Override
+    public synchronized void checkpoint() {
+        if (!checkpointRunning.compareAndSet(false, true)) {
+            return;
+        }
+
+        try {
+            // снимок пишется в другом потоке, поэтому задачи копируются сейчас, а не по ссылке
+            Collection<? extends Task> currentTasks = tasks.get();
+            List<Task> state = new ArrayList<>(currentTasks.size());
+            for (Task task : currentTasks) {
+                state.add(task.copy());
+            }
+            recordsCount = 0;
+            if (queue != null) {
+                queue.add(new Entry(++enqueuedSequence, null, state, false));
+            } else {
+                startSnapshot(state, enqueuedSequence);
+            }
+        } catch (RuntimeException exception) {
+            checkpointRunning.set(false);
+            throw exception;
+        }
+    }
+
+    @Override
+    public void flush() {
+        long sequence;
+
+        synchronized (this) {
+            if (queue == null) {
+                force();
+                return;
+            }
+            checkWriteFailure();
+            sequence = ++enqueuedSequence;
+            queue.add(new Entry(sequence, null, null, true));
+        }
+
+        awaitCommitted(sequence);
+        checkWriteFailure();
+    }
+
+    @Override
+    public synchronized void close() {
+        if (queue != null) {
+            long sequence = ++enqueuedSequence;
+            queue.add(new Entry(sequence, null, null, true));
+            awaitCommitted(sequence);
+            writerThread.interrupt();
+            try {
+                writerThread.join();
+            } catch (InterruptedException exception) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        checkpointExecutor.shutdown();
+        try {
+            while (!checkpointExecutor.awaitTermination(1, TimeUnit.SECONDS)) {
+                // ждём, пока фоновый поток сохранит снимок
+            }
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+
+        try {
+            channel.close();
+        } catch (IOException exception) {
+            throw new ManagerIOException("Ошибка закрытия файла " + filePath, exception);
+        }
+    }
+
+    protected void append(String record) {
+        append(record, 1);
+    }
+
+    /**
+     * Добавляет в журнал одну или несколько записей, разделённых переводом строки.
+     *
+     * @param recordsInAppend количество записей, учитываемое для автоматического снимка
+     */
+    protected synchronized void append(String record, int recordsInAppend) {
+        if (queue != null) {
+            checkWriteFailure();
+            queue.add(new Entry(++enqueuedSequence, record, null, false));
+        } else {
+            write(new StringBuilder(record.length() + 1).append(record).append('\n'));
+            if (settings.getFsyncPolicy() != FsyncPolicy.NONE) {
+                force();
+            }
+        }
+
+        recordsCount += recordsInAppend;
+        if (settings.getCheckpointRecords() > 0 && recordsCount >= settings.getCheckpointRecords()) {
+            checkpoint();
+        }
+    }
+
+    /**
+     * Применяет записи журнала к задачам, накопленным в {@code tasksById}.
+     *
+     * @return количество применённых записей
+     */
+    protected static int replay(Path logPath, Map<Integer, Task> tasksById) {
+        int count = 0;
+
+        try (BufferedReader reader = Files.newBufferedReader(logPath, StandardCharsets.UTF_8)) {
+            String record = reader.readLine();
+            if (record != null && !HEADER.equals(record)) {
+                throw new ManagerIOException("Файл " + logPath + " не является журналом задач");
+            }
+
+            TaskCsvParser parser = new TaskCsvParser();
+            while ((record = reader.readLine()) != null) {
+                while (hasOpenQuote(record)) {
+                    String nextLine = reader.readLine();
+                    if (nextLine == null) {
+                        throw new ManagerIOException("Незавершённая запись журнала: " + record);
+                    }
+                    record = record + "\n" + nextLine;
+                }
+
+                if (!record.isEmpty()) {
+                    apply(record, tasksById, parser);
+                    count++;
+                }
+            }
+        } catch (IOException exception) {
+            throw new ManagerIOException("Ошибка чтения из файла " + logPath, exception);
+        }
+
+        return count;
+    }
+
+    /**
+     * Поле в кавычках может содержать перевод строки, тогда запись продолжается
+     * на следующей строке файла. Кавычки внутри поля удвоены, поэтому нечётное
+     * их количество означает незакрытое поле.
+     */
+    private static boolean hasOpenQuote(String record) {
+        boolean inQuotes = false;
+        for (int i = 0; i < record.length(); i++) {
+            if (record.charAt(i) == '"') {
+                inQuotes = !inQuotes;
+            }
+        }
+        return inQuotes;
+    }
+
+    private static void apply(String record, Map<Integer, Task> tasksById, TaskCsvParser parser) {
+        switch (record.charAt(0)) {
+            case CREATE_RECORD:
+            case UPDATE_RECORD:
+                Task task = parser.parse(record, 2, record.length());
+                tasksById.put(task.getId(), task);
+                break;
+            case DELETE_RECORD:
+                for (String id : record.substring(2).split(",")) {
+                    tasksById.remove(Integer.parseInt(id));
+                }
+                break;
+            case CLEAR_RECORD:
+                TaskType type = TaskType.valueOf(record.substring(2));
+                tasksById.values().removeIf(savedTask -> savedTask.getType() == type
+                        || (type == TaskType.EPIC_TASK && savedTask.getType() == TaskType.SUB_TASK));
+                break;
+            default:
+                throw new ManagerIOException("Неизвестная запись журнала: " + record);
+        }
+    }
+
+    private void writeLoop() {
+        List<Entry> batch = new ArrayList<>();
+        long windowNanos = settings.getCommitWindow().toNanos();
+
+        while (true) {
+            try {
+                batch.add(queue.take());
+
+                long deadline = System.nanoTime() + windowNanos;
+                long remaining;
+                while ((remaining = deadline - System.nanoTime()) > 0) {
+                    Entry entry = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (entry == null) {
+                        break;
+                    }
+                    batch.add(entry);
+                }
+                queue.drainTo(batch);
+            } catch (InterruptedException exception) {
+                return;
+            }
+
+            try {
+                commit(batch);
+            } catch (RuntimeException exception) {
+                synchronized (commitMonitor) {
+                    writeFailure = exception;
+                    writeFailureSequence = batch.getLast().sequence;
+                }
+            }
+
+            markCommitted(batch.getLast().sequence);
+            batch.clear();
+        }
+    }
+
+    /**
+     * Записывает накопленную группу одной операцией записи.
+     * Вызывается только потоком-писателем. Если запись оборвалась до того, как
+     * снимок из группы был передан фоновому потоку, снимок отменяется, чтобы
+     * следующий {@link #checkpoint()} мог его повторить.
+     */
+    private void commit(List<Entry> batch) {
+        StringBuilder pending = new StringBuilder();
+        boolean forceRequested = false;
+        boolean snapshotHandled = false;
+
+        try {
+            for (Entry entry : batch) {
+                if (entry.record != null) {
+                    pending.append(entry.record).append('\n');
+                    if (settings.getFsyncPolicy() == FsyncPolicy.PER_WRITE) {
+                        write(pending);
+                        force();
+                        pending.setLength(0);
+                    }
+                } else if (entry.checkpointState != null) {
+                    write(pending);
+                    pending.setLength(0);
+                    snapshotHandled = true;
+                    startSnapshot(entry.checkpointState, entry.sequence);
+                }
+                forceRequested |= entry.force;
+            }
+
+            write(pending);
+            if (forceRequested || settings.getFsyncPolicy() == FsyncPolicy.BATCH) {
+                force();
+            }
+        } catch (RuntimeException exception) {
+            if (!snapshotHandled && batch.stream().anyMatch(entry -> entry.checkpointState != null)) {
+                checkpointRunning.set(false);
+            }
+            throw exception;
+        }
+    }
+
+    private void write(CharSequence records) {
+        if (records.isEmpty()) {
+            return;
+        }
+
+        ByteBuffer buffer = StandardCharsets.UTF_8.encode(records.toString());
+        try {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        } catch (IOException exception) {
+            throw new ManagerIOException("Ошибка записи в файл " + filePath, exception);
+        }
+    }
+
+    private void force() {
+        try {
+            channel.force(false);
+        } catch (IOException exception) {
+            throw new ManagerIOException("Ошибка записи в файл " + filePath, exception);
+        }
+    }
+
+    private void markCommitted(long sequence) {
+        synchronized (commitMonitor) {
+            committedSequence = sequence;
+            commitMonitor.notifyAll();
+        }
+    }
+
+    private void awaitCommitted(long sequence) {
+        synchronized (commitMonitor) {
+            while (committedSequence < sequence) {
+                try {
+                    commitMonitor.wait();
+                } catch (InterruptedException exception) {
+                    Thread.currentThread().interrupt();
+                    throw new ManagerIOException("Ожидание записи в файл " + filePath + " прервано", exception);
+                }
+            }
+        }
+    }
+
+    /**
+     * Сбрасывает ошибку записи, если сохранённый снимок сделан после неё
+     * и поэтому содержит все потерянные записи.
+     */
+    private void clearWriteFailure(long snapshotSequence) {
+        synchronized (commitMonitor) {
+            if (writeFailure != null && writeFailureSequence < snapshotSequence) {
+                writeFailure = null;
+            }
+        }
+    }
+
+    private void checkWriteFailure() {
+        Exception failure = writeFailure;
+        if (failure != null) {
+            throw new ManagerIOException("Ошибка записи в файл " + filePath, failure);
+        }
+    }
+
+    /**
+     * Начинает новый журнал и отдаёт сохранение снимка фоновому потоку.
+     *
+     * @param sequence номер записи снимка в очереди; ошибки записи с меньшим номером
+     *                 снимок покрывает
+     */
+    private void startSnapshot(List<Task> state, long sequence) {
+        try {
+            long segment = rotate();
+            checkpointExecutor.execute(() -> writeSnapshot(state, segment, sequence));
+        } catch (RuntimeException exception) {
+            checkpointRunning.set(false);
+            throw exception;
+        }
+    }
+
+    private long rotate() {
+        long segment = lastSegment + 1;
+
+        try {
+            if (settings.getFsyncPolicy() != FsyncPolicy.NONE) {
+                channel.force(false);
+            }
+            channel.close();
+            Files.move(filePath, segmentPath(segment));
+            lastSegment = segment;
+        } catch (IOException exception) {
+            throw new ManagerIOException("Ошибка переименования файла " + filePath, exception);
+        } finally {
+            channel = open(filePath);
+        }
+
+        return segment;
+    }
+
+    /**
+     * Снимки старых версий хранились в CSV, поэтому формат определяется по первым байтам.
+     */
+    private List<Task> readSnapshot() {
+        if (StorageMode.of(snapshotPath) == StorageMode.BINARY) {
+            return BinaryTaskStorage.read(snapshotPath);
+        }
+        return CsvTaskStorage.read(snapshotPath);
+    }
+
+    private void writeSnapshot(List<Task> state, long segment, long sequence) {
+        try {
+            BinaryTaskStorage.write(snapshotPath, state);
+            clearWriteFailure(sequence);
+
+            for (Path segmentPath : findSegments()) {
+                if (segmentNumber(segmentPath) <= segment) {
+                    Files.delete(segmentPath);
+                }
+            }
+        } catch (IOException | RuntimeException exception) {
+            // сегменты журнала остаются на диске, следующий снимок их покроет
+            exception.printStackTrace();
+        } finally {
+            checkpointRunning.set(false);
+        }
+    }
+
+    private Path segmentPath(long segment) {
+        return filePath.resolveSibling(filePath.getFileName() + "." + segment);
+    }
+
+    private List<Path> findSegments() {
+        Path directory = filePath.toAbsolutePath().getParent();
+
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> segmentNumber(path) > 0)
+                    .sorted(Comparator.comparingLong(this::segmentNumber))
+                    .toList();
+        } catch (IOException exception) {
+            throw new ManagerIOException("Ошибка чтения каталога " + directory, exception);
+        }
+    }
+
+    private long segmentNumber(Path path) {
+        String prefix = filePath.getFileName() + ".";
+        String name = path.getFileName().toString();
+
+        if (!name.startsWith(prefix) || name.length() == prefix.length()) {
+            return 0;
+        }
+
+        String suffix = name.substring(prefix.length());
+        for (int i = 0; i < suffix.length(); i++) {
+            if (!Character.isDigit(suffix.charAt(i))) {
+                return 0;
+            }
+        }
+        return Long.parseLong(suffix);
+    }
+
+    private static FileChannel open(Path filePath) {
+        try {
+            FileChannel channel = FileChannel.open(filePath, CREATE, WRITE, APPEND);
+            if (channel.size() == 0) {
+                ByteBuffer header = StandardCharsets.UTF_8.encode(HEADER + "\n");
+                while (header.hasRemaining()) {
+                    channel.write(header);
+                }
+            }
+            return channel;
+        } catch (IOException exception) {
+            throw new ManagerIOException("Ошибка открытия файла " + filePath, exception);
+        }
+    }
+
+    private static class Entry {
+        private final long sequence;
+        private final String record;
+        private final List<Task> checkpointState;
+        private final boolean force;
+
+        private Entry(long sequence, String record, List<Task> checkpointState, boolean force) {
+            this.sequence = sequence;
+            this.record = record;
+            this.checkpointState = checkpointState;
+            this.force = force;
+        }
+    }
+}
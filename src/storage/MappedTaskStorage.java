@@ -0,0 +1,362 @@
+package storage;
+
+import exception.ManagerIOException;
+import model.Task;
+import model.TaskType;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+/**
+ * Хранилище, в котором каждая задача лежит в слоте фиксированного размера
+ * в отображённом в память файле. Слот выбирается по id задачи, поэтому изменение
+ * одной задачи — это запись в один слот без сериализации остальных.
+ * <p>
+ * Файл начинается с заголовка {@link #HEADER_SIZE} байт: {@link #MAGIC}, версия
+ * и размер слота. Дальше идут слоты, отображаемые в память областями примерно
+ * по {@link #REGION_SIZE} байт; новые области добавляются по мере роста id.
+ * Слот начинается с признака занятости, длины записи и её CRC32, за ними идёт
+ * запись задачи в формате {@link BinaryTaskWriter}. Контрольная сумма позволяет
+ * обнаружить запись, оборванную при сбое посреди перезаписи слота. Задача,
+ * которая не помещается в слот, отклоняется {@link #check(Task)} ещё до изменения
+ * менеджера.
+ * <p>
+ * Данные попадают на диск через кэш страниц ОС; {@link #flush()} принудительно
+ * сбрасывает изменённые страницы.
+ */
+public class MappedTaskStorage implements TaskStorage {
+    public static final byte[] MAGIC = {'K', 'B', 'M'};
+    public static final byte VERSION = 2;
+    public static final int DEFAULT_SLOT_SIZE = 1024;
+    static final int HEADER_SIZE = 16;
+    private static final int REGION_SIZE = 64 * 1024 * 1024;
+    private static final byte FREE_SLOT = 0;
+    private static final byte USED_SLOT = 1;
+    private static final int SLOT_HEADER_SIZE = 1 + Integer.BYTES + Integer.BYTES;
+    private static final int MAX_ID_SIZE = 5;
+
+    private final Path filePath;
+    private final FileChannel channel;
+    private final int slotSize;
+    private final int slotsPerRegion;
+    private final List<MappedByteBuffer> regions = new ArrayList<>();
+    private final SlotOutputStream slotOutput;
+    private final BinaryTaskWriter slotWriter;
+    private final SlotInputStream slotInput = new SlotInputStream();
+    private final BinaryTaskReader slotReader;
+
+    public MappedTaskStorage(Path filePath) {
+        this(filePath, DEFAULT_SLOT_SIZE);
+    }
+
+    /**
+     * @param slotSize размер слота для нового файла; у существующего файла
+     *                 используется размер из заголовка
+     */
+    public MappedTaskStorage(Path filePath, int slotSize) {
+        this.filePath = filePath;
+
+        try {
+            this.channel = FileChannel.open(filePath, READ, WRITE, CREATE);
+            this.slotSize = channel.size() == 0 ? writeHeader(slotSize) : readHeader();
+            this.slotsPerRegion = Math.max(1, REGION_SIZE / this.slotSize);
+
+            long regionBytes = (long) slotsPerRegion * this.slotSize;
+            long regionsCount = (channel.size() - HEADER_SIZE + regionBytes - 1) / regionBytes;
+            for (int i = 0; i < regionsCount; i++) {
+                mapRegion();
+            }
+
+            this.slotOutput = new SlotOutputStream(this.slotSize - SLOT_HEADER_SIZE);
+            this.slotWriter = new BinaryTaskWriter(slotOutput, this.slotSize, false);
+            this.slotReader = new BinaryTaskReader(slotInput, this.slotSize, false);
+        } catch (IOException exception) {
+            throw new ManagerIOException("Ошибка открытия файла " + filePath, exception);
+        }
+    }
+
+    @Override
+    public synchronized List<Task> load() {
+        List<Task> tasks = new ArrayList<>();
+
+        try {
+            for (int regionIndex = 0; regionIndex < regions.size(); regionIndex++) {
+                MappedByteBuffer region = regions.get(regionIndex);
+                for (int slot = 0; slot < slotsPerRegion; slot++) {
+                    int offset = slot * slotSize;
+                    if (region.get(offset) == USED_SLOT) {
+                        selectRecord(region, offset);
+                        slotReader.reset();
+                        tasks.add(slotReader.read());
+                    }
+                }
+            }
+        } catch (IOException exception) {
+            throw new ManagerIOException("Ошибка чтения из файла " + filePath, exception);
+        }
+        return tasks;
+    }
+
+    /**
+     * Кодирует задачу и проверяет, что она поместится в слот. У новой задачи ещё
+     * нет id, поэтому под него резервируется максимальная длина varint.
+     */
+    @Override
+    public synchronized void check(Task task) {
+        encode(task);
+        if (task.getId() == 0 && slotOutput.size + MAX_ID_SIZE - 1 > slotOutput.bytes.length) {
+            throw slotOverflow(task);
+        }
+    }
+
+    @Override
+    public synchronized void create(Task task) {
+        write(task);
+    }
+
+    @Override
+    public synchronized void update(Task task) {
+        write(task);
+    }
+
+    @Override
+    public synchronized void remove(List<Integer> ids) {
+        for (int id : ids) {
+            if (slotRegionIndex(id) < regions.size()) {
+                regions.get(slotRegionIndex(id)).put(slotOffset(id), FREE_SLOT);
+            }
+        }
+    }
+
+    @Override
+    public synchronized void removeAll(TaskType type) {
+        byte typeTag = (byte) (type.ordinal() + 1);
+        byte subTaskTag = (byte) (TaskType.SUB_TASK.ordinal() + 1);
+
+        for (MappedByteBuffer region : regions) {
+            for (int slot = 0; slot < slotsPerRegion; slot++) {
+                int offset = slot * slotSize;
+                if (region.get(offset) == USED_SLOT) {
+                    byte savedTypeTag = region.get(offset + SLOT_HEADER_SIZE);
+                    if (savedTypeTag == typeTag || (type == TaskType.EPIC_TASK && savedTypeTag == subTaskTag)) {
+                        region.put(offset, FREE_SLOT);
+                    }
+                }
+            }
+        }
+    }
+
+    @Override
+    public synchronized void clear() {
+        for (MappedByteBuffer region : regions) {
+            for (int slot = 0; slot < slotsPerRegion; slot++) {
+                region.put(slot * slotSize, FREE_SLOT);
+            }
+        }
+    }
+
+    @Override
+    public synchronized void flush() {
+        for (MappedByteBuffer region : regions) {
+            region.force();
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        try {
+            flush();
+            channel.close();
+        } catch (IOException exception) {
+            throw new ManagerIOException("Ошибка закрытия файла " + filePath, exception);
+        }
+    }
+
+    /**
+     * Сначала кодирует задачу во временный буфер, чтобы слишком большая запись
+     * не испортила сохранённую в слоте версию, затем копирует её в слот.
+     * Длина и контрольная сумма пишутся после записи: если запись оборвётся,
+     * сумма не сойдётся с содержимым слота.
+     */
+    private void write(Task task) {
+        if (task.getId() < 0) {
+            throw new ManagerIOException("Некорректный id задачи: " + task.getId());
+        }
+        encode(task);
+
+        int regionIndex = slotRegionIndex(task.getId());
+        try {
+            while (regions.size() <= regionIndex) {
+                mapRegion();
+            }
+        } catch (IOException exception) {
+            throw new ManagerIOException("Ошибка записи в файл " + filePath, exception);
+        }
+
+        MappedByteBuffer region = regions.get(regionIndex);
+        int offset = slotOffset(task.getId());
+        CRC32 checksum = new CRC32();
+        checksum.update(slotOutput.bytes, 0, slotOutput.size);
+        region.put(offset + SLOT_HEADER_SIZE, slotOutput.bytes, 0, slotOutput.size);
+        region.putInt(offset + 1, slotOutput.size);
+        region.putInt(offset + 1 + Integer.BYTES, (int) checksum.getValue());
+        region.put(offset, USED_SLOT);
+    }
+
+    private void encode(Task task) {
+        try {
+            slotOutput.reset();
+            slotWriter.write(task);
+            slotWriter.flush();
+        } catch (IOException exception) {
+            throw new ManagerIOException("Ошибка записи задачи " + task.getId(), exception);
+        } catch (SlotOverflowException exception) {
+            throw slotOverflow(task);
+        }
+    }
+
+    private ManagerIOException slotOverflow(Task task) {
+        return new ManagerIOException("Задача " + task.getId() + " не помещается в слот размером "
+                + slotSize + " байт");
+    }
+
+    /**
+     * Выбирает запись слота для чтения, предварительно сверив её длину и CRC32.
+     */
+    private void selectRecord(MappedByteBuffer region, int offset) {
+        int length = region.getInt(offset + 1);
+        int from = offset + SLOT_HEADER_SIZE;
+        if (length < 0 || length > slotSize - SLOT_HEADER_SIZE) {
+            throw new ManagerIOException("Повреждён слот со смещением " + offset + " в файле " + filePath);
+        }
+
+        CRC32 checksum = new CRC32();
+        checksum.update(region.slice(from, length));
+        if ((int) checksum.getValue() != region.getInt(offset + 1 + Integer.BYTES)) {
+            throw new ManagerIOException("Повреждён слот со смещением " + offset + " в файле " + filePath);
+        }
+        slotInput.select(region, from, from + length);
+    }
+
+    private int slotRegionIndex(int id) {
+        return id / slotsPerRegion;
+    }
+
+    private int slotOffset(int id) {
+        return (id % slotsPerRegion) * slotSize;
+    }
+
+    private void mapRegion() throws IOException {
+        long regionBytes = (long) slotsPerRegion * slotSize;
+        long position = HEADER_SIZE + regions.size() * regionBytes;
+        regions.add(channel.map(FileChannel.MapMode.READ_WRITE, position, regionBytes));
+    }
+
+    private int writeHeader(int slotSize) throws IOException {
+        if (slotSize <= SLOT_HEADER_SIZE || slotSize > REGION_SIZE) {
+            throw new IllegalArgumentException("Некорректный размер слота: " + slotSize);
+        }
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.put(MAGIC).put(VERSION).putInt(slotSize).rewind();
+        while (header.hasRemaining()) {
+            channel.write(header, header.position());
+        }
+        return slotSize;
+    }
+
+    private int readHeader() throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        if (channel.read(header, 0) < HEADER_SIZE) {
+            throw new ManagerIOException("Файл " + filePath + " не является хранилищем задач");
+        }
+        header.flip();
+
+        for (byte magicByte : MAGIC) {
+            if (header.get() != magicByte) {
+                throw new ManagerIOException("Файл " + filePath + " не является хранилищем задач");
+            }
+        }
+        byte version = header.get();
+        if (version != VERSION) {
+            throw new ManagerIOException("Неподдерживаемая версия хранилища задач: " + version);
+        }
+        return header.getInt();
+    }
+
+    private static class SlotOverflowException extends RuntimeException {
+    }
+
+    /**
+     * Буфер одной закодированной записи, не превышающий размер слота.
+     */
+    private static class SlotOutputStream extends OutputStream {
+        private final byte[] bytes;
+        private int size;
+
+        private SlotOutputStream(int capacity) {
+            this.bytes = new byte[capacity];
+        }
+
+        private void reset() {
+            size = 0;
+        }
+
+        @Override
+        public void write(int b) {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            if (len > bytes.length - size) {
+                throw new SlotOverflowException();
+            }
+            System.arraycopy(b, off, bytes, size, len);
+            size += len;
+        }
+    }
+
+    /**
+     * Поток для чтения содержимого одного слота прямо из отображённой области.
+     */
+    private static class SlotInputStream extends InputStream {
+        private ByteBuffer region;
+        private int position;
+        private int limit;
+
+        private void select(ByteBuffer region, int from, int to) {
+            this.region = region;
+            this.position = from;
+            this.limit = to;
+        }
+
+        @Override
+        public int read() {
+            return position < limit ? region.get(position++) & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            int count = Math.min(len, limit - position);
+            if (count <= 0) {
+                return -1;
+            }
+            region.get(position, b, off, count);
+            position += count;
+            return count;
+        }
+    }
+}
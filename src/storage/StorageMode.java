@@ -0,0 +1,58 @@
+package storage;
+
+import exception.ManagerIOException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+public enum StorageMode {
+    /**
+     * Весь файл CSV перезаписывается после каждого изменения.
+     */
+    CSV,
+    /**
+     * Каждое изменение дописывается одной записью в конец журнала.
+     */
+    LOG,
+    /**
+     * Весь файл перезаписывается после каждого изменения в двоичном формате.
+     */
+    BINARY,
+    /**
+     * Каждая задача хранится в своём слоте отображённого в память файла.
+     */
+    MAPPED;
+
+    /**
+     * Определяет формат файла по первым байтам. Пустой файл считается CSV.
+     */
+    public static StorageMode of(Path filePath) {
+        byte[] logHeader = LogTaskStorage.HEADER.getBytes(StandardCharsets.UTF_8);
+        byte[] magic = BinaryTaskWriter.MAGIC;
+        byte[] mappedMagic = MappedTaskStorage.MAGIC;
+
+        try (InputStream in = Files.newInputStream(filePath)) {
+            byte[] head = in.readNBytes(Math.max(logHeader.length + 1, magic.length));
+            if (head.length >= magic.length && Arrays.equals(head, 0, magic.length, magic, 0, magic.length)) {
+                return BINARY;
+            }
+            if (head.length >= mappedMagic.length
+                    && Arrays.equals(head, 0, mappedMagic.length, mappedMagic, 0, mappedMagic.length)) {
+                return MAPPED;
+            }
+            if (head.length >= logHeader.length
+                    && Arrays.equals(head, 0, logHeader.length, logHeader, 0, logHeader.length)
+                    && (head.length == logHeader.length || head[logHeader.length] == '\n'
+                    || head[logHeader.length] == '\r')) {
+                return LOG;
+            }
+            return CSV;
+        } catch (IOException exception) {
+            throw new ManagerIOException("Ошибка чтения из файла " + filePath, exception);
+        }
+    }
+}
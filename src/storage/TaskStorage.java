@@ -0,0 +1,69 @@
+package storage;
+
+import model.Task;
+import model.TaskType;
+
+import java.util.List;
+
+/**
+ * Хранилище задач для {@link service.FileBackedTaskManager}.
+ * Менеджер сообщает хранилищу о каждом успешном изменении, а при запуске
+ * получает из него сохранённые задачи.
+ */
+public interface TaskStorage extends AutoCloseable {
+
+    List<Task> load();
+
+    /**
+     * Проверяет, что задачу можно сохранить, и бросает
+     * {@link exception.ManagerIOException}, если нельзя. Менеджер вызывает проверку
+     * до изменения задач в памяти, чтобы отклонённая задача не осталась в нём.
+     */
+    default void check(Task task) {
+    }
+
+    void create(Task task);
+
+    void update(Task task);
+
+    /**
+     * Сохраняет созданные или изменённые задачи пакета. По умолчанию сохраняет их
+     * по одной, хранилища с перезаписью файла целиком записывают его один раз.
+     */
+    default void updateAll(List<Task> tasks) {
+        for (Task task : tasks) {
+            update(task);
+        }
+    }
+
+    /**
+     * Удаляет задачи с переданными id, например эпик вместе с его подзадачами.
+     */
+    void remove(List<Integer> ids);
+
+    void removeAll(TaskType type);
+
+    /**
+     * Удаляет все сохранённые задачи. Менеджер вызывает этот метод, когда создаётся
+     * пустым, а не загружается из файла, до первого изменения. Хранилища, которые
+     * при каждом изменении перезаписывают файл целиком, по умолчанию ничего не делают.
+     */
+    default void clear() {
+    }
+
+    /**
+     * Сохраняет снимок всех задач, если хранилище это поддерживает.
+     */
+    default void checkpoint() {
+    }
+
+    /**
+     * Дожидается, пока все принятые изменения будут записаны на диск.
+     */
+    default void flush() {
+    }
+
+    @Override
+    default void close() {
+    }
+}
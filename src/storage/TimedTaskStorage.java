@@ -0,0 +1,154 @@
+package storage;
+
+import metrics.LatencyHistogram;
+import metrics.MetricsSource;
+import metrics.MetricsWriter;
+import model.Task;
+import model.TaskType;
+
+import java.util.List;
+
+/**
+ * Хранилище, которое измеряет время операций вложенного хранилища.
+ * Для каждой операции ведётся своя гистограмма длительностей.
+ */
+public class TimedTaskStorage implements TaskStorage, MetricsSource {
+    private static final String DURATION_METRIC = "kanban_storage_operation_duration_seconds";
+    private static final int LOAD = 0;
+    private static final int CREATE = 1;
+    private static final int UPDATE = 2;
+    private static final int UPDATE_ALL = 3;
+    private static final int REMOVE = 4;
+    private static final int REMOVE_ALL = 5;
+    private static final int CHECKPOINT = 6;
+    private static final int FLUSH = 7;
+    private static final int CHECK = 8;
+    private static final int CLEAR = 9;
+    private static final String[] OPERATIONS = {
+            "load", "create", "update", "update_all", "remove", "remove_all", "checkpoint", "flush", "check",
+            "clear"
+    };
+
+    private final TaskStorage storage;
+    private final LatencyHistogram[] durations = new LatencyHistogram[OPERATIONS.length];
+
+    public TimedTaskStorage(TaskStorage storage) {
+        this.storage = storage;
+        for (int i = 0; i < durations.length; i++) {
+            durations[i] = new LatencyHistogram();
+        }
+    }
+
+    @Override
+    public List<Task> load() {
+        long start = System.nanoTime();
+        try {
+            return storage.load();
+        } finally {
+            durations[LOAD].record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public void check(Task task) {
+        long start = System.nanoTime();
+        try {
+            storage.check(task);
+        } finally {
+            durations[CHECK].record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public void create(Task task) {
+        long start = System.nanoTime();
+        try {
+            storage.create(task);
+        } finally {
+            durations[CREATE].record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public void update(Task task) {
+        long start = System.nanoTime();
+        try {
+            storage.update(task);
+        } finally {
+            durations[UPDATE].record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public void updateAll(List<Task> tasks) {
+        long start = System.nanoTime();
+        try {
+            storage.updateAll(tasks);
+        } finally {
+            durations[UPDATE_ALL].record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public void remove(List<Integer> ids) {
+        long start = System.nanoTime();
+        try {
+            storage.remove(ids);
+        } finally {
+            durations[REMOVE].record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public void removeAll(TaskType type) {
+        long start = System.nanoTime();
+        try {
+            storage.removeAll(type);
+        } finally {
+            durations[REMOVE_ALL].record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public void clear() {
+        long start = System.nanoTime();
+        try {
+            storage.clear();
+        } finally {
+            durations[CLEAR].record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public void checkpoint() {
+        long start = System.nanoTime();
+        try {
+            storage.checkpoint();
+        } finally {
+            durations[CHECKPOINT].record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public void flush() {
+        long start = System.nanoTime();
+        try {
+            storage.flush();
+        } finally {
+            durations[FLUSH].record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public void close() {
+        storage.close();
+    }
+
+    @Override
+    public void writeMetrics(MetricsWriter writer) {
+        writer.family(DURATION_METRIC, "histogram", "Время операций хранилища задач");
+        for (int i = 0; i < OPERATIONS.length; i++) {
+            durations[i].writeTo(writer, DURATION_METRIC, "operation=\"" + OPERATIONS[i] + "\"");
+        }
+    }
+}
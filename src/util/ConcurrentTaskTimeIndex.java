@@ -0,0 +1,42 @@
+package util;
+
+import model.Task;
+
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * Потокобезопасный индекс задач по времени. Изменения выполняются под общим
+ * монитором, чтобы проверка пересечения и вставка были атомарны, а чтение
+ * идёт по {@link ConcurrentSkipListSet} без блокировок.
+ */
+public class ConcurrentTaskTimeIndex extends TaskTimeIndex {
+
+    public ConcurrentTaskTimeIndex() {
+        super(new ConcurrentSkipListSet<>(new TasksStartTimeComparator()));
+    }
+
+    @Override
+    public synchronized boolean addIfNoIntersection(Task task) {
+        return super.addIfNoIntersection(task);
+    }
+
+    @Override
+    public synchronized boolean replaceIfNoIntersection(Task oldTask, Task newTask) {
+        return super.replaceIfNoIntersection(oldTask, newTask);
+    }
+
+    @Override
+    public synchronized void add(Task task) {
+        super.add(task);
+    }
+
+    @Override
+    public synchronized boolean remove(Task task) {
+        return super.remove(task);
+    }
+
+    @Override
+    public synchronized void clear() {
+        super.clear();
+    }
+}
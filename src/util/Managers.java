@@ -1,5 +1,8 @@
 package util;
 
+import service.ArrayHistoryManager;
+import service.ConcurrentHistoryManager;
+import service.ConcurrentTaskManager;
 import service.HistoryManager;
 import service.InMemoryHistoryManager;
 import service.InMemoryTaskManager;
@@ -11,7 +14,31 @@ public class Managers {
         return new InMemoryTaskManager();
     }
 
+    public static TaskManager getDefaultConcurrent() {
+        return new ConcurrentTaskManager();
+    }
+
+    /**
+     * Возвращает историю без ограничения размера.
+     */
     public static HistoryManager getDefaultHistory() {
         return new InMemoryHistoryManager();
     }
+
+    /**
+     * Возвращает историю не больше {@code capacity} задач, которая не выделяет память
+     * при просмотрах. Когда история заполнена, из неё вытесняется задача, которую
+     * дольше всех не просматривали. Передаётся в менеджер через
+     * {@link InMemoryTaskManager#InMemoryTaskManager(HistoryManager)}.
+     */
+    public static HistoryManager getBoundedHistory(int capacity) {
+        return new ArrayHistoryManager(capacity);
+    }
+
+    /**
+     * Возвращает потокобезопасную историю размером {@link ConcurrentHistoryManager#DEFAULT_CAPACITY}.
+     */
+    public static HistoryManager getDefaultConcurrentHistory() {
+        return new ConcurrentHistoryManager();
+    }
 }
@@ -0,0 +1,317 @@
+package util;
+
+import exception.ManagerIOException;
+import model.EpicTask;
+import model.Status;
+import model.SubTask;
+import model.Task;
+import model.TaskType;
+
+import java.time.DateTimeException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * Разбор строки CSV с задачей прямо из буфера символов.
+ * <p>
+ * Границы полей запоминаются во внутренних массивах, числа, перечисления и время
+ * разбираются без промежуточных строк, а значение {@code null} считается обычным
+ * значением поля, а не ошибкой разбора. Поля в кавычках могут содержать запятые,
+ * переводы строк и удвоенные кавычки. Экземпляр не потокобезопасен, но его можно
+ * переиспользовать для любого количества строк.
+ */
+public class TaskCsvParser {
+    private static final int FIELDS_COUNT = 8;
+    private static final int ID = 0;
+    private static final int TYPE = 1;
+    private static final int TITLE = 2;
+    private static final int STATUS = 3;
+    private static final int DESCRIPTION = 4;
+    private static final int EPIC = 5;
+    private static final int DURATION = 6;
+    private static final int START_TIME = 7;
+    private static final String NULL = "null";
+    private static final TaskType[] TYPES = TaskType.values();
+    private static final Status[] STATUSES = Status.values();
+
+    private final int[] starts = new int[FIELDS_COUNT];
+    private final int[] ends = new int[FIELDS_COUNT];
+    private final boolean[] quoted = new boolean[FIELDS_COUNT];
+    private CharSequence text;
+    private int recordStart;
+    private int recordEnd;
+
+    /**
+     * Находит конец записи, начинающейся с {@code from}: первый перевод строки вне кавычек.
+     *
+     * @return индекс перевода строки или {@code to}, если запись заканчивается вместе с диапазоном
+     */
+    public static int findRecordEnd(CharSequence text, int from, int to) {
+        boolean inQuotes = false;
+        for (int i = from; i < to; i++) {
+            char symbol = text.charAt(i);
+            if (symbol == '"') {
+                inQuotes = !inQuotes;
+            } else if (symbol == '\n' && !inQuotes) {
+                return i;
+            }
+        }
+        return to;
+    }
+
+    /**
+     * Разбирает задачу из записи, занимающей символы {@code [from, to)}.
+     */
+    public Task parse(CharSequence text, int from, int to) {
+        this.text = text;
+        this.recordStart = from;
+        this.recordEnd = to;
+
+        try {
+            splitFields();
+            return createTask();
+        } catch (DateTimeException exception) {
+            throw new ManagerIOException("Некорректная строка задачи: " + text.subSequence(from, to), exception);
+        } finally {
+            this.text = null;
+        }
+    }
+
+    private void splitFields() {
+        int position = recordStart;
+
+        for (int field = 0; field < FIELDS_COUNT; field++) {
+            if (position > recordEnd) {
+                throw invalidRecord();
+            }
+
+            if (position < recordEnd && text.charAt(position) == '"') {
+                quoted[field] = true;
+                starts[field] = position + 1;
+                position++;
+                while (true) {
+                    if (position >= recordEnd) {
+                        throw invalidRecord();
+                    }
+                    if (text.charAt(position) == '"') {
+                        if (position + 1 < recordEnd && text.charAt(position + 1) == '"') {
+                            position += 2;
+                            continue;
+                        }
+                        break;
+                    }
+                    position++;
+                }
+                ends[field] = position;
+                position++;
+                if (position < recordEnd && text.charAt(position) != ',') {
+                    throw invalidRecord();
+                }
+            } else {
+                quoted[field] = false;
+                starts[field] = position;
+                while (position < recordEnd && text.charAt(position) != ',') {
+                    position++;
+                }
+                ends[field] = position;
+            }
+            position++;
+        }
+
+        if (position <= recordEnd) {
+            throw invalidRecord();
+        }
+    }
+
+    private Task createTask() {
+        int id = parseInt(ID);
+        TaskType type = parseEnum(TYPE, TYPES);
+        String title = parseString(TITLE);
+        Status status = parseEnum(STATUS, STATUSES);
+        String description = parseString(DESCRIPTION);
+        LocalDateTime startTime = isNull(START_TIME) ? null : parseDateTime(START_TIME);
+        Duration duration = startTime == null ? null : Duration.ofMinutes(parseLong(DURATION));
+
+        Task task;
+        switch (type) {
+            case EPIC_TASK:
+                task = new EpicTask(title, description);
+                break;
+            case SUB_TASK:
+                int epicTaskId = parseInt(EPIC);
+                if (startTime != null) {
+                    task = new SubTask(title, description, status, epicTaskId, startTime, duration);
+                } else {
+                    task = new SubTask(title, description, status, epicTaskId);
+                }
+                break;
+            default:
+                if (startTime != null) {
+                    task = new Task(title, description, status, startTime, duration);
+                } else {
+                    task = new Task(title, description, status);
+                }
+        }
+
+        task.setId(id);
+        return task;
+    }
+
+    private boolean isNull(int field) {
+        return !quoted[field] && matches(starts[field], ends[field], NULL);
+    }
+
+    private String parseString(int field) {
+        if (isNull(field)) {
+            return null;
+        }
+
+        int start = starts[field];
+        int end = ends[field];
+        if (!quoted[field]) {
+            return text.subSequence(start, end).toString();
+        }
+
+        StringBuilder builder = null;
+        for (int i = start; i < end; i++) {
+            if (text.charAt(i) == '"') {
+                if (builder == null) {
+                    builder = new StringBuilder(end - start).append(text, start, i);
+                }
+                i++;
+            }
+            if (builder != null) {
+                builder.append(text.charAt(i));
+            }
+        }
+        return builder != null ? builder.toString() : text.subSequence(start, end).toString();
+    }
+
+    private int parseInt(int field) {
+        long value = parseLong(field);
+        if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+            throw invalidRecord();
+        }
+        return (int) value;
+    }
+
+    private long parseLong(int field) {
+        int position = starts[field];
+        int end = ends[field];
+        boolean negative = position < end && text.charAt(position) == '-';
+        if (negative) {
+            position++;
+        }
+        if (position == end || end - position > 18) {
+            throw invalidRecord();
+        }
+
+        long value = 0;
+        for (; position < end; position++) {
+            value = value * 10 + digit(position);
+        }
+        return negative ? -value : value;
+    }
+
+    private <E extends Enum<E>> E parseEnum(int field, E[] values) {
+        for (E value : values) {
+            if (matches(starts[field], ends[field], value.name())) {
+                return value;
+            }
+        }
+        throw invalidRecord();
+    }
+
+    /**
+     * Разбирает время в формате {@link LocalDateTime#toString()}:
+     * {@code uuuu-MM-ddTHH:mm[:ss[.nnnnnnnnn]]}.
+     */
+    private LocalDateTime parseDateTime(int field) {
+        int position = starts[field];
+        int end = ends[field];
+        if (position == end) {
+            throw invalidRecord();
+        }
+
+        int yearStart = position;
+        if (position < end && (text.charAt(position) == '+' || text.charAt(position) == '-')) {
+            position++;
+        }
+        int year = 0;
+        while (position < end && text.charAt(position) != '-') {
+            year = year * 10 + digit(position++);
+        }
+        if (text.charAt(yearStart) == '-') {
+            year = -year;
+        }
+
+        position = expect(position, end, '-');
+        int month = twoDigits(position, end);
+        position = expect(position + 2, end, '-');
+        int day = twoDigits(position, end);
+        position = expect(position + 2, end, 'T');
+        int hour = twoDigits(position, end);
+        position = expect(position + 2, end, ':');
+        int minute = twoDigits(position, end);
+        position += 2;
+
+        int second = 0;
+        int nano = 0;
+        if (position < end) {
+            position = expect(position, end, ':');
+            second = twoDigits(position, end);
+            position += 2;
+
+            if (position < end) {
+                position = expect(position, end, '.');
+                int digits = end - position;
+                if (digits == 0 || digits > 9) {
+                    throw invalidRecord();
+                }
+                for (int i = 0; i < 9; i++) {
+                    nano = nano * 10 + (i < digits ? digit(position + i) : 0);
+                }
+            }
+        }
+
+        return LocalDateTime.of(year, month, day, hour, minute, second, nano);
+    }
+
+    private int expect(int position, int end, char symbol) {
+        if (position >= end || text.charAt(position) != symbol) {
+            throw invalidRecord();
+        }
+        return position + 1;
+    }
+
+    private int twoDigits(int position, int end) {
+        if (position + 2 > end) {
+            throw invalidRecord();
+        }
+        return digit(position) * 10 + digit(position + 1);
+    }
+
+    private int digit(int position) {
+        int digit = text.charAt(position) - '0';
+        if (digit < 0 || digit > 9) {
+            throw invalidRecord();
+        }
+        return digit;
+    }
+
+    private boolean matches(int start, int end, String value) {
+        if (end - start != value.length()) {
+            return false;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            if (text.charAt(start + i) != value.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private ManagerIOException invalidRecord() {
+        return new ManagerIOException("Некорректная строка задачи: " + text.subSequence(recordStart, recordEnd));
+    }
+}
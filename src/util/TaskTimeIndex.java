@@ -0,0 +1,132 @@
+package util;
+
+import model.Task;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+
+/**
+ * Индекс задач по времени начала. Хранимые интервалы не пересекаются, поэтому
+ * для проверки новой задачи достаточно сравнить её с ближайшими соседями:
+ * поиск, добавление и удаление выполняются за O(log n).
+ */
+public class TaskTimeIndex {
+    protected final NavigableSet<Task> tasks;
+
+    public TaskTimeIndex() {
+        this(new TreeSet<>(new TasksStartTimeComparator()));
+    }
+
+    protected TaskTimeIndex(NavigableSet<Task> tasks) {
+        this.tasks = tasks;
+    }
+
+    /**
+     * Проверяет, пересекается ли задача по времени с уже сохранёнными.
+     * Сохранённая версия той же задачи (с тем же id) не учитывается.
+     */
+    public boolean hasIntersection(Task task) {
+        Task lower = tasks.floor(task);
+        if (lower != null && lower.getId() == task.getId()) {
+            lower = tasks.lower(lower);
+        }
+
+        Task higher = tasks.higher(task);
+        if (higher != null && higher.getId() == task.getId()) {
+            higher = tasks.higher(higher);
+        }
+
+        return (lower != null && isTimeIntersection(task, lower))
+                || (higher != null && isTimeIntersection(task, higher));
+    }
+
+    /**
+     * Добавляет задачу, если она не пересекается по времени с сохранёнными.
+     *
+     * @return {@code false}, если найдено пересечение и задача не добавлена
+     */
+    public boolean addIfNoIntersection(Task task) {
+        if (hasIntersection(task)) {
+            return false;
+        }
+        tasks.add(task);
+        return true;
+    }
+
+    /**
+     * Заменяет сохранённую версию задачи на новую, если новая не пересекается
+     * по времени с остальными задачами.
+     *
+     * @return {@code false}, если найдено пересечение и индекс не изменён
+     */
+    public boolean replaceIfNoIntersection(Task oldTask, Task newTask) {
+        if (hasIntersection(newTask)) {
+            return false;
+        }
+        remove(oldTask);
+        tasks.add(newTask);
+        return true;
+    }
+
+    public void add(Task task) {
+        tasks.add(task);
+    }
+
+    public boolean remove(Task task) {
+        if (task == null || task.getStartTime() == null) {
+            return false;
+        }
+        return tasks.remove(task);
+    }
+
+    public void clear() {
+        tasks.clear();
+    }
+
+    public boolean isEmpty() {
+        return tasks.isEmpty();
+    }
+
+    public int size() {
+        return tasks.size();
+    }
+
+    public List<Task> toList() {
+        return new ArrayList<>(tasks);
+    }
+
+    /**
+     * Возвращает задачи, начиная с указанного места индекса, в порядке времени начала.
+     * Коллекция — представление индекса, а не копия.
+     *
+     * @param startTime время начала, с которого начинается обход; {@code null} — с начала индекса
+     * @param id        id задачи для сравнения при равном времени начала
+     * @param inclusive включать ли задачу, совпадающую с местом начала
+     */
+    public Iterable<Task> tailFrom(LocalDateTime startTime, int id, boolean inclusive) {
+        if (startTime == null) {
+            return Collections.unmodifiableSet(tasks);
+        }
+
+        Task bound = new Task(null, null, null, startTime, Duration.ZERO);
+        bound.setId(id);
+        return Collections.unmodifiableSet(tasks.tailSet(bound, inclusive));
+    }
+
+    private static boolean isTimeIntersection(Task task1, Task task2) {
+        LocalDateTime startTime1 = task1.getStartTime();
+        LocalDateTime endTime1 = task1.getEndTime();
+        LocalDateTime startTime2 = task2.getStartTime();
+        LocalDateTime endTime2 = task2.getEndTime();
+
+        return startTime1.equals(startTime2) ||
+                endTime1.equals(endTime2) ||
+                (startTime1.isAfter(startTime2) && startTime1.isBefore(endTime2)) ||
+                (startTime1.isBefore(startTime2) && endTime1.isAfter(startTime2));
+    }
+}
@@ -3,21 +3,61 @@ package util;
 import model.Task;
 
 public class TaskToStringConverter {
+    public static final String HEADER = "id,type,title,status,description,epic,duration,startTime";
+
     public static String toString(Task task) {
+        StringBuilder builder = new StringBuilder(64);
+        builder.append(task.getId()).append(',')
+                .append(task.getType()).append(',');
+        appendField(builder, task.getTitle());
+        builder.append(',').append(task.getStatus()).append(',');
+        appendField(builder, task.getDescription());
+        builder.append(',').append(task.getEpicTaskId()).append(',');
+
         if (task.getStartTime() != null) {
-            return String.format("%d,%s,%s," +
-                            "%s,%s,%d," +
-                            "%d,%s",
-                    task.getId(), task.getType(), task.getTitle(),
-                    task.getStatus(), task.getDescription(), task.getEpicTaskId(),
-                    task.getDuration().toMinutes(), task.getStartTime());
+            builder.append(task.getDuration().toMinutes()).append(',').append(task.getStartTime());
+        } else {
+            builder.append("null,null");
+        }
+        return builder.toString();
+    }
+
+    public static Task fromString(String string) {
+        return new TaskCsvParser().parse(string, 0, string.length());
+    }
+
+    /**
+     * Пишет значение как есть, если его нельзя спутать с разделителем или с {@code null},
+     * иначе берёт его в кавычки и удваивает кавычки внутри.
+     */
+    private static void appendField(StringBuilder builder, String value) {
+        if (value == null) {
+            builder.append("null");
+        } else if (!needsQuotes(value)) {
+            builder.append(value);
         } else {
-            return String.format("%d,%s,%s," +
-                            "%s,%s,%d," +
-                            "%s,%s",
-                    task.getId(), task.getType(), task.getTitle(),
-                    task.getStatus(), task.getDescription(), task.getEpicTaskId(),
-                    null, null);
+            builder.append('"');
+            for (int i = 0; i < value.length(); i++) {
+                char symbol = value.charAt(i);
+                if (symbol == '"') {
+                    builder.append('"');
+                }
+                builder.append(symbol);
+            }
+            builder.append('"');
+        }
+    }
+
+    private static boolean needsQuotes(String value) {
+        if ("null".equals(value)) {
+            return true;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            char symbol = value.charAt(i);
+            if (symbol == ',' || symbol == '"' || symbol == '\n' || symbol == '\r') {
+                return true;
+            }
         }
+        return false;
     }
 }
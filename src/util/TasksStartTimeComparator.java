@@ -7,6 +7,10 @@ import java.util.Comparator;
 public class TasksStartTimeComparator implements Comparator<Task> {
     @Override
     public int compare(Task t1, Task t2) {
-        return t1.getStartTime().compareTo(t2.getStartTime());
+        int result = t1.getStartTime().compareTo(t2.getStartTime());
+        if (result != 0) {
+            return result;
+        }
+        return Integer.compare(t1.getId(), t2.getId());
     }
 }
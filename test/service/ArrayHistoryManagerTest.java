@@ -0,0 +1,70 @@
+package service;
+
+import model.Status;
+import model.Task;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ArrayHistoryManagerTest extends HistoryManagerTest<ArrayHistoryManager> {
+    private static final int CAPACITY = 8;
+
+    @Override
+    protected ArrayHistoryManager createHistory() {
+        return new ArrayHistoryManager(CAPACITY);
+    }
+
+    @DisplayName("Вытеснить задачу, которую дольше всех не просматривали")
+    @Test
+    void shouldEvictLeastRecentlyViewedTask() {
+        for (int id = 1; id <= CAPACITY; id++) {
+            history.add(createTask(id));
+        }
+        history.add(createTask(1));
+        history.add(createTask(CAPACITY + 1));
+
+        List<Integer> ids = history.getHistory().stream().map(Task::getId).toList();
+        assertEquals(CAPACITY, ids.size(), "Неверный размер истории");
+        assertEquals(3, ids.getFirst(), "Вытеснена не самая давняя задача");
+        assertEquals(List.of(1, CAPACITY + 1), ids.subList(CAPACITY - 2, CAPACITY), "Неверный порядок просмотров");
+    }
+
+    @DisplayName("Совпасть с историей на LinkedHashMap после случайных просмотров и удалений")
+    @Test
+    void shouldMatchReferenceHistoryAfterRandomOperations() {
+        Map<Integer, Task> expected = new LinkedHashMap<>();
+        Random random = new Random(42);
+
+        for (int i = 0; i < 100_000; i++) {
+            int id = random.nextInt(CAPACITY * 4) - CAPACITY;
+            if (random.nextInt(4) == 0) {
+                history.remove(id);
+                expected.remove(id);
+            } else {
+                Task task = createTask(id);
+                history.add(task);
+                expected.remove(id);
+                expected.put(id, task);
+                if (expected.size() > CAPACITY) {
+                    expected.remove(expected.keySet().iterator().next());
+                }
+            }
+
+            assertEquals(expected.size(), history.size(), "Неверный размер истории");
+        }
+        assertEquals(new ArrayList<>(expected.values()), history.getHistory(), "Неверная история");
+    }
+
+    private Task createTask(int id) {
+        Task task = new Task("task" + id, "task desc", Status.NEW);
+        task.setId(id);
+        return task;
+    }
+}
@@ -0,0 +1,102 @@
+package service;
+
+import model.Status;
+import model.Task;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ConcurrentHistoryManagerTest extends HistoryManagerTest<ConcurrentHistoryManager> {
+    private static final int CAPACITY = 3;
+
+    @Override
+    protected ConcurrentHistoryManager createHistory() {
+        return new ConcurrentHistoryManager(CAPACITY);
+    }
+
+    @DisplayName("Вытеснить задачу, которую дольше всех не просматривали")
+    @Test
+    void shouldEvictLeastRecentlyViewedTask() {
+        List<Task> tasks = new ArrayList<>();
+        for (int i = 1; i <= 4; i++) {
+            Task task = new Task("task" + i, "task desc", Status.NEW);
+            task.setId(i);
+            tasks.add(task);
+        }
+
+        history.add(tasks.get(0));
+        history.add(tasks.get(1));
+        history.add(tasks.get(2));
+        history.add(tasks.get(0));
+        history.add(tasks.get(3));
+
+        assertEquals(List.of(3, 1, 4), history.getHistory().stream().map(Task::getId).toList(),
+                "Вытеснена не самая давняя задача");
+        assertEquals(CAPACITY, history.size(), "Неверный размер истории");
+    }
+
+    @DisplayName("Не превысить размер истории при просмотрах из нескольких потоков")
+    @Test
+    void shouldKeepCapacityWhenViewedConcurrently() throws Exception {
+        int threadsCount = 8;
+        int viewsPerThread = 10_000;
+        ExecutorService executor = Executors.newFixedThreadPool(threadsCount);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int thread = 0; thread < threadsCount; thread++) {
+            int offset = thread;
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < viewsPerThread; i++) {
+                    Task task = new Task("task", "task desc", Status.NEW);
+                    task.setId((i * threadsCount + offset) % 100);
+                    history.add(task);
+                    if (i % 7 == 0) {
+                        history.remove(task.getId());
+                    }
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        List<Task> tasks = history.getHistory();
+        assertEquals(history.size(), tasks.size(), "Размер истории не совпадает со списком");
+        assertEquals(tasks.size(), tasks.stream().map(Task::getId).distinct().count(), "Задача продублировалась");
+        assertEquals(CAPACITY, tasks.size(), "Неверный размер истории");
+    }
+
+    @DisplayName("Не копить устаревшие записи при просмотрах и удалениях из нескольких потоков")
+    @Test
+    void shouldNotKeepStaleEntriesWhenViewedAndRemovedConcurrently() throws Exception {
+        ConcurrentHistoryManager largeHistory = new ConcurrentHistoryManager(1_000);
+        int threadsCount = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threadsCount);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int thread = 0; thread < threadsCount; thread++) {
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < 20_000; i++) {
+                    Task task = new Task("task", "task desc", Status.NEW);
+                    task.setId(i % 10);
+                    largeHistory.add(task);
+                    if (i % 3 == 0) {
+                        largeHistory.remove(task.getId());
+                    }
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        assertEquals(largeHistory.size(), largeHistory.getSequencesCount(), "В истории остались устаревшие записи");
+    }
+}
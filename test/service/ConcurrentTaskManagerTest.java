@@ -0,0 +1,195 @@
+package service;
+
+import exception.ValidationException;
+import model.EpicTask;
+import model.Status;
+import model.SubTask;
+import model.Task;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ConcurrentTaskManagerTest extends TaskManagerTest<ConcurrentTaskManager> {
+    @Override
+    protected ConcurrentTaskManager createManager() {
+        return new ConcurrentTaskManager();
+    }
+
+    @DisplayName("Создать подзадачи в разных эпиках из нескольких потоков")
+    @Test
+    void shouldCreateSubTasksConcurrently() throws Exception {
+        int epicTasksCount = 8;
+        int subTasksPerEpicTask = 100;
+        LocalDateTime startTime = LocalDateTime.now();
+
+        List<EpicTask> epicTasks = new ArrayList<>();
+        for (int i = 0; i < epicTasksCount; i++) {
+            epicTasks.add(manager.createEpicTask(new EpicTask("epicTask" + i, "epicTask d")));
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(epicTasksCount);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < epicTasksCount; i++) {
+            int epicTaskIndex = i;
+            futures.add(executor.submit(() -> {
+                for (int j = 0; j < subTasksPerEpicTask; j++) {
+                    LocalDateTime subTaskStartTime = startTime.plusMinutes((long) j * epicTasksCount + epicTaskIndex);
+                    manager.createSubTask(new SubTask("subTask", "subTask d", Status.NEW,
+                            epicTasks.get(epicTaskIndex).getId(), subTaskStartTime, Duration.ofMinutes(1)));
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        assertEquals(epicTasksCount * subTasksPerEpicTask, manager.getAllSubTasks().size(),
+                "Не все подзадачи создались");
+        assertEquals(epicTasksCount * subTasksPerEpicTask, manager.getPrioritizedTasks().size(),
+                "Не все подзадачи попали в список задач с приоритетом");
+        for (EpicTask epicTask : epicTasks) {
+            assertEquals(subTasksPerEpicTask, manager.getSubTasksFromEpicTaskId(epicTask.getId()).size(),
+                    "Неверное количество подзадач у эпика");
+            assertEquals(Duration.ofMinutes(subTasksPerEpicTask), epicTask.getDuration(),
+                    "Длительность эпика не равна сумме длительности подзадач");
+        }
+    }
+
+    @DisplayName("Не допустить пересечения по времени при одновременном создании задач")
+    @Test
+    void shouldRejectIntersectingTasksCreatedConcurrently() throws Exception {
+        int threadsCount = 8;
+        LocalDateTime startTime = LocalDateTime.now();
+
+        ExecutorService executor = Executors.newFixedThreadPool(threadsCount);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < threadsCount; i++) {
+            futures.add(executor.submit(() -> {
+                for (int j = 0; j < 100; j++) {
+                    try {
+                        manager.createTask(new Task("task", "task d", Status.NEW,
+                                startTime.plusMinutes(j), Duration.ofMinutes(1)));
+                    } catch (ValidationException ignored) {
+                        // ожидаемо: другой поток уже занял этот интервал
+                    }
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        assertEquals(100, manager.getAllTasks().size(), "Создались задачи с пересечением по времени");
+        assertEquals(100, manager.getPrioritizedTasks().size(), "Неверный список задач с приоритетом");
+    }
+
+    @DisplayName("Не оставить занятое время после удаления всех задач во время создания")
+    @Test
+    void shouldKeepTimeIndexConsistentWhenRemovingAllDuringCreation() throws Exception {
+        LocalDateTime startTime = LocalDateTime.now();
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+
+        for (int round = 0; round < 50; round++) {
+            LocalDateTime roundStartTime = startTime.plusDays(round);
+            Future<?> creator = executor.submit(() -> {
+                for (int j = 0; j < 50; j++) {
+                    manager.createTask(new Task("task", "task d", Status.NEW,
+                            roundStartTime.plusMinutes(j), Duration.ofMinutes(1)));
+                    manager.createEpicTask(new EpicTask("epicTask", "epicTask d"));
+                }
+            });
+            Future<?> remover = executor.submit(() -> {
+                for (int j = 0; j < 10; j++) {
+                    manager.removeAllTasks();
+                    manager.removeAllEpicTasks();
+                }
+            });
+            creator.get();
+            remover.get();
+
+            assertEquals(manager.getAllTasks().size(), manager.getPrioritizedTasks().size(),
+                    "Индекс по времени не совпадает с задачами");
+        }
+        executor.shutdown();
+    }
+
+    @DisplayName("Читать эпики, пока в них создаются и удаляются подзадачи")
+    @Test
+    void shouldReadEpicTasksWhileSubTasksChange() throws Exception {
+        EpicTask epicTask = manager.createEpicTask(new EpicTask("epicTask", "epicTask d"));
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+
+        Future<?> writer = executor.submit(() -> {
+            for (int i = 0; i < 2_000; i++) {
+                SubTask subTask = manager.createSubTask(
+                        new SubTask("subTask", "subTask d", Status.NEW, epicTask.getId()));
+                if (i % 2 == 0) {
+                    manager.removeSubTask(subTask.getId());
+                }
+            }
+        });
+        Future<?> reader = executor.submit(() -> {
+            while (!writer.isDone()) {
+                for (EpicTask savedEpicTask : manager.getAllEpicTasks()) {
+                    savedEpicTask.getSubTasksId();
+                }
+                manager.getEpicTask(epicTask.getId()).getSubTasksId();
+            }
+        });
+        writer.get();
+        reader.get();
+        executor.shutdown();
+
+        assertEquals(1_000, manager.getEpicTask(epicTask.getId()).getSubTasksId().size(),
+                "Неверное количество подзадач у эпика");
+    }
+
+    @DisplayName("Читать эпик, пока его подзадача записывается")
+    @Test
+    void shouldReadEpicTaskWithoutWaitingForWriter() throws Exception {
+        EpicTask epicTask = manager.createEpicTask(new EpicTask("epicTask", "epicTask d"));
+        CountDownLatch writerInside = new CountDownLatch(1);
+        CountDownLatch releaseWriter = new CountDownLatch(1);
+        manager.addListener(event -> {
+            if (event.getType() == TaskEventType.CREATED) {
+                writerInside.countDown();
+                try {
+                    releaseWriter.await();
+                } catch (InterruptedException exception) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        Future<?> writer = executor.submit(() -> manager.createSubTask(
+                new SubTask("subTask", "subTask d", Status.NEW, epicTask.getId())));
+        writerInside.await();
+        Future<EpicTask> reader = executor.submit(() -> manager.getEpicTask(epicTask.getId()));
+
+        try {
+            assertEquals(epicTask.getId(), reader.get(5, TimeUnit.SECONDS).getId(), "Прочитан не тот эпик");
+            assertEquals(epicTask.getId(), manager.getAllEpicTasks().getFirst().getId(), "Эпик не прочитан");
+        } finally {
+            releaseWriter.countDown();
+        }
+        writer.get();
+        executor.shutdown();
+
+        assertEquals(1, manager.getEpicTask(epicTask.getId()).getSubTasksId().size(),
+                "Подзадача не попала в опубликованный эпик");
+    }
+}
@@ -10,6 +10,10 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
+import storage.FsyncPolicy;
+import storage.LogSettings;
+import storage.MappedTaskStorage;
+import storage.StorageMode;
 
 import java.io.File;
 import java.io.IOException;
@@ -18,13 +22,18 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static util.TaskTestUtil.assertEqualsEpicTask;
 import static util.TaskTestUtil.assertEqualsSubTask;
 import static util.TaskTestUtil.assertEqualsTask;
+import static util.TaskTestUtil.copyTask;
 
 
 class FileBackedTaskManagerTest extends TaskManagerTest<FileBackedTaskManager> {
@@ -127,6 +136,220 @@ class FileBackedTaskManagerTest extends TaskManagerTest<FileBackedTaskManager> {
             assertEqualsSubTask(subTask2, subTasks.get(1), "Подзадачи не равны");
         }
 
+        @DisplayName("Сохранить и загрузить поля с запятыми, кавычками и переводами строк")
+        @Test
+        void shouldLoadQuotedFields() throws IOException {
+            Task quotedTask = manager.createTask(new Task("null", "say \"hi\", then\nleave", Status.DONE,
+                    LocalDateTime.of(2024, 1, 1, 10, 30, 15, 123_000_000), Duration.ofMinutes(5)));
+            Task nullTask = manager.createTask(new Task(null, "", Status.NEW));
+
+            assertEquals(quotedTask.getId() + ",TASK,\"null\",DONE,\"say \"\"hi\"\", then",
+                    Files.readAllLines(tempTaskFile).get(1), "Поля не взяты в кавычки");
+
+            manager = FileBackedTaskManager.loadFromFile(tempTaskFile.toFile());
+
+            assertEqualsTask(quotedTask, manager.getTask(quotedTask.getId()), "Задачи не равны");
+            assertEqualsTask(nullTask, manager.getTask(nullTask.getId()), "Задачи не равны");
+        }
+
+        @DisplayName("Отклонить пустое или некорректное время начала в последней строке файла")
+        @Test
+        void shouldRejectEmptyStartTimeOnLastLine() throws IOException {
+            String header = "id,type,title,status,description,epic,duration,startTime\n";
+            Files.writeString(tempTaskFile, header + "1,TASK,a,NEW,d,,1,");
+
+            assertThrows(ManagerIOException.class, () -> FileBackedTaskManager.loadFromFile(tempTaskFile.toFile()),
+                    "Пустое время начала не отклонено");
+
+            Files.writeString(tempTaskFile, header + "1,TASK,a,NEW,d,,1,2024-13-01T10:00");
+
+            assertThrows(ManagerIOException.class, () -> FileBackedTaskManager.loadFromFile(tempTaskFile.toFile()),
+                    "Несуществующая дата не отклонена");
+        }
+
+        @DisplayName("Загрузить большой файл с полями в кавычках, в котором подзадачи идут раньше эпиков")
+        @Test
+        void shouldLoadLargeFileInAnyOrder() throws IOException {
+            int epicTasksCount = 5_000;
+            List<String> strings = new ArrayList<>();
+            strings.add("id,type,title,status,description,epic,duration,startTime");
+            for (int i = 0; i < epicTasksCount; i++) {
+                strings.add((epicTasksCount + i + 1) + ",SUB_TASK,subTask" + i + ",DONE,subTask discr,"
+                        + (i + 1) + ",1," + LocalDateTime.of(2024, 1, 1, 0, 0).plusMinutes(2L * i));
+            }
+            for (int i = 0; i < epicTasksCount; i++) {
+                strings.add((i + 1) + ",EPIC_TASK,epicTask" + i + ",NEW,\"epicTask\ndiscr, \"\"quoted\"\"\",null,null,null");
+            }
+            Files.write(tempTaskFile, strings);
+
+            manager = FileBackedTaskManager.loadFromFile(tempTaskFile.toFile());
+
+            assertEquals(epicTasksCount, manager.getAllEpicTasks().size(), "Загружены не все эпики");
+            assertEquals(epicTasksCount, manager.getPrioritizedTasks().size(), "Загружены не все подзадачи");
+            EpicTask lastEpicTask = manager.getEpicTask(epicTasksCount);
+            assertEquals(List.of(2 * epicTasksCount), lastEpicTask.getSubTasksId(), "Подзадача не связана с эпиком");
+            assertEquals(Status.DONE, lastEpicTask.getStatus(), "Статус эпика не пересчитан");
+            assertEquals("epicTask\ndiscr, \"quoted\"", lastEpicTask.getDescription(), "Поле в кавычках не разобрано");
+            assertEquals(2 * epicTasksCount + 1, manager.createTask(new Task("task", "task discr", Status.NEW)).getId(),
+                    "Счётчик id не восстановлен");
+        }
+
+        @DisplayName("Сохранить задачи в двоичном формате и выгрузить в CSV")
+        @Test
+        void shouldLoadTasksFromBinaryFileAndExportCsv() throws IOException {
+            manager = new FileBackedTaskManager(tempTaskFile, StorageMode.BINARY);
+            manager.createTask(task);
+            manager.createEpicTask(epicTask);
+            manager.createSubTask(subTask1);
+            manager.createSubTask(subTask2);
+
+            manager = FileBackedTaskManager.loadFromFile(tempTaskFile.toFile());
+
+            assertEqualsTask(task, manager.getTask(task.getId()), "Задачи не равны");
+            assertEqualsEpicTask(epicTask, manager.getEpicTask(epicTask.getId()), "Эпики не равны");
+            assertEqualsSubTask(subTask1, manager.getSubTask(subTask1.getId()), "Подзадачи не равны");
+            assertEqualsSubTask(subTask2, manager.getSubTask(subTask2.getId()), "Подзадачи не равны");
+
+            Path csvFile = Files.createTempFile(Path.of("resources"), "tempExport", ".csv");
+            try {
+                manager.exportToCsv(csvFile);
+                List<String> strings = Files.readAllLines(csvFile);
+
+                assertEquals(5, strings.size(), "Неверное количество строк в выгрузке");
+                assertEquals("1,TASK,task,NEW,task discr,null,null,null", strings.get(1),
+                        "Строчка 2 не сошлась.");
+                assertTrue(Files.size(tempTaskFile) < Files.size(csvFile),
+                        "Двоичный файл не компактнее CSV");
+            } finally {
+                Files.delete(csvFile);
+            }
+        }
+
+        @DisplayName("Сохранить прежний двоичный файл, если запись прервалась")
+        @Test
+        void shouldKeepBinaryFileWhenWriteFails() {
+            manager = new FileBackedTaskManager(tempTaskFile, StorageMode.BINARY);
+            manager.createTask(task);
+            Task brokenTask = new Task("broken", "broken discr", Status.NEW) {
+                @Override
+                public String getDescription() {
+                    throw new IllegalStateException("Сбой записи");
+                }
+            };
+
+            assertThrows(IllegalStateException.class, () -> manager.createTask(brokenTask),
+                    "Сбой записи не передан вызывающему");
+
+            manager = FileBackedTaskManager.loadFromFile(tempTaskFile.toFile());
+
+            assertEquals(1, manager.getAllTasks().size(), "Прежний файл испорчен");
+            assertEqualsTask(task, manager.getTask(task.getId()), "Задачи не равны");
+            assertTrue(Files.notExists(tempTaskFile.resolveSibling(tempTaskFile.getFileName() + ".tmp")),
+                    "Временный файл не удалён");
+        }
+
+        @DisplayName("Сохранить задачу без статуса в двоичном формате и отклонить неизвестный статус")
+        @Test
+        void shouldKeepNullStatusInBinaryFile() throws IOException {
+            manager = new FileBackedTaskManager(tempTaskFile, StorageMode.BINARY);
+            Task taskWithoutStatus = manager.createTask(new Task("task", "task discr", null));
+
+            manager = FileBackedTaskManager.loadFromFile(tempTaskFile.toFile());
+
+            assertNull(manager.getTask(taskWithoutStatus.getId()).getStatus(), "Статус не остался пустым");
+
+            byte[] bytes = Files.readAllBytes(tempTaskFile);
+            int statusOffset = 6;
+            bytes[statusOffset] = 7;
+            Files.write(tempTaskFile, bytes);
+
+            assertThrows(ManagerIOException.class, () -> FileBackedTaskManager.loadFromFile(tempTaskFile.toFile()),
+                    "Снимок с неизвестным статусом загрузился");
+        }
+
+        @DisplayName("Хранить задачи в слотах отображённого в память файла")
+        @Test
+        void shouldLoadTasksFromMappedFile() {
+            manager = new FileBackedTaskManager(tempTaskFile, StorageMode.MAPPED);
+            manager.createTask(task);
+            manager.createEpicTask(epicTask);
+            manager.createSubTask(subTask1);
+            manager.createSubTask(subTask2);
+            Task otherTask = manager.createTask(new Task("otherTask", "otherTask discr", Status.NEW));
+
+            SubTask updatedSubTask1 = (SubTask) copyTask(subTask1);
+            updatedSubTask1.setStatus(Status.DONE);
+            manager.updateSubTask(updatedSubTask1);
+            manager.removeSubTask(subTask2.getId());
+            manager.removeTask(otherTask.getId());
+            manager.close();
+
+            manager = FileBackedTaskManager.loadFromFile(tempTaskFile.toFile());
+
+            assertEqualsTask(task, manager.getTask(task.getId()), "Задачи не равны");
+            assertEqualsSubTask(updatedSubTask1, manager.getSubTask(subTask1.getId()), "Подзадачи не равны");
+            assertEquals(List.of(task), manager.getAllTasks(), "Удалённая задача восстановилась");
+            assertEquals(List.of(subTask1.getId()), manager.getEpicTask(epicTask.getId()).getSubTasksId(),
+                    "Подзадачи эпика не восстановились");
+            assertThrows(ManagerIOException.class,
+                    () -> manager.createTask(new Task("big task", "x".repeat(2_000), Status.NEW)),
+                    "Задача больше слота сохранилась");
+            assertEquals(List.of(task), manager.getAllTasks(), "Задача больше слота осталась в памяти");
+            Task bigTask = copyTask(task);
+            bigTask.setDescription("ы".repeat(600));
+            assertThrows(ManagerIOException.class, () -> manager.updateTask(bigTask),
+                    "Задача больше слота сохранилась");
+            assertEquals(task.getDescription(), manager.getTask(task.getId()).getDescription(),
+                    "Задача больше слота заменила сохранённую в памяти");
+
+            manager.removeAllEpicTasks();
+            manager.close();
+            manager = FileBackedTaskManager.loadFromFile(tempTaskFile.toFile());
+
+            assertEquals(List.of(), manager.getAllSubTasks(), "Подзадачи не удалились вместе с эпиками");
+            manager.close();
+        }
+
+        @DisplayName("Обнаружить оборванную запись в слоте отображённого файла")
+        @Test
+        void shouldDetectTornSlotInMappedFile() throws IOException {
+            manager = new FileBackedTaskManager(tempTaskFile, StorageMode.MAPPED);
+            manager.createTask(task);
+            manager.close();
+
+            byte[] bytes = Files.readAllBytes(tempTaskFile);
+            int recordOffset = 16 + task.getId() * MappedTaskStorage.DEFAULT_SLOT_SIZE + 9;
+            bytes[recordOffset + 3] ^= 1;
+            Files.write(tempTaskFile, bytes);
+
+            assertThrows(ManagerIOException.class, () -> FileBackedTaskManager.loadFromFile(tempTaskFile.toFile()),
+                    "Повреждённая запись загрузилась");
+        }
+
+        @DisplayName("Сообщать слушателям об изменении только после сохранения")
+        @Test
+        void shouldNotifyListenersAfterSaving() {
+            List<String> savedFiles = new ArrayList<>();
+            manager.addListener(event -> {
+                try {
+                    savedFiles.add(Files.readString(tempTaskFile));
+                } catch (IOException exception) {
+                    throw new RuntimeException(exception);
+                }
+            });
+            manager.createTask(task);
+
+            assertEquals(1, savedFiles.size(), "Неверное количество событий");
+            assertTrue(savedFiles.getFirst().contains(task.getTitle()), "Событие пришло до сохранения задачи");
+
+            FileBackedTaskManager brokenManager = new FileBackedTaskManager(Paths.get("i_hate_tests/really.csv"));
+            List<TaskEvent> events = new ArrayList<>();
+            brokenManager.addListener(events::add);
+
+            assertThrows(ManagerIOException.class, () -> brokenManager.createTask(task), "Задача сохранилась");
+            assertEquals(List.of(), events, "Событие пришло, хотя задача не сохранилась");
+        }
+
         @DisplayName("Перехват исключений при работе с файлами")
         @Test
         void shouldThrowExceptionDuringUseFiles() {
@@ -140,4 +363,132 @@ class FileBackedTaskManagerTest extends TaskManagerTest<FileBackedTaskManager> {
                     "Некорректный перехват исключения при загрузке задач из файла");
         }
     }
-}
\ No newline at end of file
+
+    @Nested
+    @DisplayName("Журнал изменений")
+    class TaskLogTest {
+        private FileBackedTaskManager logManager;
+
+        @BeforeEach
+        void init() {
+            logManager = new FileBackedTaskManager(tempTaskFile, StorageMode.LOG);
+        }
+
+        @AfterEach
+        void closeLogManager() throws IOException {
+            logManager.close();
+
+            String prefix = tempTaskFile.getFileName() + ".";
+            try (Stream<Path> files = Files.list(tempTaskFile.getParent())) {
+                for (Path file : files.filter(file -> file.getFileName().toString().startsWith(prefix)).toList()) {
+                    Files.delete(file);
+                }
+            }
+        }
+
+        @DisplayName("Дописывать одну запись на каждое изменение")
+        @Test
+        void shouldAppendOneRecordPerMutation() throws IOException {
+            Task task = logManager.createTask(new Task("task", "task discr", Status.NEW));
+            EpicTask epicTask = logManager.createEpicTask(new EpicTask("epicTask", "epicTask discr"));
+            logManager.createSubTask(new SubTask("subTask", "subTask discr", Status.NEW, epicTask.getId()));
+            logManager.removeTask(task.getId());
+
+            List<String> strings = Files.readAllLines(tempTaskFile);
+
+            assertEquals(5, strings.size(), "Неверное количество записей в журнале");
+            assertEquals("D," + task.getId(), strings.get(4), "Неверная запись об удалении");
+        }
+
+        @DisplayName("Восстановить задачи из журнала")
+        @Test
+        void shouldLoadTasksFromLog() {
+            Task task = logManager.createTask(new Task("task", "task discr", Status.NEW,
+                    LocalDateTime.now(), Duration.ofMinutes(1)));
+            EpicTask epicTask = logManager.createEpicTask(new EpicTask("epicTask", "epicTask discr"));
+            SubTask subTask1 = logManager.createSubTask(new SubTask("subTask1", "subTask1 discr", Status.NEW,
+                    epicTask.getId(), task.getStartTime().plusMinutes(1), Duration.ofMinutes(1)));
+            SubTask subTask2 = logManager.createSubTask(new SubTask("subTask2", "subTask2 discr", Status.NEW,
+                    epicTask.getId()));
+
+            SubTask updatedSubTask1 = (SubTask) copyTask(subTask1);
+            updatedSubTask1.setStatus(Status.DONE);
+            logManager.updateSubTask(updatedSubTask1);
+            logManager.removeSubTask(subTask2.getId());
+            logManager.close();
+
+            logManager = FileBackedTaskManager.loadFromFile(tempTaskFile.toFile());
+
+            assertEqualsTask(task, logManager.getTask(task.getId()), "Задачи не равны");
+            assertEqualsSubTask(updatedSubTask1, logManager.getSubTask(subTask1.getId()), "Подзадачи не равны");
+            assertEquals(1, logManager.getAllSubTasks().size(), "Удалённая подзадача восстановилась");
+            assertEquals(Status.DONE, logManager.getEpicTask(epicTask.getId()).getStatus(),
+                    "Статус эпика не восстановился");
+            assertEquals(List.of(task, updatedSubTask1), logManager.getPrioritizedTasks(),
+                    "Не восстановился список задач с приоритетом");
+        }
+
+        @DisplayName("Начать пустой журнал при создании менеджера без загрузки")
+        @Test
+        void shouldStartEmptyLogWhenNotLoading() {
+            logManager.createTask(new Task("oldTask", "oldTask discr", Status.NEW));
+            logManager.createTask(new Task("oldTask2", "oldTask2 discr", Status.NEW));
+            logManager.close();
+
+            logManager = new FileBackedTaskManager(tempTaskFile, StorageMode.LOG);
+            Task task = logManager.createTask(new Task("task", "task discr", Status.NEW));
+            logManager.close();
+
+            logManager = FileBackedTaskManager.loadFromFile(tempTaskFile.toFile());
+
+            assertEquals(List.of(task), logManager.getAllTasks(), "Записи старого журнала смешались с новыми");
+            assertEquals("task", logManager.getTask(task.getId()).getTitle(), "Задача из старого журнала заменила новую");
+        }
+
+        @DisplayName("Сохранить снимок и сократить журнал")
+        @Test
+        void shouldCheckpointAndLoadFromSnapshotAndLogTail() throws IOException {
+            logManager.close();
+            logManager = new FileBackedTaskManager(tempTaskFile, StorageMode.LOG,
+                    new LogSettings().withCheckpointRecords(3));
+
+            EpicTask epicTask = logManager.createEpicTask(new EpicTask("epicTask", "epicTask discr"));
+            SubTask subTask = logManager.createSubTask(new SubTask("subTask", "subTask discr", Status.NEW,
+                    epicTask.getId()));
+            Task task1 = logManager.createTask(new Task("task1", "task1 discr", Status.NEW));
+            Task task2 = logManager.createTask(new Task("task2", "task2 discr", Status.NEW));
+            logManager.removeTask(task1.getId());
+            logManager.close();
+
+            assertEquals(3, Files.readAllLines(tempTaskFile).size(), "Журнал не сократился после снимка");
+
+            logManager = FileBackedTaskManager.loadFromFile(tempTaskFile.toFile());
+
+            assertEquals(List.of(task2), logManager.getAllTasks(), "Задачи не восстановились из снимка и журнала");
+            assertEquals(List.of(subTask.getId()), logManager.getEpicTask(epicTask.getId()).getSubTasksId(),
+                    "Подзадачи эпика не восстановились из снимка");
+        }
+
+        @DisplayName("Записать изменения группой в асинхронном режиме")
+        @Test
+        void shouldGroupCommitInAsyncMode() throws IOException {
+            logManager.close();
+            logManager = new FileBackedTaskManager(tempTaskFile, StorageMode.LOG, new LogSettings()
+                    .withAsync(true)
+                    .withCommitWindow(Duration.ofMillis(5))
+                    .withFsyncPolicy(FsyncPolicy.BATCH));
+
+            for (int i = 0; i < 100; i++) {
+                logManager.createTask(new Task("task" + i, "task discr", Status.NEW));
+            }
+            logManager.flush();
+
+            assertEquals(101, Files.readAllLines(tempTaskFile).size(), "Не все записи попали в журнал после flush");
+
+            logManager.close();
+            logManager = FileBackedTaskManager.loadFromFile(tempTaskFile.toFile());
+
+            assertEquals(100, logManager.getAllTasks().size(), "Задачи не восстановились из журнала");
+        }
+    }
+}
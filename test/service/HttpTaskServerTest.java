@@ -1,6 +1,8 @@
 package service;
 
 import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonParser;
 import model.EpicTask;
 import model.Status;
 import model.SubTask;
@@ -10,21 +12,35 @@ import token.EpicTaskTypeToken;
 import token.SubTaskListTypeToken;
 import token.TaskListTypeToken;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
 
 
 import static handler.BaseHttpHandler.HTTP_BAD_REQUEST;
+import static handler.BaseHttpHandler.HTTP_METHOD_NOT_ALLOWED;
 import static handler.BaseHttpHandler.HTTP_NOT_ACCEPTABLE;
 import static handler.BaseHttpHandler.HTTP_NOT_FOUND;
+import static handler.BaseHttpHandler.HTTP_NOT_MODIFIED;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static util.TaskTestUtil.*;
 
 public class HttpTaskServerTest {
@@ -127,6 +143,83 @@ public class HttpTaskServerTest {
             assertEqualsTask(taskManager.getTask(1), gottenTask, "Вернулась неккоректная задача");
         }
 
+        @DisplayName("Отправить точную длину небольшого ответа и потоково большой список")
+        @Test
+        void shouldSendContentLengthForSmallBodyAndStreamLargeBody() throws IOException, InterruptedException {
+            sendPostRequest(tasksUrl, taskJson);
+
+            HttpResponse<String> response = sendGetRequest(tasksUrl);
+
+            assertEquals(String.valueOf(response.body().getBytes(StandardCharsets.UTF_8).length),
+                    response.headers().firstValue("Content-Length").orElse(null), "Неверная длина ответа");
+
+            for (int i = 0; i < 2_000; i++) {
+                taskManager.createTask(new Task("task" + i, "task descr ".repeat(5), Status.NEW));
+            }
+            response = sendGetRequest(tasksUrl);
+            List<Task> gottenTasks = gson.fromJson(response.body(), new TaskListTypeToken().getType());
+
+            assertEquals(200, response.statusCode(), "Неверный код статуса");
+            assertEquals(Optional.empty(), response.headers().firstValue("Content-Length"),
+                    "Большой ответ не передан потоком");
+            assertEquals(taskManager.getAllTasks().size(), gottenTasks.size(), "Вернулись не все задачи");
+        }
+
+        @DisplayName("Сжать список задач по Accept-Encoding")
+        @Test
+        void shouldCompressTasksListWhenAccepted() throws IOException, InterruptedException {
+            for (int i = 0; i < 50; i++) {
+                taskManager.createTask(new Task("task" + i, "task descr", Status.NEW));
+            }
+            HttpRequest gzipRequest = HttpRequest.newBuilder().uri(tasksUrl)
+                    .header("Accept-Encoding", "deflate;q=0.5, gzip").GET().build();
+            HttpResponse<byte[]> response = httpClient.send(gzipRequest, HttpResponse.BodyHandlers.ofByteArray());
+
+            assertEquals("gzip", response.headers().firstValue("Content-Encoding").orElse(null),
+                    "Ответ не сжат gzip");
+            assertEquals(String.valueOf(response.body().length),
+                    response.headers().firstValue("Content-Length").orElse(null), "Неверная длина сжатого ответа");
+            String json = new String(new GZIPInputStream(new ByteArrayInputStream(response.body())).readAllBytes(),
+                    StandardCharsets.UTF_8);
+            assertEquals(taskManager.getAllTasks(), gson.fromJson(json, new TaskListTypeToken().getType()),
+                    "Вернулся неккоректный список задач");
+
+            for (int i = 0; i < 2_000; i++) {
+                taskManager.createTask(new Task("task" + i, "task descr ".repeat(5), Status.NEW));
+            }
+            HttpRequest deflateRequest = HttpRequest.newBuilder().uri(tasksUrl)
+                    .header("Accept-Encoding", "deflate").GET().build();
+            response = httpClient.send(deflateRequest, HttpResponse.BodyHandlers.ofByteArray());
+
+            assertEquals("deflate", response.headers().firstValue("Content-Encoding").orElse(null),
+                    "Ответ не сжат deflate");
+            json = new String(new InflaterInputStream(new ByteArrayInputStream(response.body())).readAllBytes(),
+                    StandardCharsets.UTF_8);
+            List<Task> gottenTasks = gson.fromJson(json, new TaskListTypeToken().getType());
+            assertEquals(taskManager.getAllTasks().size(), gottenTasks.size(), "Вернулись не все задачи");
+        }
+
+        @DisplayName("Вернуть 304, если список задач не изменился")
+        @Test
+        void shouldNotModifiedWhenETagMatches() throws IOException, InterruptedException {
+            sendPostRequest(tasksUrl, taskJson);
+            String entityTag = sendGetRequest(tasksUrl).headers().firstValue("ETag").orElse(null);
+            assertNotNull(entityTag, "Не вернулся ETag");
+
+            HttpRequest conditionalRequest = HttpRequest.newBuilder().uri(tasksUrl)
+                    .header("If-None-Match", entityTag).GET().build();
+            HttpResponse<String> response = httpClient.send(conditionalRequest, HttpResponse.BodyHandlers.ofString());
+
+            assertEquals(HTTP_NOT_MODIFIED, response.statusCode(), "Неверный код статуса");
+            assertEquals("", response.body(), "Вернулось тело ответа");
+
+            taskManager.createTask(new Task("task2", "task2 descr", Status.NEW));
+            response = httpClient.send(conditionalRequest, HttpResponse.BodyHandlers.ofString());
+
+            assertEquals(200, response.statusCode(), "Не вернулся изменённый список");
+            assertNotEquals(entityTag, response.headers().firstValue("ETag").orElse(null), "ETag не изменился");
+        }
+
         @DisplayName("Удалить задачу по ID")
         @Test
         void shouldRemoveTaskById() throws IOException, InterruptedException {
@@ -385,6 +478,25 @@ public class HttpTaskServerTest {
             assertEquals(taskManager.getHistory().size(), history.size(), "Неккоректное количество задач в истории");
             assertEqualsTask(taskManager.getHistory().getFirst(), history.getFirst(), "В истории неккоректные задачи");
         }
+
+        @DisplayName("Сохранить типы эпиков и подзадач в истории")
+        @Test
+        void shouldKeepSubTypesInHistory() throws IOException, InterruptedException {
+            EpicTask epicTask = taskManager.createEpicTask(new EpicTask("epicTask title", "epicTask descr"));
+            SubTask subTask = taskManager.createSubTask(new SubTask("subTask title", "subTask descr", Status.DONE,
+                    epicTask.getId(), task.getStartTime().plusMinutes(5), Duration.ofMinutes(3)));
+            taskManager.getEpicTask(epicTask.getId());
+            taskManager.getSubTask(subTask.getId());
+
+            HttpResponse<String> response = sendGetRequest(historyUrl);
+            List<Task> history = gson.fromJson(response.body(), new TaskListTypeToken().getType());
+
+            assertEquals(3, history.size(), "Неккоректное количество задач в истории");
+            assertEquals(Task.class, history.get(0).getClass(), "Неверный тип задачи");
+            assertEqualsEpicTask(taskManager.getEpicTask(epicTask.getId()), (EpicTask) history.get(1),
+                    "Эпик в истории потерял свои поля");
+            assertEqualsSubTask(subTask, (SubTask) history.get(2), "Подзадача в истории потеряла свои поля");
+        }
     }
 
     @Nested
@@ -418,6 +530,25 @@ public class HttpTaskServerTest {
             assertEqualsTask(taskManager.getPrioritizedTasks().getFirst(), prioritized.getFirst(), "В списке неккоректные задачи");
             assertEqualsTask(taskManager.getPrioritizedTasks().get(1), prioritized.get(1), "В списке неккоректные задачи");
         }
+
+        @DisplayName("Получить список по приоритету страницами с выбранными полями")
+        @Test
+        void shouldGetPrioritizedPageWithFields() throws IOException, InterruptedException {
+            HttpResponse<String> response = sendGetRequest(URI.create(prioritizedUrlString + "?limit=1&fields=id,title"));
+
+            assertEquals(200, response.statusCode(), "Неверный код статуса");
+            assertEquals("[{\"id\":2,\"title\":\"task1 title\"}]", response.body(), "Неверная первая страница");
+            String cursor = response.headers().firstValue("X-Next-Cursor").orElse(null);
+            assertNotNull(cursor, "Не вернулся курсор следующей страницы");
+
+            response = sendGetRequest(URI.create(prioritizedUrlString + "?limit=1&fields=id&cursor=" + cursor));
+
+            assertEquals("[{\"id\":1}]", response.body(), "Неверная вторая страница");
+            assertEquals(Optional.empty(), response.headers().firstValue("X-Next-Cursor"), "Вернулся лишний курсор");
+
+            response = sendGetRequest(URI.create(prioritizedUrlString + "?status=unknown"));
+            assertEquals(HTTP_BAD_REQUEST, response.statusCode(), "Неверный код статуса");
+        }
     }
 
     @Nested
@@ -493,15 +624,33 @@ public class HttpTaskServerTest {
 
         @DisplayName("Передать неиспользуемый метод запроса")
         @Test
-        void shouldBadRequestWhenUnusualRequestMethod() throws IOException, InterruptedException {
+        void shouldMethodNotAllowedWhenUnusualRequestMethod() throws IOException, InterruptedException {
             HttpResponse<String> response = sendHeadRequest(URI.create(serverAddress + "/tasks"));
-            assertEquals(HTTP_BAD_REQUEST, response.statusCode(), "Неверный код статуса при неиспользуемом теле запроса при обработке задач");
+            assertEquals(HTTP_METHOD_NOT_ALLOWED, response.statusCode(), "Неверный код статуса при неиспользуемом теле запроса при обработке задач");
 
             response = sendHeadRequest(URI.create(serverAddress + "/history"));
-            assertEquals(HTTP_BAD_REQUEST, response.statusCode(), "Неверный код статуса при неиспользуемом теле запроса при обработке истории");
+            assertEquals(HTTP_METHOD_NOT_ALLOWED, response.statusCode(), "Неверный код статуса при неиспользуемом теле запроса при обработке истории");
 
             response = sendHeadRequest(URI.create(serverAddress + "/prioritized"));
-            assertEquals(HTTP_BAD_REQUEST, response.statusCode(), "Неверный код статуса при неиспользуемом теле запроса при обработке списка задач по приоритету");
+            assertEquals(HTTP_METHOD_NOT_ALLOWED, response.statusCode(), "Неверный код статуса при неиспользуемом теле запроса при обработке списка задач по приоритету");
+        }
+
+        @DisplayName("Сопоставить метод и шаблон пути")
+        @Test
+        void shouldRouteByMethodAndPathTemplate() throws IOException, InterruptedException {
+            HttpResponse<String> response = sendDeleteRequest(URI.create(serverAddress + "/tasks"));
+            assertEquals(HTTP_METHOD_NOT_ALLOWED, response.statusCode(), "Неверный код статуса для метода без обработчика");
+            assertEquals(Optional.of("GET, POST"), response.headers().firstValue("Allow"), "Неверный заголовок Allow");
+
+            response = sendGetRequest(URI.create(serverAddress + "/epics/1/tasks"));
+            assertEquals(HTTP_NOT_FOUND, response.statusCode(), "Неверный код статуса для неизвестного пути");
+
+            response = sendGetRequest(URI.create(serverAddress + "/tasks/99999999999"));
+            assertEquals(HTTP_BAD_REQUEST, response.statusCode(), "Неверный код статуса для слишком большого ID");
+
+            EpicTask epicTask = taskManager.createEpicTask(new EpicTask("epicTask title", "epicTask descr"));
+            response = sendGetRequest(URI.create(serverAddress + "/epics/" + epicTask.getId() + "/subtasks/"));
+            assertEquals(200, response.statusCode(), "Не найден путь с завершающей косой чертой");
         }
 
         @DisplayName("Передать неккоректное тело запроса")
@@ -527,6 +676,21 @@ public class HttpTaskServerTest {
             assertEquals(HTTP_BAD_REQUEST, response.statusCode(), "Неверный код статуса при неккоректном теле запроса при обработке подзадачи");
         }
 
+        @DisplayName("Передать задачу другого типа")
+        @Test
+        void shouldBadRequestWhenTaskTypeDoesNotMatchEndpoint() throws IOException, InterruptedException {
+            EpicTask epicTask = taskManager.createEpicTask(new EpicTask("epicTask", "epicTask d"));
+            String subTaskJson = gson.toJson(new SubTask("subTask", "subTask d", Status.NEW, epicTask.getId()));
+
+            HttpResponse<String> response = sendPostRequest(URI.create(serverAddress + "/tasks"), subTaskJson);
+            assertEquals(HTTP_BAD_REQUEST, response.statusCode(), "Неверный код статуса при подзадаче в задачах");
+
+            response = sendPostRequest(URI.create(serverAddress + "/tasks"), gson.toJson(epicTask).replace(
+                    "\"id\":" + epicTask.getId(), "\"id\":0"));
+            assertEquals(HTTP_BAD_REQUEST, response.statusCode(), "Неверный код статуса при эпике в задачах");
+            assertTrue(taskManager.getAllTasks().isEmpty(), "Задача другого типа попала в задачи");
+        }
+
         @DisplayName("Передать неккоректный тип ID")
         @Test
         void shouldBadRequestWhenWrongIdType() throws IOException, InterruptedException {
@@ -552,6 +716,139 @@ public class HttpTaskServerTest {
         }
     }
 
+    @Nested
+    @DisplayName("Тестировать пакетное сохранение")
+    class BatchHandlerTest {
+        @DisplayName("Сохранить пакет задач и вернуть результат каждой")
+        @Test
+        void shouldApplyBatch() throws IOException, InterruptedException {
+            EpicTask epicTask = taskManager.createEpicTask(new EpicTask("epicTask title", "epicTask descr"));
+            Task task = new Task("task title", "task descr", Status.NEW, LocalDateTime.now(), Duration.ofMinutes(1));
+            SubTask subTask = new SubTask("subTask title", "subTask descr", Status.DONE, epicTask.getId());
+            String body = "[{\"type\":\"TASK\",\"task\":" + gson.toJson(task) + "},"
+                    + "{\"type\":\"SUB_TASK\",\"task\":" + gson.toJson(subTask) + "},"
+                    + "{\"type\":\"TASK\",\"task\":" + gson.toJson(task) + "},"
+                    + "{\"type\":\"UNKNOWN\",\"task\":{}}]";
+
+            HttpResponse<String> response = sendPostRequest(URI.create(serverAddress + "/batch"), body);
+
+            assertEquals(200, response.statusCode(), "Неверный код статуса");
+            JsonArray results = JsonParser.parseString(response.body()).getAsJsonArray();
+            assertEquals(4, results.size(), "Вернулись не все результаты");
+            assertEquals(201, results.get(0).getAsJsonObject().get("status").getAsInt(), "Задача не создалась");
+            assertEquals(201, results.get(1).getAsJsonObject().get("status").getAsInt(), "Подзадача не создалась");
+            assertEquals(HTTP_NOT_ACCEPTABLE, results.get(2).getAsJsonObject().get("status").getAsInt(),
+                    "Не найдено пересечение по времени");
+            assertEquals(HTTP_BAD_REQUEST, results.get(3).getAsJsonObject().get("status").getAsInt(),
+                    "Не найден неизвестный тип задачи");
+            assertEquals(1, taskManager.getAllTasks().size(), "Неверное количество задач");
+            assertEquals(Status.DONE, taskManager.getEpicTask(epicTask.getId()).getStatus(), "Статус эпика не пересчитался");
+        }
+    }
+
+    @Nested
+    @DisplayName("Тестировать поток событий")
+    class EventsHandlerTest {
+        @DisplayName("Получить событие о создании задачи")
+        @Test
+        void shouldStreamTaskEvents() throws IOException, InterruptedException {
+            HttpRequest request = HttpRequest.newBuilder().uri(URI.create(serverAddress + "/events")).GET().build();
+            HttpResponse<Stream<String>> response = httpClient.send(request, HttpResponse.BodyHandlers.ofLines());
+
+            assertEquals(200, response.statusCode(), "Неверный код статуса");
+            assertEquals(Optional.of("text/event-stream; charset=utf-8"), response.headers().firstValue("Content-Type"),
+                    "Неверный тип ответа");
+
+            try (Stream<String> lines = response.body()) {
+                Iterator<String> linesIterator = lines.iterator();
+                Task task = taskManager.createTask(new Task("task title", "task descr", Status.NEW));
+
+                String data = assertTimeoutPreemptively(Duration.ofSeconds(5), () -> {
+                    while (!linesIterator.next().equals("event: created")) {
+                        // пропускаем комментарии и служебные строки
+                    }
+                    return linesIterator.next();
+                });
+                assertTrue(data.startsWith("data: {\"type\":\"CREATED\",\"taskType\":\"TASK\",\"id\":" + task.getId()),
+                        "Неверные данные события: " + data);
+            }
+        }
+    }
+
+    @Nested
+    @DisplayName("Тестировать метрики")
+    class MetricsHandlerTest {
+        @DisplayName("Получить счётчики маршрутов и размеры коллекций")
+        @Test
+        void shouldExposeRouteAndTaskManagerMetrics() throws IOException, InterruptedException {
+            taskManager.createTask(new Task("task title", "task descr", Status.NEW));
+            sendGetRequest(URI.create(serverAddress + "/tasks"));
+            sendGetRequest(URI.create(serverAddress + "/tasks/999"));
+            sendGetRequest(URI.create(serverAddress + "/unknown"));
+
+            HttpResponse<String> response = sendGetRequest(URI.create(serverAddress + "/metrics"));
+
+            assertEquals(200, response.statusCode(), "Неверный код статуса");
+            assertEquals(Optional.of("text/plain; version=0.0.4; charset=utf-8"),
+                    response.headers().firstValue("Content-Type"), "Неверный тип ответа");
+            List<String> lines = response.body().lines().toList();
+            assertTrue(lines.contains("kanban_http_requests_total{route=\"/tasks\",method=\"GET\"} 1"),
+                    "Нет счётчика запросов маршрута");
+            assertTrue(lines.contains("kanban_http_errors_total{route=\"/tasks/{id}\",method=\"GET\",status=\"404\"} 1"),
+                    "Нет счётчика ошибок маршрута");
+            assertTrue(lines.contains("kanban_http_requests_total{route=\"unmatched\",method=\"ANY\"} 1"),
+                    "Нет счётчика ненайденных маршрутов");
+            assertTrue(lines.contains("kanban_http_request_duration_seconds_count{route=\"/tasks\",method=\"GET\"} 1"),
+                    "Нет гистограммы длительности");
+            assertTrue(lines.contains("kanban_tasks{type=\"task\"} 1"), "Нет количества задач");
+        }
+    }
+
+    @Nested
+    @DisplayName("Тестировать параллельную обработку запросов")
+    class ConcurrentRequestsTest {
+        @DisplayName("Создать задачи параллельными запросами в виртуальных потоках")
+        @Test
+        void shouldCreateTasksConcurrently() {
+            httpTaskServer.stop();
+            taskManager = new ConcurrentTaskManager();
+            httpTaskServer = new HttpTaskServer(taskManager, new ServerSettings());
+            httpTaskServer.start();
+
+            int requestsCount = 50;
+            List<CompletableFuture<HttpResponse<String>>> responses = new ArrayList<>();
+            for (int i = 0; i < requestsCount; i++) {
+                Task task = new Task("task" + i, "task descr", Status.NEW);
+                HttpRequest request = HttpRequest.newBuilder().uri(URI.create(serverAddress + "/tasks"))
+                        .POST(HttpRequest.BodyPublishers.ofString(gson.toJson(task))).build();
+                responses.add(httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString()));
+            }
+
+            for (CompletableFuture<HttpResponse<String>> response : responses) {
+                assertEquals(201, response.join().statusCode(), "Неверный код статуса");
+            }
+            assertEquals(requestsCount, taskManager.getAllTasks().size(), "Созданы не все задачи");
+        }
+
+        @DisplayName("Запустить сервер на свободном порту указанного адреса")
+        @Test
+        void shouldBindToConfiguredAddressAndRandomPort() throws IOException, InterruptedException {
+            HttpTaskServer randomPortServer = new HttpTaskServer(taskManager,
+                    new ServerSettings().withAddress("127.0.0.1", 0));
+            randomPortServer.start();
+            try {
+                assertNotEquals(0, randomPortServer.getPort(), "Не выбран свободный порт");
+                assertNotEquals(HttpTaskServer.PORT, randomPortServer.getPort(), "Занят порт по умолчанию");
+
+                HttpResponse<String> response = sendGetRequest(
+                        URI.create("http://127.0.0.1:" + randomPortServer.getPort() + "/tasks"));
+                assertEquals(200, response.statusCode(), "Неверный код статуса");
+            } finally {
+                randomPortServer.stop();
+            }
+        }
+    }
+
     private HttpResponse<String> sendPostRequest(URI url, String body) throws IOException, InterruptedException {
         HttpRequest request = HttpRequest.newBuilder().uri(url).POST(HttpRequest.BodyPublishers.ofString(body)).build();
         return httpClient.send(request, HttpResponse.BodyHandlers.ofString());
@@ -1,10 +1,12 @@
 package service;
 
+import exception.NotFoundException;
 import exception.ValidationException;
 import model.EpicTask;
 import model.Status;
 import model.SubTask;
 import model.Task;
+import model.TaskType;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
@@ -12,12 +14,14 @@ import org.junit.jupiter.api.Test;
 
 import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static util.TaskTestUtil.assertEqualsEpicTask;
@@ -48,6 +52,84 @@ public abstract class TaskManagerTest<T extends TaskManager> {
         assertEqualsTask(task1, history.getFirst(), "Задачи не равны");
     }
 
+    @DisplayName("Увеличивать версию коллекции только при успешном изменении")
+    @Test
+    void shouldIncrementVersionOnlyOnSuccessfulChange() {
+        Task task = manager.createTask(new Task("task", "task d", Status.NEW, LocalDateTime.now(), Duration.ofMinutes(2)));
+        long tasksVersion = manager.getVersion(TaskType.TASK);
+
+        assertThrows(ValidationException.class, () -> manager.createTask(new Task("task2", "task2 d", Status.NEW,
+                task.getStartTime(), Duration.ofMinutes(2))));
+        manager.getAllTasks();
+        assertEquals(tasksVersion, manager.getVersion(TaskType.TASK), "Версия изменилась без изменения задач");
+
+        EpicTask epicTask = manager.createEpicTask(new EpicTask("epicTask", "epicTask d"));
+        long epicTasksVersion = manager.getVersion(TaskType.EPIC_TASK);
+        long subTasksVersion = manager.getVersion(TaskType.SUB_TASK);
+        manager.createSubTask(new SubTask("subTask", "subTask d", Status.DONE, epicTask.getId()));
+
+        assertTrue(manager.getVersion(TaskType.SUB_TASK) > subTasksVersion, "Версия подзадач не увеличилась");
+        assertTrue(manager.getVersion(TaskType.EPIC_TASK) > epicTasksVersion,
+                "Версия эпиков не увеличилась при изменении подзадачи");
+        assertEquals(tasksVersion, manager.getVersion(TaskType.TASK), "Версия задач изменилась");
+    }
+
+    @DisplayName("Сообщить слушателям о создании, изменении и удалении задач")
+    @Test
+    void shouldNotifyListenersAboutChanges() {
+        List<String> events = new ArrayList<>();
+        TaskListener listener = event -> events.add(event.getType() + " " + event.getTaskType() + " " + event.getId());
+        manager.addListener(listener);
+
+        EpicTask epicTask = manager.createEpicTask(new EpicTask("epicTask", "epicTask d"));
+        SubTask subTask = manager.createSubTask(new SubTask("subTask", "subTask d", Status.NEW, epicTask.getId()));
+        subTask.setStatus(Status.DONE);
+        manager.updateSubTask(subTask);
+        manager.removeEpicTask(epicTask.getId());
+        manager.removeAllTasks();
+        manager.removeListener(listener);
+        manager.createTask(new Task("task", "task d", Status.NEW));
+
+        int epicTaskId = epicTask.getId();
+        int subTaskId = subTask.getId();
+        assertEquals(List.of(
+                "CREATED EPIC_TASK " + epicTaskId,
+                "CREATED SUB_TASK " + subTaskId,
+                "UPDATED EPIC_TASK " + epicTaskId,
+                "UPDATED SUB_TASK " + subTaskId,
+                "UPDATED EPIC_TASK " + epicTaskId,
+                "REMOVED SUB_TASK " + subTaskId,
+                "REMOVED EPIC_TASK " + epicTaskId,
+                "CLEARED TASK 0"), events, "Неверные события");
+    }
+
+    @DisplayName("Сохранить пакет задач с результатом для каждой задачи")
+    @Test
+    void shouldApplyBatchWithResultPerTask() {
+        EpicTask epicTask = manager.createEpicTask(new EpicTask("epicTask", "epicTask d"));
+        LocalDateTime startTime = LocalDateTime.now();
+        Task task = new Task("task", "task d", Status.NEW, startTime, Duration.ofMinutes(10));
+        Task intersectedTask = new Task("task2", "task2 d", Status.NEW, startTime.plusMinutes(5), Duration.ofMinutes(1));
+        SubTask subTask1 = new SubTask("subTask1", "subTask1 d", Status.DONE, epicTask.getId(),
+                startTime.plusMinutes(20), Duration.ofMinutes(5));
+        SubTask subTask2 = new SubTask("subTask2", "subTask2 d", Status.NEW, epicTask.getId());
+        SubTask orphanSubTask = new SubTask("subTask3", "subTask3 d", Status.NEW, 999);
+
+        List<BatchResult> results = manager.applyBatch(List.of(task, intersectedTask, subTask1, subTask2, orphanSubTask));
+
+        assertEquals(List.of(true, false, true, true, false), results.stream().map(BatchResult::isSuccess).toList(),
+                "Неверные результаты пакета");
+        assertTrue(results.get(1).getError() instanceof ValidationException, "Не найдено пересечение по времени");
+        assertTrue(results.get(4).getError() instanceof NotFoundException, "Не найдено отсутствие эпика");
+        assertEquals(List.of(task), manager.getAllTasks(), "Неверный список задач");
+        assertEquals(List.of(subTask1, subTask2), manager.getSubTasksFromEpicTaskId(epicTask.getId()),
+                "Подзадачи не добавились в эпик");
+
+        EpicTask savedEpicTask = manager.getEpicTask(epicTask.getId());
+        assertEquals(Status.IN_PROGRESS, savedEpicTask.getStatus(), "Статус эпика не пересчитался");
+        assertEquals(subTask1.getStartTime(), savedEpicTask.getStartTime(), "Время эпика не пересчиталось");
+    }
+
     @Nested
     @DisplayName("Создать задачи")
     class CreateTasksTest {
@@ -150,6 +232,34 @@ public abstract class TaskManagerTest<T extends TaskManager> {
 
             assertEquals(tasks, sortedTasks, "Задачи не отсортированы по времени начала");
         }
+
+        @DisplayName("Получить задачи страницами с фильтрами")
+        @Test
+        void shouldFindTasksPageByPage() {
+            LocalDateTime startTime = LocalDateTime.now();
+            for (int i = 0; i < 5; i++) {
+                Status status = i % 2 == 0 ? Status.NEW : Status.DONE;
+                manager.createTask(new Task("task" + i, "task d", status, startTime.plusMinutes(10 - 2 * i),
+                        Duration.ofMinutes(1)));
+            }
+
+            TaskQuery newTasks = new TaskQuery().withStatus(Status.NEW).withLimit(2);
+            List<Task> firstPage = manager.findTasks(newTasks);
+            List<Task> secondPage = manager.findTasks(newTasks.withCursor(firstPage.getLast().getId()));
+
+            assertEquals(List.of(1, 3), firstPage.stream().map(Task::getId).toList(), "Неверная первая страница");
+            assertEquals(List.of(5), secondPage.stream().map(Task::getId).toList(), "Неверная вторая страница");
+
+            TaskQuery window = new TaskQuery().withTimeWindow(startTime.plusMinutes(2), startTime.plusMinutes(8))
+                    .withLimit(1);
+            List<Task> prioritizedFirst = manager.findPrioritizedTasks(window);
+            Task last = prioritizedFirst.getLast();
+            List<Task> prioritizedRest = manager.findPrioritizedTasks(window.withLimit(10)
+                    .withCursor(last.getStartTime(), last.getId()));
+
+            assertEquals(List.of(5), prioritizedFirst.stream().map(Task::getId).toList(), "Неверная первая страница по приоритету");
+            assertEquals(List.of(4, 3), prioritizedRest.stream().map(Task::getId).toList(), "Неверная вторая страница по приоритету");
+        }
     }
 
     @Nested
@@ -394,6 +504,29 @@ public abstract class TaskManagerTest<T extends TaskManager> {
             assertEquals(Duration.ofMinutes(2), epicTask.getDuration(),
                     "Длительность Эпика не равна сумме длительности подзадач");
         }
+
+        @DisplayName("Обновить статус и время Эпика при удалении подзадачи")
+        @Test
+        void shouldUpdateEpicTaskWhenSubTaskRemoved() {
+            SubTask updatedSubTask2 = (SubTask) copyTask(subTask2);
+            updatedSubTask2.setStatus(Status.DONE);
+            manager.updateSubTask(updatedSubTask2);
+            manager.removeSubTask(subTask1.getId());
+
+            EpicTask savedEpicTask = manager.getEpicTask(epicTask.getId());
+            assertEquals(Status.DONE, savedEpicTask.getStatus(),
+                    "Статус эпика не обновился на DONE, когда оставшиеся подзадачи DONE");
+            assertEquals(subTask2.getStartTime(), savedEpicTask.getStartTime(),
+                    "Время начала Эпика не сдвинулось после удаления ранней подзадачи");
+            assertEquals(Duration.ofMinutes(1), savedEpicTask.getDuration(),
+                    "Длительность Эпика не уменьшилась после удаления подзадачи");
+
+            manager.removeSubTask(subTask2.getId());
+            savedEpicTask = manager.getEpicTask(epicTask.getId());
+
+            assertEquals(Status.NEW, savedEpicTask.getStatus(), "Статус эпика без подзадач не NEW");
+            assertNull(savedEpicTask.getStartTime(), "У эпика без подзадач осталось время начала");
+        }
     }
 
     @Nested
@@ -461,5 +594,28 @@ public abstract class TaskManagerTest<T extends TaskManager> {
                     },
                     "Выбросилось исключение при отсутствии пересечения");
         }
+
+        @DisplayName("Пересечение по времени с соседними задачами")
+        @Test
+        void shouldThrowExceptionWhenIsTimeIntersectionWithNeighbours() {
+            Task task2 = new Task("task2", "task2 d", Status.NEW, task1.getStartTime().plusMinutes(10), Duration.ofMinutes(2));
+            Task task3 = new Task("task3", "task3 d", Status.NEW, task1.getStartTime().plusMinutes(20), Duration.ofMinutes(2));
+            manager.createTask(task2);
+            manager.createTask(task3);
+
+            assertThrows(ValidationException.class, () ->
+                            manager.createTask(new Task("task4", "task4 d", Status.NEW, task1.getStartTime().plusMinutes(5), Duration.ofMinutes(10))),
+                    "Не выбросилось исключение когда задача перекрывает следующую задачу");
+
+            assertThrows(ValidationException.class, () ->
+                            manager.createTask(new Task("task4", "task4 d", Status.NEW, task2.getStartTime().plusMinutes(1), Duration.ofMinutes(1))),
+                    "Не выбросилось исключение когда задача начинается внутри предыдущей задачи");
+
+            assertDoesNotThrow(() ->
+                            manager.createTask(new Task("task4", "task4 d", Status.NEW, task1.getStartTime().plusMinutes(5), Duration.ofMinutes(5))),
+                    "Выбросилось исключение при отсутствии пересечения между соседними задачами");
+
+            assertEquals(4, manager.getPrioritizedTasks().size(), "Не все задачи попали в список задач с приоритетом");
+        }
     }
 }
@@ -1,9 +1,12 @@
 package util;
 
+import model.Status;
+import model.Task;
 import org.junit.jupiter.api.Test;
 import service.HistoryManager;
 import service.TaskManager;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 
 class ManagersTest {
@@ -16,4 +19,19 @@ class ManagersTest {
         assertNotNull(tm, "Task Manager не инициализирован.");
         assertNotNull(hm, "History Manager не инициализирован.");
     }
-}
\ No newline at end of file
+
+    @Test
+    void shouldLimitOnlyBoundedHistory() {
+        HistoryManager defaultHistory = Managers.getDefaultHistory();
+        HistoryManager boundedHistory = Managers.getBoundedHistory(10);
+        for (int i = 1; i <= 20_000; i++) {
+            Task task = new Task("task", "task desc", Status.NEW);
+            task.setId(i);
+            defaultHistory.add(task);
+            boundedHistory.add(task);
+        }
+
+        assertEquals(20_000, defaultHistory.size(), "История по умолчанию ограничена по размеру");
+        assertEquals(10, boundedHistory.size(), "Ограниченная история превысила размер");
+    }
+}